@@ -0,0 +1,221 @@
+package de.raidcraft.skills.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the skill index of a module or plugin at compile time.
+ * <p>The index lists all skill factories, skill classes and requirement classes
+ * together with their type identifier and plugin dependencies.
+ * RCSkills reads the index when loading the jar and registers the listed factories
+ * and requirements directly without scanning the jar.
+ * <p>Add the processor to your build to generate the index:
+ * <pre>{@code
+ * dependencies {
+ *     compileOnly 'de.raidcraft:rcskills:...'
+ *     annotationProcessor 'de.raidcraft:rcskills-processor:...'
+ * }
+ * }</pre>
+ * <p>Every line of the index is a tab separated entry in one of the following formats:
+ * <pre>
+ * factory     &lt;factory class&gt;     &lt;skill class&gt; &lt;type&gt; &lt;depends&gt;
+ * skill       &lt;skill class&gt;       &lt;type&gt;        &lt;depends&gt;
+ * requirement &lt;requirement class&gt; &lt;type&gt;
+ * </pre>
+ */
+@SupportedAnnotationTypes("*")
+public class SkillIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX = "META-INF/rcskills/index";
+
+    static final String SKILL_INFO = "de.raidcraft.skills.SkillInfo";
+    static final String REQUIREMENT_INFO = "de.raidcraft.skills.RequirementInfo";
+    static final String SKILL_FACTORY = "de.raidcraft.skills.SkillFactory";
+
+    static final String FACTORY = "factory";
+    static final String SKILL = "skill";
+    static final String REQUIREMENT = "requirement";
+
+    // sorted by class name to produce the same index for the same sources
+    private final Map<String, String> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collect(type);
+        }
+
+        if (roundEnv.processingOver() && !entries.isEmpty()) {
+            writeIndex();
+        }
+
+        // never claim any annotation to allow other processors to run
+        return false;
+    }
+
+    private void collect(TypeElement type) {
+
+        if (type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.ABSTRACT)) {
+            String className = binaryName(type);
+
+            annotation(type, SKILL_INFO).ifPresent(info -> entries.put(SKILL + ":" + className,
+                    String.join("\t", SKILL, className, value(info, "value"), depends(info))));
+
+            annotation(type, REQUIREMENT_INFO).ifPresent(info -> {
+                if (hasNoArgsConstructor(type)) {
+                    entries.put(REQUIREMENT + ":" + className, String.join("\t", REQUIREMENT, className, value(info, "value")));
+                } else {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                            "requirement has no public no arguments constructor and must be registered manually", type);
+                }
+            });
+
+            findSkillFactory(type.asType()).ifPresent(factory -> collectFactory(type, className, factory));
+        }
+
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (nested.getModifiers().contains(Modifier.STATIC) || nested.getKind() != ElementKind.CLASS) {
+                collect(nested);
+            }
+        }
+    }
+
+    private void collectFactory(TypeElement type, String className, DeclaredType factory) {
+
+        if (!type.getModifiers().contains(Modifier.PUBLIC) || !hasNoArgsConstructor(type)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "skill factory has no public no arguments constructor and must be registered manually", type);
+            return;
+        }
+
+        List<? extends TypeMirror> arguments = factory.getTypeArguments();
+        if (arguments.size() != 1 || arguments.get(0).getKind() != TypeKind.DECLARED) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "unable to determine the skill class of the factory", type);
+            return;
+        }
+
+        TypeElement skill = (TypeElement) ((DeclaredType) arguments.get(0)).asElement();
+        Optional<AnnotationMirror> info = annotation(skill, SKILL_INFO);
+        if (info.isEmpty()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "the skill " + skill.getQualifiedName() + " of the factory is missing the @SkillInfo annotation", type);
+            return;
+        }
+
+        entries.put(FACTORY + ":" + className, String.join("\t",
+                FACTORY, className, binaryName(skill), value(info.get(), "value"), depends(info.get())));
+    }
+
+    private Optional<DeclaredType> findSkillFactory(TypeMirror type) {
+
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype.getKind() != TypeKind.DECLARED) continue;
+
+            DeclaredType declaredType = (DeclaredType) supertype;
+            TypeElement element = (TypeElement) declaredType.asElement();
+            if (element.getQualifiedName().contentEquals(SKILL_FACTORY)) {
+                return Optional.of(declaredType);
+            }
+
+            Optional<DeclaredType> factory = findSkillFactory(supertype);
+            if (factory.isPresent()) return factory;
+        }
+
+        return Optional.empty();
+    }
+
+    private boolean hasNoArgsConstructor(TypeElement type) {
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        return constructors.isEmpty() || constructors.stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty()
+                        && constructor.getModifiers().contains(Modifier.PUBLIC));
+    }
+
+    private Optional<AnnotationMirror> annotation(TypeElement type, String annotation) {
+
+        return type.getAnnotationMirrors().stream()
+                .filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation))
+                .map(mirror -> (AnnotationMirror) mirror)
+                .findFirst();
+    }
+
+    private AnnotationValue annotationValue(AnnotationMirror annotation, String name) {
+
+        return processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet().stream()
+                .filter(entry -> entry.getKey().getSimpleName().contentEquals(name))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String value(AnnotationMirror annotation, String name) {
+
+        AnnotationValue value = annotationValue(annotation, name);
+        return value == null ? "" : String.valueOf(value.getValue()).toLowerCase();
+    }
+
+    private String depends(AnnotationMirror annotation) {
+
+        AnnotationValue value = annotationValue(annotation, "depends");
+        if (value == null || !(value.getValue() instanceof List)) return "";
+
+        return ((List<?>) value.getValue()).stream()
+                .map(depend -> String.valueOf(((AnnotationValue) depend).getValue()))
+                .collect(Collectors.joining(","));
+    }
+
+    private String binaryName(TypeElement type) {
+
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void writeIndex() {
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# generated by the RCSkills annotation processor\n");
+                for (String entry : entries.values()) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "unable to write the skill index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package de.raidcraft.skills.processor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkillIndexProcessorTest {
+
+    // minimal copies of the RCSkills api the processor looks for
+    private static final String API = "package de.raidcraft.skills;\n";
+
+    @TempDir
+    Path output;
+
+    private List<JavaFileObject> sources;
+
+    @BeforeEach
+    void setUp() {
+
+        sources = new ArrayList<>();
+        source("de.raidcraft.skills.Skill", API + "public interface Skill {}");
+        source("de.raidcraft.skills.SkillInfo", API + "public @interface SkillInfo { String value(); String[] depends() default {}; }");
+        source("de.raidcraft.skills.RequirementInfo", API + "public @interface RequirementInfo { String value(); }");
+        source("de.raidcraft.skills.SkillFactory", API + "public interface SkillFactory<T extends Skill> { Class<T> getSkillClass(); }");
+    }
+
+    private void source(String className, String code) {
+
+        sources.add(new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        });
+    }
+
+    private List<String> compile() throws IOException {
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)) {
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, List.of(output.toFile()));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null, sources);
+            task.setProcessors(List.of(new SkillIndexProcessor()));
+            assertThat(task.call()).isTrue();
+        }
+
+        Path index = output.resolve(SkillIndexProcessor.INDEX);
+        if (!Files.exists(index)) return List.of();
+        return Files.readAllLines(index);
+    }
+
+    @Test
+    @DisplayName("should index skills, factories and requirements with their type and dependencies")
+    void shouldIndexSkillsAndFactories() throws IOException {
+
+        source("test.MySkill", "package test;\n"
+                + "import de.raidcraft.skills.*;\n"
+                + "@SkillInfo(value = \"My-Skill\", depends = {\"WorldGuard\", \"Vault\"})\n"
+                + "public class MySkill implements Skill {\n"
+                + "    public static class Factory implements SkillFactory<MySkill> {\n"
+                + "        public Class<MySkill> getSkillClass() { return MySkill.class; }\n"
+                + "    }\n"
+                + "}");
+        source("test.MyRequirement", "package test;\n"
+                + "@de.raidcraft.skills.RequirementInfo(\"my-requirement\")\n"
+                + "public class MyRequirement {}");
+
+        assertThat(compile()).contains(
+                "factory\ttest.MySkill$Factory\ttest.MySkill\tmy-skill\tWorldGuard,Vault",
+                "skill\ttest.MySkill\tmy-skill\tWorldGuard,Vault",
+                "requirement\ttest.MyRequirement\tmy-requirement"
+        );
+    }
+
+    @Test
+    @DisplayName("should find factories that extend an abstract factory")
+    void shouldIndexIndirectFactories() throws IOException {
+
+        source("test.OtherSkill", "package test;\n"
+                + "import de.raidcraft.skills.*;\n"
+                + "@SkillInfo(\"other\")\n"
+                + "public class OtherSkill implements Skill {}");
+        source("test.BaseFactory", "package test;\n"
+                + "public abstract class BaseFactory<T extends de.raidcraft.skills.Skill> implements de.raidcraft.skills.SkillFactory<T> {}");
+        source("test.OtherFactory", "package test;\n"
+                + "public class OtherFactory extends BaseFactory<OtherSkill> {\n"
+                + "    public Class<OtherSkill> getSkillClass() { return OtherSkill.class; }\n"
+                + "}");
+
+        assertThat(compile())
+                .contains("factory\ttest.OtherFactory\ttest.OtherSkill\tother\t")
+                .noneMatch(line -> line.contains("BaseFactory"));
+    }
+
+    @Test
+    @DisplayName("should not create an index without any skills")
+    void shouldNotCreateEmptyIndex() throws IOException {
+
+        sources.clear();
+        source("test.Empty", "package test;\npublic class Empty {}");
+
+        assertThat(compile()).isEmpty();
+    }
+}
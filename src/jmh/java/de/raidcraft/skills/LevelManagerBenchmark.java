@@ -0,0 +1,47 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the level and exp calculations that run on every exp change of a player.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LevelManagerBenchmark {
+
+    @Param({"10", "50", "100"})
+    public int level;
+
+    private LevelManager levelManager;
+    private long exp;
+
+    @Setup
+    public void setUp() {
+
+        MockBukkit.mock();
+        levelManager = MockBukkit.load(RCSkills.class).getLevelManager();
+        exp = levelManager.getTotalExpForLevel(level) + 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public int getLevelForExp() {
+
+        return levelManager.getLevelForExp(exp);
+    }
+
+    @Benchmark
+    public int calculateExpForNextLevel() {
+
+        return levelManager.calculateExpForNextLevel(level);
+    }
+}
@@ -0,0 +1,192 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.ItemBinding;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import lombok.SneakyThrows;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Simulates many players using the plugin at the same time on top of MockBukkit and the in memory H2 test database.
+ * <p>The simulation loads a catalog of skills from disk and lets all players join once per trial.
+ * Every benchmark then drives one operation for all players: item binding casts, exp gains, level ups and full reloads.
+ * <p>Run it with {@code ./gradlew jmh -PjmhInclude=LoadSimulationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadSimulationBenchmark {
+
+    private static final String CAST_SKILL = "load-cast";
+    private static final Material CAST_ITEM = Material.BLAZE_ROD;
+    private static final int MAX_RELOAD_TICKS = 20 * 60 * 5;
+
+    @Param({"100", "1000"})
+    public int players;
+
+    @Param({"50"})
+    public int skills;
+
+    private ServerMock server;
+    private RCSkills plugin;
+    private final List<PlayerMock> playerMocks = new ArrayList<>();
+    private final List<SkilledPlayer> skilledPlayers = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+
+        server = MockBukkit.mock(new ServerMock());
+        plugin = MockBukkit.load(RCSkills.class);
+        plugin.getPluginConfig().getCastRateLimit().setEnabled(false);
+        plugin.getSkillManager().registerSkill(LoadSkill.class, LoadSkill::new);
+
+        writeSkillCatalog(new File(plugin.getDataFolder(), plugin.getPluginConfig().getSkillsPath()));
+        // the skills are loaded one tick after the plugin is enabled
+        server.getScheduler().performOneTick();
+        ConfiguredSkill castSkill = ConfiguredSkill.findByAliasOrName(CAST_SKILL)
+                .orElseThrow(() -> new IllegalStateException("the skill catalog was not loaded"));
+
+        for (int i = 0; i < players; i++) {
+            PlayerMock player = server.addPlayer();
+            SkilledPlayer skilledPlayer = SkilledPlayer.getOrCreate(player);
+            PlayerSkill skill = PlayerSkill.getOrCreate(skilledPlayer, castSkill);
+            skilledPlayer.bindings().bind(skill, CAST_ITEM, ItemBinding.Action.RIGHT_CLICK);
+            plugin.getBindingListener().getUpdateBindings().accept(player.getUniqueId());
+            player.getInventory().setItemInMainHand(new ItemStack(CAST_ITEM));
+            playerMocks.add(player);
+            skilledPlayers.add(skilledPlayer);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public void cast() {
+
+        for (PlayerMock player : playerMocks) {
+            server.getPluginManager().callEvent(new PlayerInteractEvent(
+                    player, Action.RIGHT_CLICK_AIR, player.getInventory().getItemInMainHand(), null, BlockFace.SELF));
+        }
+        server.getScheduler().performOneTick();
+    }
+
+    @Benchmark
+    public void exp() {
+
+        for (SkilledPlayer player : skilledPlayers) {
+            player.addExp(25, "load simulation");
+        }
+    }
+
+    @Benchmark
+    public void levelUp() {
+
+        for (SkilledPlayer player : skilledPlayers) {
+            player.addLevel(1);
+        }
+    }
+
+    @Benchmark
+    public void reload() {
+
+        AtomicBoolean finished = new AtomicBoolean();
+        CompletableFuture<Void> loaded = plugin.reload(progress -> finished.set(progress.finished()));
+        // a reload clears all skill types and only registers the ones provided by plugins and modules
+        plugin.getSkillManager().registerSkill(LoadSkill.class, LoadSkill::new);
+        // the skill files are parsed in the background and loaded in the next tick after the parse finished
+        while (!loaded.isDone()) {
+            server.getScheduler().performOneTick();
+        }
+        loaded.join();
+        for (int tick = 0; !finished.get(); tick++) {
+            if (tick >= MAX_RELOAD_TICKS) {
+                throw new IllegalStateException("reload did not finish after " + tick + " ticks");
+            }
+            server.getScheduler().performOneTick();
+        }
+    }
+
+    @SneakyThrows
+    private void writeSkillCatalog(File directory) {
+
+        directory.mkdirs();
+
+        YamlConfiguration cast = new YamlConfiguration();
+        cast.set("name", "Load Cast");
+        cast.set("type", "load-test");
+        cast.set("level", 1);
+        cast.set("auto-unlock", true);
+        cast.set("no-skill-slot", true);
+        cast.set("execution.cooldown", 0);
+        cast.save(new File(directory, CAST_SKILL + ".yml"));
+
+        for (int i = 0; i < skills; i++) {
+            YamlConfiguration config = new YamlConfiguration();
+            config.set("name", "Load Skill " + i);
+            config.set("type", i % 3 == 0 ? "permission" : "none");
+            config.set("level", 1 + i % 20);
+            config.set("skillpoints", i % 4);
+            config.set("auto-unlock", i % 5 == 0);
+            config.set("no-skill-slot", i % 2 == 0);
+            config.set("categories", List.of("category-" + i % 4));
+            if (i % 3 == 0) {
+                config.set("with.permissions", List.of("rcskills.load." + i));
+            }
+            if (i % 7 == 0) {
+                config.set("skills.child.name", "Load Skill " + i + " Child");
+                config.set("skills.child.level", 2 + i % 20);
+            }
+            config.save(new File(directory, "load-" + i + ".yml"));
+        }
+    }
+
+    @SkillInfo("load-test")
+    public static class LoadSkill extends AbstractSkill implements Executable {
+
+        public LoadSkill(SkillContext context) {
+            super(context);
+        }
+
+        @Override
+        public void load(ConfigurationSection config) {
+
+        }
+
+        @Override
+        public void apply() {
+
+        }
+
+        @Override
+        public void remove() {
+
+        }
+
+        @Override
+        public ExecutionResult execute(ExecutionContext context) {
+
+            return success(context);
+        }
+    }
+}
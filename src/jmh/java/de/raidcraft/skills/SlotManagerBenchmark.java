@@ -0,0 +1,41 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calculation of the skill slot price that is shown in the skill and slot menus.
+ * <p>The calculation reads the level and skills of the player from the in memory test database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SlotManagerBenchmark {
+
+    private SlotManager slotManager;
+    private SkilledPlayer player;
+
+    @Setup
+    public void setUp() {
+
+        ServerMock server = MockBukkit.mock();
+        slotManager = MockBukkit.load(RCSkills.class).getSlotManager();
+        player = SkilledPlayer.getOrCreate(server.addPlayer());
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public double calculateSlotCost() {
+
+        return slotManager.calculateSlotCost(player);
+    }
+}
@@ -0,0 +1,70 @@
+package de.raidcraft.skills.entities;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.RCSkills;
+import org.bukkit.Material;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the binding lookup that runs on every interact event of a player.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemBindingsBenchmark {
+
+    private static final Material[] MATERIALS = {
+            Material.WOODEN_SWORD, Material.STONE_SWORD, Material.IRON_SWORD, Material.GOLDEN_SWORD,
+            Material.DIAMOND_SWORD, Material.BOW, Material.STICK, Material.BLAZE_ROD, Material.FEATHER, Material.BOOK
+    };
+    private static final int SKILLS = 5;
+
+    private ItemBindings bindings;
+
+    @Setup
+    public void setUp() {
+
+        ServerMock server = MockBukkit.mock();
+        RCSkills plugin = MockBukkit.load(RCSkills.class);
+        SkilledPlayer player = SkilledPlayer.getOrCreate(server.addPlayer());
+
+        PlayerSkill[] skills = new PlayerSkill[SKILLS];
+        for (int i = 0; i < SKILLS; i++) {
+            MemoryConfiguration config = new MemoryConfiguration();
+            config.set("type", "none");
+            plugin.getSkillManager().loadSkill("benchmark-" + i, config);
+            skills[i] = PlayerSkill.getOrCreate(player, ConfiguredSkill.findByAliasOrName("benchmark-" + i).orElseThrow());
+        }
+
+        ItemBindings playerBindings = player.bindings();
+        for (int i = 0; i < MATERIALS.length; i++) {
+            playerBindings.bind(skills[i % SKILLS], MATERIALS[i], ItemBinding.Action.LEFT_CLICK);
+            playerBindings.bind(skills[i % SKILLS], MATERIALS[i], ItemBinding.Action.RIGHT_CLICK);
+        }
+
+        bindings = SkilledPlayer.find.byId(player.id()).bindings();
+    }
+
+    @TearDown
+    public void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public Optional<ItemBinding> getBound() {
+
+        return bindings.get(Material.BOOK, ItemBinding.Action.RIGHT_CLICK);
+    }
+
+    @Benchmark
+    public Optional<ItemBinding> getUnbound() {
+
+        return bindings.get(Material.DIRT, ItemBinding.Action.LEFT_CLICK);
+    }
+}
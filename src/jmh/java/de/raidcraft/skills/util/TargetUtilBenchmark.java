@@ -0,0 +1,73 @@
+package de.raidcraft.skills.util;
+
+import de.raidcraft.skills.ExecutionConfig;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the target and cone lookups over all players of a world.
+ * <p>{@link #getTarget()} iterates over every player of the world,
+ * while {@link #nearest()} only searches the chunks along the view ray with the {@link TargetEngine}.
+ * <p>The players are mocked with the {@link TargetFixture} of the tests,
+ * so the results include the overhead of the mocked location lookups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TargetUtilBenchmark {
+
+    @Param({"50", "200", "1000"})
+    public int players;
+
+    private TargetFixture fixture;
+    private Player source;
+    private List<LivingEntity> entities;
+    private Vector startPos;
+    private Vector direction;
+
+    @Setup
+    public void setUp() {
+
+        fixture = new TargetFixture();
+        source = fixture.player(0.5, 64, 0.5);
+        fixture.player(0.5, 64, 15.5);
+
+        Random random = new Random(42);
+        while (fixture.players().size() < players) {
+            double x = random.nextInt(512) - 256.5;
+            double z = random.nextInt(512) - 256.5;
+            // keep the view ray free to always hit the same target
+            if (Math.abs(x) < 4) continue;
+            fixture.player(x, 64, z);
+        }
+
+        entities = new ArrayList<>(fixture.players());
+        startPos = source.getLocation().toVector();
+        direction = source.getLocation().getDirection();
+    }
+
+    @Benchmark
+    public Player getTarget() {
+
+        return TargetUtil.getTarget(source, fixture.players());
+    }
+
+    @Benchmark
+    public Player nearest() {
+
+        return TargetEngine.get().nearest(source, Player.class, ExecutionConfig.DEFAULT_RANGE);
+    }
+
+    @Benchmark
+    public List<LivingEntity> getEntitiesInCone() {
+
+        return TargetUtil.getEntitiesInCone(entities, startPos, 32f, 45f, direction);
+    }
+}
@@ -0,0 +1,73 @@
+package de.raidcraft.skills.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the small helpers that are called while loading and executing skills.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ReflectionState {
+
+        private final Map<Class<?>, String> map = new HashMap<>();
+
+        @Setup
+        public void setUp() {
+
+            map.put(Object.class, "object");
+            map.put(Collection.class, "collection");
+            map.put(List.class, "list");
+            map.put(AbstractList.class, "abstract-list");
+            map.put(RandomAccess.class, "random-access");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RandomState {
+
+        private PseudoRandomGenerator generator;
+
+        @Setup
+        public void setUp() {
+
+            generator = PseudoRandomGenerator.create(0.25f);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TimeState {
+
+        @Param({"1000", "10s", "1h30m", "1d20s10"})
+        public String input;
+    }
+
+    @Benchmark
+    public Optional<String> getEntryForExactTarget(ReflectionState state) {
+
+        return ReflectionUtil.getEntryForTarget(List.class, state.map);
+    }
+
+    @Benchmark
+    public Optional<String> getEntryForNearestTarget(ReflectionState state) {
+
+        return ReflectionUtil.getEntryForTarget(ArrayList.class, state.map);
+    }
+
+    @Benchmark
+    public boolean pseudoRandomHit(RandomState state) {
+
+        return state.generator.hit();
+    }
+
+    @Benchmark
+    public long parseTimeAsMilliseconds(TimeState state) {
+
+        return TimeUtil.parseTimeAsMilliseconds(state.input);
+    }
+}
@@ -3,6 +3,7 @@ package de.raidcraft.skills;
 import lombok.Data;
 import lombok.experimental.Accessors;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
 
 import java.util.Objects;
 
@@ -38,7 +39,7 @@ public abstract class AbstractRequirement implements Requirement {
 
         loadConfig(Objects.requireNonNullElseGet(
                 config.getConfigurationSection("with"),
-                () -> config.createSection("with")));
+                MemoryConfiguration::new));
 
         return this;
     }
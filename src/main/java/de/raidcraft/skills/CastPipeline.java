@@ -0,0 +1,339 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.metrics.Histogram;
+import de.raidcraft.skills.util.TimeUtil;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Executes skills in multiple stages: validation, rate limit, cooldown, warmup, delay and execution.
+ * <p>Every player can only cast one skill at a time. Skills that are used while the player
+ * is casting or on global cooldown are buffered in a bounded queue and executed afterwards.
+ * <p>All warmups and delays are driven by a single timer that only runs while casts are pending.
+ * The warmup of a skill is interrupted if the player moves.
+ * <p>Child skills are part of the cast of their parent and are executed right after it.
+ */
+@Log(topic = "RCSkills")
+public final class CastPipeline {
+
+    private final RCSkills plugin;
+    private final SkillPluginConfig config;
+    private final CastRateLimiter rateLimiter;
+    private final Map<UUID, PlayerCasts> players = new HashMap<>();
+    private final PriorityQueue<Cast> timers = new PriorityQueue<>(Comparator.comparingLong(cast -> cast.due));
+    private final Set<UUID> waiting = new LinkedHashSet<>();
+
+    private BukkitTask task;
+    private long tick;
+
+    CastPipeline(RCSkills plugin, SkillPluginConfig config, CastRateLimiter rateLimiter) {
+        this.plugin = plugin;
+        this.config = config;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Validates the given skill and starts or queues its execution.
+     * <p>The callback is informed about every stage of the execution, e.g. warmup, delay and the final result.
+     *
+     * @param context the skill that should be executed
+     * @param executeTime the histogram that records the time of the final execution after the warmup and delay
+     * @param children the child skills that are executed together with the skill
+     * @param callback the callback that is called with the result of each stage
+     */
+    void cast(SkillContext context, Histogram executeTime, List<Child> children, Consumer<ExecutionResult> callback) {
+
+        ExecutionContext executionContext = ExecutionContext.of(context, callback);
+
+        if (!context.executable() && children.isEmpty()) {
+            return;
+        }
+
+        if (!rateLimiter.tryAcquire(context)) {
+            callback.accept(executionContext.failure("Du benutzt den Skill zu schnell."));
+            return;
+        }
+
+        Player player = Bukkit.getPlayer(context.playerId());
+        if (player == null) {
+            callback.accept(executionContext.failure("Der Besitzer des Skills ist nicht online."));
+            return;
+        }
+
+        if (context.isOnCooldown()) {
+            callback.accept(executionContext.cooldown());
+            return;
+        }
+
+        Cast cast = new Cast(context.playerId(), executionContext, executeTime, children, callback);
+        PlayerCasts casts = players.computeIfAbsent(cast.playerId, id -> new PlayerCasts());
+        if (casts.active == null && casts.queue.isEmpty() && System.currentTimeMillis() >= casts.globalCooldownEnd) {
+            start(casts, cast);
+            return;
+        }
+
+        if (casts.queue.size() >= Math.max(0, config.getCastQueueSize())) {
+            callback.accept(executionContext.failure("Du kannst keine weiteren Skills vormerken."));
+            return;
+        }
+
+        casts.queue.add(cast);
+        callback.accept(ExecutionResult.of(executionContext, ExecutionResult.Status.QUEUED));
+        if (casts.active == null) {
+            waiting.add(cast.playerId);
+            startTimer();
+        }
+    }
+
+    /**
+     * Cancels the current and all queued casts of the given player.
+     *
+     * @param playerId the id of the player
+     */
+    void cancel(UUID playerId) {
+
+        PlayerCasts casts = players.remove(playerId);
+        waiting.remove(playerId);
+        if (casts == null) return;
+
+        if (casts.active != null) {
+            timers.remove(casts.active);
+        }
+        stopTimerIfIdle();
+    }
+
+    /**
+     * Cancels all pending casts and stops the timer.
+     */
+    void cancelAll() {
+
+        players.clear();
+        waiting.clear();
+        timers.clear();
+        stopTimerIfIdle();
+    }
+
+    /**
+     * @param playerId the id of the player
+     * @return true if the player is currently casting a skill
+     */
+    public boolean casting(UUID playerId) {
+
+        PlayerCasts casts = players.get(playerId);
+        return casts != null && casts.active != null;
+    }
+
+    private void start(PlayerCasts casts, Cast cast) {
+
+        if (cast.context.source().isOnCooldown()) {
+            cast.callback.accept(cast.context.cooldown());
+            finish(casts);
+            return;
+        }
+
+        casts.active = cast;
+        long warmup = cast.context.config().warmup();
+        Player player = Bukkit.getPlayer(cast.playerId);
+        if (warmup > 0 && player != null) {
+            cast.stage = Stage.WARMUP;
+            cast.location = player.getLocation();
+            cast.due = tick + warmup;
+            timers.add(cast);
+            startTimer();
+            cast.callback.accept(ExecutionResult.of(cast.context, ExecutionResult.Status.WARMUP));
+            return;
+        }
+
+        delay(casts, cast);
+    }
+
+    private void delay(PlayerCasts casts, Cast cast) {
+
+        long delay = cast.context.config().delay();
+        if (delay > 0) {
+            cast.stage = Stage.DELAY;
+            cast.due = tick + delay;
+            timers.add(cast);
+            startTimer();
+            cast.callback.accept(ExecutionResult.delayed(cast.context));
+            return;
+        }
+
+        execute(casts, cast);
+    }
+
+    private void execute(PlayerCasts casts, Cast cast) {
+
+        cast.stage = Stage.EXECUTION;
+        if (cast.context.source().executable()) {
+            run(cast.context, cast.executeTime);
+        }
+        for (Child child : cast.children) {
+            SkillContext source = child.context();
+            if (!source.executable()) continue;
+
+            ExecutionContext context = ExecutionContext.of(source, cast.callback);
+            if (source.isOnCooldown()) {
+                cast.callback.accept(context.cooldown());
+                continue;
+            }
+            run(context, child.executeTime());
+        }
+        casts.globalCooldownEnd = System.currentTimeMillis() + TimeUtil.ticksToMillis(Math.max(0, config.getGlobalCooldown()));
+        finish(casts);
+    }
+
+    private void run(ExecutionContext context, Histogram executeTime) {
+
+        long start = System.nanoTime();
+        try {
+            context.run();
+        } catch (Exception e) {
+            log.severe("failed to execute skill " + context.source().configuredSkillId() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        executeTime.recordSince(start);
+    }
+
+    private void finish(PlayerCasts casts) {
+
+        casts.active = null;
+        Cast next = casts.queue.peek();
+        if (next == null) return;
+
+        waiting.add(next.playerId);
+        startTimer();
+    }
+
+    private void tick() {
+
+        tick++;
+
+        timers.removeIf(cast -> {
+            if (cast.stage != Stage.WARMUP || !moved(cast)) return false;
+
+            cast.callback.accept(cast.context.failure("Der Skill wurde durch eine Bewegung unterbrochen."));
+            PlayerCasts casts = players.get(cast.playerId);
+            if (casts != null) {
+                finish(casts);
+            }
+            return true;
+        });
+
+        while (!timers.isEmpty() && timers.peek().due <= tick) {
+            Cast cast = timers.poll();
+            PlayerCasts casts = players.get(cast.playerId);
+            if (casts == null || casts.active != cast) continue;
+
+            if (cast.stage == Stage.WARMUP) {
+                delay(casts, cast);
+            } else {
+                execute(casts, cast);
+            }
+        }
+
+        for (UUID playerId : new ArrayList<>(waiting)) {
+            PlayerCasts casts = players.get(playerId);
+            if (casts == null || casts.queue.isEmpty()) {
+                waiting.remove(playerId);
+                continue;
+            }
+            if (casts.active != null || System.currentTimeMillis() < casts.globalCooldownEnd) continue;
+
+            waiting.remove(playerId);
+            start(casts, casts.queue.poll());
+        }
+
+        stopTimerIfIdle();
+    }
+
+    private boolean moved(Cast cast) {
+
+        Player player = Bukkit.getPlayer(cast.playerId);
+        if (player == null) return true;
+
+        Location location = player.getLocation();
+        return location.getWorld() != cast.location.getWorld()
+                || location.getBlockX() != cast.location.getBlockX()
+                || location.getBlockY() != cast.location.getBlockY()
+                || location.getBlockZ() != cast.location.getBlockZ();
+    }
+
+    private void startTimer() {
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    private void stopTimerIfIdle() {
+
+        if (task != null && timers.isEmpty() && waiting.isEmpty()) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * A child skill that is executed as part of the cast of its parent.
+     */
+    @Value
+    @Accessors(fluent = true)
+    static class Child {
+
+        SkillContext context;
+        Histogram executeTime;
+    }
+
+    private enum Stage {
+        QUEUED,
+        WARMUP,
+        DELAY,
+        EXECUTION
+    }
+
+    private static final class PlayerCasts {
+
+        private final Deque<Cast> queue = new ArrayDeque<>();
+        private Cast active;
+        private long globalCooldownEnd;
+    }
+
+    private static final class Cast {
+
+        private final UUID playerId;
+        private final ExecutionContext context;
+        private final Histogram executeTime;
+        private final List<Child> children;
+        private final Consumer<ExecutionResult> callback;
+        private Stage stage = Stage.QUEUED;
+        private Location location;
+        private long due;
+
+        private Cast(UUID playerId, ExecutionContext context, Histogram executeTime, List<Child> children, Consumer<ExecutionResult> callback) {
+            this.playerId = playerId;
+            this.context = context;
+            this.executeTime = executeTime;
+            this.children = children;
+            this.callback = callback;
+        }
+    }
+}
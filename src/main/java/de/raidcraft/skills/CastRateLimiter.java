@@ -0,0 +1,190 @@
+package de.raidcraft.skills;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Limits how fast players can try to use their skills with a token bucket per player.
+ * <p>Every cast attempt takes one token out of the bucket of the player. The bucket is refilled
+ * with a constant rate up to its capacity. Attempts without any tokens left are rejected
+ * before any skill or player data is loaded.
+ * <p>Skills can define a stricter limit with the {@code rate-limit} and {@code rate-limit-burst}
+ * options of their execution config. These limits are tracked per player and skill.
+ * <p>All rejections are counted per player to make it easy to spot players using macros.
+ */
+public final class CastRateLimiter {
+
+    /**
+     * The number of casts per second that are allowed for a single skill.
+     */
+    public static final ConfigKey<Double> RATE_LIMIT = ConfigKey.ofDouble("rate-limit", 0d);
+    /**
+     * The number of casts of a single skill that can be used at once before the rate limit applies.
+     */
+    public static final ConfigKey<Integer> RATE_LIMIT_BURST = ConfigKey.ofInt("rate-limit-burst", 1);
+
+    private final SkillPluginConfig.CastRateLimitConfig config;
+    private final LongSupplier clock;
+    private final Map<UUID, Bucket> playerBuckets = new HashMap<>();
+    // player_id -> configured_skill_id -> bucket
+    private final Map<UUID, Map<UUID, Bucket>> skillBuckets = new HashMap<>();
+    private final Map<UUID, Long> rejections = new HashMap<>();
+    private long totalRejections;
+
+    CastRateLimiter(SkillPluginConfig.CastRateLimitConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    CastRateLimiter(SkillPluginConfig.CastRateLimitConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token out of the bucket of the given player.
+     * <p>Use this before looking up the skill the player wants to use.
+     *
+     * @param playerId the id of the player that tries to use a skill
+     * @return true if the player may use a skill, false if the attempt was rejected
+     */
+    public boolean tryAcquire(UUID playerId) {
+
+        if (!config.isEnabled()) return true;
+
+        Bucket bucket = playerBuckets.computeIfAbsent(playerId, id -> new Bucket(config.getCapacity(), clock.getAsLong()));
+        return acquire(playerId, bucket, config.getCapacity(), config.getRefillPerSecond());
+    }
+
+    /**
+     * Takes a token out of the skill specific bucket of the player if the skill has a rate limit configured.
+     *
+     * @param context the skill the player tries to use
+     * @return true if the skill may be used, false if the attempt was rejected
+     */
+    public boolean tryAcquire(SkillContext context) {
+
+        ExecutionConfig executionConfig = context.executionConfig();
+        double rate = executionConfig.get(RATE_LIMIT);
+        if (rate <= 0) return true;
+
+        int capacity = Math.max(1, executionConfig.get(RATE_LIMIT_BURST));
+        Bucket bucket = skillBuckets.computeIfAbsent(context.playerId(), id -> new HashMap<>())
+                .computeIfAbsent(context.configuredSkillId(), id -> new Bucket(capacity, clock.getAsLong()));
+        return acquire(context.playerId(), bucket, capacity, rate);
+    }
+
+    /**
+     * Gets the number of rejected cast attempts of the given player.
+     *
+     * @param playerId the id of the player
+     * @return the number of rejected attempts
+     */
+    public long rejections(UUID playerId) {
+
+        return rejections.getOrDefault(playerId, 0L);
+    }
+
+    /**
+     * @return the number of rejected cast attempts of all players
+     */
+    public long totalRejections() {
+
+        return totalRejections;
+    }
+
+    /**
+     * Gets the players with the most rejected cast attempts.
+     *
+     * @param limit the maximum number of players
+     * @return the players and their rejections sorted descending by the number of rejections
+     */
+    public List<Rejections> topRejections(int limit) {
+
+        return rejections.entrySet().stream()
+                .sorted(Map.Entry.<UUID, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> new Rejections(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resets the rejection counters of all players.
+     */
+    public void resetRejections() {
+
+        rejections.clear();
+        totalRejections = 0;
+    }
+
+    /**
+     * Removes the buckets of the given player. The rejection counter of the player is kept.
+     *
+     * @param playerId the id of the player
+     */
+    void remove(UUID playerId) {
+
+        playerBuckets.remove(playerId);
+        skillBuckets.remove(playerId);
+    }
+
+    void clear() {
+
+        playerBuckets.clear();
+        skillBuckets.clear();
+    }
+
+    private boolean acquire(UUID playerId, Bucket bucket, int capacity, double refillPerSecond) {
+
+        if (bucket.tryConsume(capacity, refillPerSecond, clock.getAsLong())) {
+            return true;
+        }
+
+        rejections.merge(playerId, 1L, Long::sum);
+        totalRejections++;
+        return false;
+    }
+
+    private static final class Bucket {
+
+        private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+        private double tokens;
+        private long lastRefill;
+
+        private Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        private boolean tryConsume(int capacity, double refillPerSecond, long now) {
+
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed * refillPerSecond / NANOS_PER_SECOND);
+                lastRefill = now;
+            }
+
+            if (tokens < 1) return false;
+
+            tokens--;
+            return true;
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Rejections {
+
+        UUID playerId;
+        long count;
+    }
+}
@@ -0,0 +1,212 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.util.TimeUtil;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A typed key of a value in the {@link ExecutionConfig} of a skill.
+ * <p>Declare your keys as static final fields in your skill class and read them with
+ * {@link ExecutionContext#config(ConfigKey)}. The keys are resolved and converted once
+ * when the skill is loaded and every read afterwards is a simple array access.
+ * <pre>{@code
+ * private static final ConfigKey<Double> DAMAGE = ConfigKey.ofDouble("damage", 10.0);
+ *
+ * public ExecutionResult execute(ExecutionContext context) {
+ *     double damage = context.config(DAMAGE);
+ *     ...
+ * }
+ * }</pre>
+ *
+ * @param <TValue> the type of the config value
+ */
+@Getter
+@Log(topic = "RCSkills")
+@Accessors(fluent = true)
+@ToString(of = {"key", "type", "defaultValue"})
+public final class ConfigKey<TValue> {
+
+    // key -> slot, keys with the same name share their slot so that reloaded skill classes do not add new slots
+    private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+    private static final ClassValue<List<ConfigKey<?>>> DECLARED_KEYS = new ClassValue<>() {
+        @Override
+        protected List<ConfigKey<?>> computeValue(Class<?> type) {
+            return findDeclaredKeys(type);
+        }
+    };
+
+    public static ConfigKey<String> ofString(String key, String defaultValue) {
+
+        return new ConfigKey<>(key, String.class, defaultValue,
+                value -> value instanceof String || value instanceof Number || value instanceof Boolean ? value.toString() : null);
+    }
+
+    public static ConfigKey<Integer> ofInt(String key, int defaultValue) {
+
+        return new ConfigKey<>(key, Integer.class, defaultValue,
+                value -> value instanceof Number ? ((Number) value).intValue() : null);
+    }
+
+    public static ConfigKey<Long> ofLong(String key, long defaultValue) {
+
+        return new ConfigKey<>(key, Long.class, defaultValue,
+                value -> value instanceof Number ? ((Number) value).longValue() : null);
+    }
+
+    public static ConfigKey<Double> ofDouble(String key, double defaultValue) {
+
+        return new ConfigKey<>(key, Double.class, defaultValue,
+                value -> value instanceof Number ? ((Number) value).doubleValue() : null);
+    }
+
+    public static ConfigKey<Boolean> ofBoolean(String key, boolean defaultValue) {
+
+        return new ConfigKey<>(key, Boolean.class, defaultValue,
+                value -> value instanceof Boolean ? (Boolean) value : null);
+    }
+
+    /**
+     * Creates a key for a time value that is converted to milliseconds.
+     * <p>See {@link TimeUtil#TIME_DESC} for the supported time notation.
+     *
+     * @param key the key of the config value
+     * @param defaultValue the default time, e.g. 10s
+     * @return the config key
+     */
+    public static ConfigKey<Long> ofMillis(String key, String defaultValue) {
+
+        return new ConfigKey<>(key, Long.class, TimeUtil.parseTimeAsMilliseconds(defaultValue),
+                value -> value instanceof String || value instanceof Number ? TimeUtil.parseTimeAsMilliseconds(value.toString()) : null);
+    }
+
+    /**
+     * Creates a key for a time value that is converted to ticks.
+     * <p>See {@link TimeUtil#TIME_DESC} for the supported time notation.
+     *
+     * @param key the key of the config value
+     * @param defaultValue the default time, e.g. 10s
+     * @return the config key
+     */
+    public static ConfigKey<Long> ofTicks(String key, String defaultValue) {
+
+        return new ConfigKey<>(key, Long.class, TimeUtil.parseTimeAsTicks(defaultValue),
+                value -> value instanceof String || value instanceof Number ? TimeUtil.parseTimeAsTicks(value.toString()) : null);
+    }
+
+    public static ConfigKey<List<String>> ofStringList(String key, List<String> defaultValue) {
+
+        @SuppressWarnings("unchecked")
+        Class<List<String>> type = (Class<List<String>>) (Class<?>) List.class;
+        return new ConfigKey<>(key, type, List.copyOf(defaultValue),
+                value -> value instanceof List ? ((List<?>) value).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.toUnmodifiableList()) : null);
+    }
+
+    /**
+     * Creates a key for a value that is cast to the given type.
+     *
+     * @param key the key of the config value
+     * @param type the type of the value
+     * @param defaultValue the default value that is used if the value is not set or has the wrong type
+     * @param <TValue> the type of the value
+     * @return the config key
+     */
+    public static <TValue> ConfigKey<TValue> of(String key, Class<TValue> type, TValue defaultValue) {
+
+        return new ConfigKey<>(key, type, defaultValue, value -> type.isInstance(value) ? type.cast(value) : null);
+    }
+
+    /**
+     * Gets all config keys that are declared as static fields in the given class or its super classes.
+     *
+     * @param type the class to get the keys for
+     * @return the declared config keys
+     */
+    public static List<ConfigKey<?>> declaredBy(Class<?> type) {
+
+        return DECLARED_KEYS.get(type);
+    }
+
+    private final String key;
+    private final Class<TValue> type;
+    private final TValue defaultValue;
+    /**
+     * The index of the value in the {@link ExecutionConfig}.
+     * <p>All keys with the same name share one slot. The number of slots is therefore limited by the number of
+     * distinct key names and does not grow if the same skill classes are loaded again, e.g. by a module reload.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final int slot;
+    @Getter(AccessLevel.NONE)
+    private final Function<Object, TValue> converter;
+
+    private ConfigKey(String key, Class<TValue> type, TValue defaultValue, Function<Object, TValue> converter) {
+        this.key = Objects.requireNonNull(key, "key");
+        this.type = type;
+        this.defaultValue = Objects.requireNonNull(defaultValue, "defaultValue");
+        this.converter = converter;
+        this.slot = SLOTS.computeIfAbsent(key, name -> NEXT_SLOT.getAndIncrement());
+    }
+
+    /**
+     * Reads and converts the value of this key from the given config.
+     * <p>The default value is returned if the value is not set or cannot be converted.
+     *
+     * @param config the config to read the value from
+     * @return the converted value or the default value
+     */
+    TValue read(ConfigurationSection config) {
+
+        Object value = config.get(key);
+        if (value == null) return defaultValue;
+
+        TValue result;
+        try {
+            result = converter.apply(value);
+        } catch (RuntimeException e) {
+            result = null;
+        }
+        if (result == null) {
+            log.warning("unable to convert execution config value " + key + "=" + value + " to type: " + type.getCanonicalName());
+            return defaultValue;
+        }
+        return result;
+    }
+
+    private static List<ConfigKey<?>> findDeclaredKeys(Class<?> type) {
+
+        List<ConfigKey<?>> keys = new ArrayList<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) || field.getType() != ConfigKey.class) continue;
+                try {
+                    field.setAccessible(true);
+                    Object key = field.get(null);
+                    if (key != null) {
+                        keys.add((ConfigKey<?>) key);
+                    }
+                } catch (IllegalAccessException | RuntimeException e) {
+                    log.warning("unable to access config key " + current.getCanonicalName() + "#" + field.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+        return List.copyOf(keys);
+    }
+}
@@ -20,7 +20,7 @@ class DefaultExecutionContext implements ExecutionContext {
         this.source = source;
         this.skill = source.get();
         this.callback = callback;
-        this.config = source.configuredSkill().executionConfig();
+        this.config = source.executionConfig();
     }
 
     @Override
@@ -34,9 +34,14 @@ class DefaultExecutionContext implements ExecutionContext {
 
         if (skill instanceof Executable) {
             try {
-                ((Executable) skill).execute(this);
-                source().playerSkill().lastUsed(Instant.now()).save();
-                callback.accept(ExecutionResult.success(this));
+                ExecutionResult result = ((Executable) skill).execute(this);
+                if (result == null) {
+                    result = ExecutionResult.success(this);
+                }
+                if (result.success()) {
+                    source().lastUsed(Instant.now());
+                }
+                callback.accept(result);
             } catch (Exception e) {
                 callback.accept(ExecutionResult.exception(this, e));
             }
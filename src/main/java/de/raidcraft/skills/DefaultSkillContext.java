@@ -3,6 +3,9 @@ package de.raidcraft.skills;
 import de.raidcraft.skills.entities.ConfiguredSkill;
 import de.raidcraft.skills.entities.PlayerSkill;
 import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.Counter;
+import de.raidcraft.skills.metrics.Histogram;
+import de.raidcraft.skills.metrics.MetricsRegistry;
 import lombok.Data;
 import lombok.ToString;
 import lombok.experimental.Accessors;
@@ -11,12 +14,15 @@ import net.silthus.configmapper.ConfigurationException;
 import net.silthus.configmapper.bukkit.BukkitConfigMap;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
-import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.scheduler.BukkitTask;
 
-import java.util.Optional;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -30,10 +36,14 @@ class DefaultSkillContext implements SkillContext {
     private final UUID playerId;
     private final UUID configuredSkillId;
     private final Skill.Registration<?> registration;
+    private final Histogram executeTime;
+    private final Map<ExecutionResult.Status, Counter> executions = new EnumMap<>(ExecutionResult.Status.class);
     private Skill skill;
     private long interval;
     private boolean attached;
     private BukkitTask task;
+    private ExecutionConfig executionConfig;
+    private Instant lastUsed = Instant.EPOCH;
 
     DefaultSkillContext(PlayerSkill playerSkill, Skill.Registration<?> registration) {
         this.playerSkillId = playerSkill.id();
@@ -41,6 +51,12 @@ class DefaultSkillContext implements SkillContext {
         this.configuredSkillId = playerSkill.configuredSkill().id();
         this.registration = registration;
         this.interval = registration().info().taskInterval();
+
+        MetricsRegistry metrics = RCSkills.instance().getMetrics();
+        this.executeTime = metrics.histogram("rcskills_skill_execute_seconds", "type", registration.type());
+        for (ExecutionResult.Status status : ExecutionResult.Status.values()) {
+            executions.put(status, metrics.counter("rcskills_skill_executions_total", "status", status.name().toLowerCase(Locale.ROOT)));
+        }
     }
 
     public void reload() {
@@ -64,13 +80,53 @@ class DefaultSkillContext implements SkillContext {
             throw new ConfigurationException("the player skill has been deleted.");
         }
 
-        this.interval = playerSkill.configuredSkill().taskConfig().interval(interval);
-        ConfigurationSection skillConfig = playerSkill.configuredSkill().getSkillConfig();
+        ConfiguredSkill configuredSkill = playerSkill.configuredSkill();
+        this.interval = configuredSkill.taskConfig().interval(interval);
+        this.executionConfig = configuredSkill.executionConfig()
+                .resolve(ConfigKey.declaredBy(registration.skillClass()));
+
+        if (registration.info().sharedConfig() && applySharedConfig(configuredSkill)) {
+            return this;
+        }
+
+        skill = loadConfig(skill, configuredSkill);
+        return this;
+    }
+
+    /**
+     * Copies the shared config of the configured skill to the skill of this context.
+     * <p>The shared config is loaded once with a template that is not bound to any player.
+     * A shared config that no longer matches the skill class is dropped and the skill is loaded for this player instead.
+     *
+     * @return true if the shared config was applied
+     */
+    private boolean applySharedConfig(ConfiguredSkill configuredSkill) throws ConfigurationException {
+
+        SkillManager skillManager = RCSkills.instance().getSkillManager();
+        SharedSkillConfig sharedConfig = skillManager.getSharedConfig(configuredSkillId).orElse(null);
+        if (sharedConfig == null) {
+            SharedSkillConfig.TemplateContext template = new SharedSkillConfig.TemplateContext(configuredSkillId, executionConfig);
+            sharedConfig = skillManager.shareConfig(configuredSkillId, loadConfig(template.create(registration), configuredSkill));
+        }
+
+        try {
+            skill = sharedConfig.applyTo(skill);
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            skillManager.unshareConfig(configuredSkillId, sharedConfig);
+            log.warning("unable to apply the shared config of " + configuredSkill.alias() + ", loading it for the player instead: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Skill loadConfig(Skill skill, ConfiguredSkill configuredSkill) throws ConfigurationException {
+
         skill = BukkitConfigMap.of(skill)
-                .with(skillConfig)
+                .with(configuredSkill.getReadOnlySkillConfig())
                 .applyTo(skill);
-        skill.load(skillConfig);
-        return this;
+        // skills may write defaults or derived values into the config they are loaded with
+        skill.load(configuredSkill.getSkillConfig());
+        return skill;
     }
 
     @Override
@@ -85,6 +141,15 @@ class DefaultSkillContext implements SkillContext {
         return ConfiguredSkill.find.byId(configuredSkillId);
     }
 
+    @Override
+    public ExecutionConfig executionConfig() {
+
+        if (executionConfig == null) {
+            return configuredSkill().executionConfig();
+        }
+        return executionConfig;
+    }
+
     public PlayerSkill playerSkill() {
 
         return PlayerSkill.find.byId(playerSkillId);
@@ -111,23 +176,35 @@ class DefaultSkillContext implements SkillContext {
         skill.apply();
 
         if (skill instanceof Periodic) {
+            Periodic periodic = (Periodic) skill;
+            Histogram tickTime = RCSkills.instance().getMetrics().histogram("rcskills_periodic_tick_seconds", "type", registration.type());
             task = Bukkit.getScheduler().runTaskTimer(
                     RCSkills.instance(),
-                    ((Periodic) skill)::tick,
+                    () -> {
+                        long start = System.nanoTime();
+                        periodic.tick();
+                        tickTime.recordSince(start);
+                    },
                     interval,
                     interval
             );
         } else if (skill instanceof PeriodicAsync) {
+            PeriodicAsync periodic = (PeriodicAsync) skill;
+            Histogram tickTime = RCSkills.instance().getMetrics().histogram("rcskills_periodic_async_tick_seconds", "type", registration.type());
             task = Bukkit.getScheduler().runTaskTimerAsynchronously(
                     RCSkills.instance(),
-                    ((PeriodicAsync) skill)::tickAsync,
+                    () -> {
+                        long start = System.nanoTime();
+                        periodic.tickAsync();
+                        tickTime.recordSince(start);
+                    },
                     interval,
                     interval
             );
         }
 
         if (skill instanceof Listener) {
-            Bukkit.getPluginManager().registerEvents((Listener) skill, RCSkills.instance());
+            RCSkills.instance().getSkillManager().eventRouter().register(playerId, (Listener) skill);
         }
 
         attached(true);
@@ -145,7 +222,7 @@ class DefaultSkillContext implements SkillContext {
 
         Skill skill = get();
         if (skill instanceof Listener) {
-            HandlerList.unregisterAll((Listener) skill);
+            RCSkills.instance().getSkillManager().eventRouter().unregister(playerId, (Listener) skill);
         }
         skill.remove();
 
@@ -155,37 +232,55 @@ class DefaultSkillContext implements SkillContext {
     @Override
     public void execute(Consumer<ExecutionResult> callback) {
 
-        ExecutionContext context = ExecutionContext.of(this, callback);
+        execute(callback, List.of());
+    }
 
-        if (!executable()) {
-            return;
-        }
+    @Override
+    public void execute(Consumer<ExecutionResult> callback, List<SkillContext> children) {
+
+        List<CastPipeline.Child> childCasts = children.stream()
+                .map(child -> new CastPipeline.Child(child, child instanceof DefaultSkillContext
+                        ? ((DefaultSkillContext) child).executeTime()
+                        : executeTime))
+                .collect(Collectors.toList());
+        RCSkills.instance().getSkillManager().castPipeline().cast(this, executeTime, childCasts, result -> {
+            executions.get(result.status()).increment();
+            callback.accept(result);
+        });
+    }
 
-        Optional<Player> player = player();
-        if (player.isEmpty()) {
-            callback.accept(context.failure("Der Besitzer des Skills ist nicht online."));
-            return;
-        }
+    @Override
+    public long getRemainingCooldown() {
 
-        if (isOnCooldown()) {
-            callback.accept(context.cooldown());
-            return;
+        PlayerSkill playerSkill = playerSkill();
+        if (lastUsed.isAfter(playerSkill.lastUsed())) {
+            // the last use might not be written to the database yet
+            playerSkill.lastUsed(lastUsed);
         }
+        return playerSkill.remainingCooldown();
+    }
 
-        if (context.config().delay() > 0) {
-            Bukkit.getScheduler().runTaskLater(RCSkills.instance(),
-                    context,
-                    context.config().delay()
-            );
-            callback.accept(context.delayed());
-        } else {
-            context.run();
-        }
+    @Override
+    public Instant lastUsed() {
+
+        Instant persisted = playerSkill().lastUsed();
+        return lastUsed.isAfter(persisted) ? lastUsed : persisted;
     }
 
+    /**
+     * Sets the time the skill was last used.
+     * <p>The time is kept in memory for the cooldown checks
+     * and written to the database in the background by the {@link PersistenceExecutor}.
+     *
+     * @param instant the time the skill was last used
+     */
     @Override
-    public long getRemainingCooldown() {
+    public void lastUsed(Instant instant) {
 
-        return playerSkill().remainingCooldown();
+        this.lastUsed = instant;
+        RCSkills.instance().getPersistenceExecutor().submit(playerId, () -> PlayerSkill.find.update()
+                .set("lastUsed", instant)
+                .where().idEq(playerSkillId)
+                .update());
     }
 }
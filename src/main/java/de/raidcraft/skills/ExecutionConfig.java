@@ -7,13 +7,20 @@ import lombok.extern.java.Log;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.MemoryConfiguration;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Value
-@Builder
-@AllArgsConstructor
 @Log(topic = "RCSkills")
 @Accessors(fluent = true)
 public class ExecutionConfig {
 
+    /**
+     * The range in blocks that is used if the skill does not configure one.
+     */
+    public static final int DEFAULT_RANGE = 30;
+
     @Getter(AccessLevel.NONE)
     ConfigurationSection config;
     /**
@@ -32,15 +39,76 @@ public class ExecutionConfig {
      * The delay in ticks before the skill is executed.
      */
     long delay;
+    /**
+     * The resolved values of all {@link ConfigKey}s indexed by their slot.
+     * <p>The values are stored boxed. They are converted and boxed once, so reading them afterwards never allocates.
+     * Keys with the same name share a slot, so every value remembers the key it was resolved for.
+     * <p>The cache is not part of the constructors and the builder, every config starts with an empty one.
+     */
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    AtomicReference<Resolved[]> values = new AtomicReference<>(new Resolved[0]);
+
+    @Builder
+    public ExecutionConfig(ConfigurationSection config, int range, long cooldown, long warmup, long delay) {
+        this.config = config;
+        this.range = range;
+        this.cooldown = cooldown;
+        this.warmup = warmup;
+        this.delay = delay;
+    }
 
     public ExecutionConfig(ConfigurationSection config) {
         this.config = config;
-        this.range = config.getInt("range", 30);
+        this.range = config.getInt("range", DEFAULT_RANGE);
         cooldown = TimeUtil.parseTimeAsMilliseconds(config.getString("cooldown", "0"));
         warmup = TimeUtil.parseTimeAsTicks(config.getString("warmup", "0"));
         delay = TimeUtil.parseTimeAsTicks(config.getString("delay", "0"));
     }
 
+    /**
+     * Resolves and converts the values of the given keys, so that they can be read without any lookups.
+     *
+     * @param keys the keys to resolve
+     * @return this execution config
+     */
+    public ExecutionConfig resolve(Collection<ConfigKey<?>> keys) {
+
+        for (ConfigKey<?> key : keys) {
+            get(key);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the converted value of the given config key.
+     * <p>The value is resolved the first time the key is read and is then cached for all further reads.
+     * It is resolved again if another key with the same name was read from this config in between.
+     *
+     * @param key the key of the value
+     * @param <TValue> the type of the value
+     * @return the value or the default value of the key if it is not set or has the wrong type
+     */
+    @SuppressWarnings("unchecked")
+    public <TValue> TValue get(ConfigKey<TValue> key) {
+
+        Resolved[] values = this.values.get();
+        int slot = key.slot();
+        if (slot < values.length && values[slot] != null && values[slot].key == key) {
+            return (TValue) values[slot].value;
+        }
+
+        TValue value = key.read(config);
+        Resolved resolved = new Resolved(key, value);
+        this.values.updateAndGet(current -> {
+            Resolved[] updated = slot < current.length ? current.clone() : Arrays.copyOf(current, slot + 1);
+            updated[slot] = resolved;
+            return updated;
+        });
+        return value;
+    }
+
     @SuppressWarnings("unchecked")
     public <TValue> TValue get(String key, TValue defaultValue) {
 
@@ -51,4 +119,15 @@ public class ExecutionConfig {
             return defaultValue;
         }
     }
+
+    private static final class Resolved {
+
+        private final ConfigKey<?> key;
+        private final Object value;
+
+        private Resolved(ConfigKey<?> key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
 }
@@ -78,6 +78,20 @@ public interface ExecutionContext extends Runnable {
         return config().get(key, defaultValue);
     }
 
+    /**
+     * Gets the resolved value of the given config key of this skill execution.
+     * <p>Prefer this over {@link #config(String, Object)} for values that are read on every execution.
+     * The value is converted once and then cached in the execution config of the skill.
+     *
+     * @param key the typed key of the configured value
+     * @param <TValue> the type of the value
+     * @return the config value or the default of the key if it is not set
+     */
+    default <TValue> TValue config(ConfigKey<TValue> key) {
+
+        return config().get(key);
+    }
+
     /**
      * @see ExecutionResult#success(ExecutionContext)
      */
@@ -138,11 +138,11 @@ public interface ExecutionResult {
     Throwable exception();
 
     /**
-     * @return true if the execution of the skill is delayed due to warmup or a delay
+     * @return true if the execution of the skill is delayed due to warmup, a delay or because it was queued
      */
     default boolean delayed() {
 
-        return status() == Status.DELAYED || status() == Status.WARMUP;
+        return status() == Status.DELAYED || status() == Status.WARMUP || status() == Status.QUEUED;
     }
 
     default boolean cooldown() {
@@ -165,12 +165,18 @@ public interface ExecutionResult {
         return TimeUtil.formatTime(TimeUtil.ticksToMillis(context().config().delay()));
     }
 
+    default String formattedWarmup() {
+
+        return TimeUtil.formatTime(TimeUtil.ticksToMillis(context().config().warmup()));
+    }
+
     enum Status {
         SUCCESS,
         FAILURE,
         EXCEPTION,
         DELAYED,
         WARMUP,
-        COOLDOWN
+        COOLDOWN,
+        QUEUED
     }
 }
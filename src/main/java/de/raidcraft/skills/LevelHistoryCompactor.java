@@ -0,0 +1,247 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.entities.LevelHistory;
+import de.raidcraft.skills.entities.LevelHistoryAggregate;
+import de.raidcraft.skills.metrics.Counter;
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import io.ebean.Database;
+import io.ebean.ExpressionList;
+import io.ebean.Transaction;
+import lombok.Value;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Rolls old {@link LevelHistory} entries up into hourly {@link LevelHistoryAggregate}s
+ * and old hourly aggregates into daily ones.
+ * <p>Every batch of rows is summed up and deleted inside a single transaction,
+ * so a failing or interrupted compaction never counts the exp twice or loses it.
+ * <p>Entries that were written before the reason had its own column only store it in their json data.
+ * The reason of these entries is copied into the column once, before they are compacted.
+ * A marker file remembers that the copy is done, so it does not run again after a reload or restart.
+ * <p>A stopped compactor finishes the batch it is working on and then stops, see {@link #stop()}.
+ */
+@Log(topic = "RCSkills")
+public final class LevelHistoryCompactor {
+
+    private final Database database;
+    private final SkillPluginConfig.HistoryConfig config;
+    private final Counter compacted;
+    private final File backfillMarker;
+    private volatile boolean stopped = false;
+
+    LevelHistoryCompactor(Database database, SkillPluginConfig.HistoryConfig config, MetricsRegistry metrics, File backfillMarker) {
+
+        this.database = database;
+        this.config = config;
+        this.compacted = metrics.counter("rcskills_level_history_compacted_total");
+        this.backfillMarker = backfillMarker;
+    }
+
+    /**
+     * Stops a running compaction after its current batch and skips all further compactions.
+     * <p>Every batch is committed on its own, so the history stays consistent.
+     */
+    public void stop() {
+
+        stopped = true;
+    }
+
+    /**
+     * Compacts all history entries and hourly aggregates that are older than configured.
+     *
+     * @param now the current time the age of the entries is calculated from
+     * @return the number of compacted rows
+     */
+    public int compact(Instant now) {
+
+        if (stopped) return 0;
+
+        int reasons = backfillReasons();
+        if (reasons > 0) {
+            log.info("copied the reason of " + reasons + " old level history entries out of their data.");
+        }
+
+        int rows = 0;
+        if (config.getHourlyAfterDays() > 0) {
+            rows += compactHistory(now.minus(Duration.ofDays(config.getHourlyAfterDays())));
+        }
+        if (config.getDailyAfterDays() > 0 && !stopped) {
+            rows += compactHourly(now.minus(Duration.ofDays(config.getDailyAfterDays())));
+        }
+        if (rows > 0) {
+            log.info("compacted " + rows + " level history entries.");
+        }
+        return rows;
+    }
+
+    /**
+     * Copies the reason out of the json data of all entries without a reason column.
+     * <p>Only runs once, because all entries that are written afterwards store the reason in both.
+     * The marker file is created after all entries were copied.
+     *
+     * @return the number of updated entries
+     */
+    int backfillReasons() {
+
+        if (backfillMarker.exists()) return 0;
+
+        int rows = 0;
+        UUID lastId = null;
+        List<LevelHistory> batch;
+        do {
+            ExpressionList<LevelHistory> query = database.find(LevelHistory.class).where().isNull("reason");
+            if (lastId != null) {
+                query.gt("id", lastId);
+            }
+            batch = query.orderBy("id")
+                    .setMaxRows(batchSize())
+                    .findList();
+            if (batch.isEmpty()) break;
+
+            List<LevelHistory> changed = new ArrayList<>();
+            for (LevelHistory history : batch) {
+                Object reason = history.data().get(LevelHistory.REASON);
+                if (reason != null) {
+                    changed.add(history.reason(reason.toString()));
+                }
+            }
+            if (!changed.isEmpty()) {
+                try (Transaction transaction = database.beginTransaction()) {
+                    database.saveAll(changed);
+                    transaction.commit();
+                }
+            }
+            rows += changed.size();
+            lastId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == batchSize() && !stopped);
+
+        if (!stopped) {
+            markBackfilled();
+        }
+        return rows;
+    }
+
+    private void markBackfilled() {
+
+        try {
+            backfillMarker.getParentFile().mkdirs();
+            backfillMarker.createNewFile();
+        } catch (IOException e) {
+            log.warning("unable to create the level history marker " + backfillMarker.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    private int compactHistory(Instant before) {
+
+        int rows = 0;
+        List<LevelHistory> batch;
+        do {
+            batch = LevelHistory.find.query().where()
+                    .lt("whenCreated", before)
+                    .orderBy("whenCreated")
+                    .setMaxRows(batchSize())
+                    .findList();
+            if (batch.isEmpty()) break;
+
+            List<Key> keys = batch.stream()
+                    .map(history -> new Key(history.playerId(), history.reason(), LevelHistoryAggregate.Period.HOUR.start(history.whenCreated())))
+                    .collect(Collectors.toList());
+            Map<Key, LevelHistoryAggregate> aggregates = load(LevelHistoryAggregate.Period.HOUR, keys);
+            for (int i = 0; i < batch.size(); i++) {
+                aggregate(aggregates, keys.get(i), LevelHistoryAggregate.Period.HOUR).add(batch.get(i));
+            }
+
+            List<UUID> ids = batch.stream().map(LevelHistory::id).collect(Collectors.toList());
+            try (Transaction transaction = database.beginTransaction()) {
+                database.saveAll(aggregates.values());
+                LevelHistory.find.query().where().idIn(ids).delete();
+                transaction.commit();
+            }
+            rows += batch.size();
+            compacted.add(batch.size());
+        } while (batch.size() == batchSize() && !stopped);
+
+        return rows;
+    }
+
+    private int compactHourly(Instant before) {
+
+        int rows = 0;
+        List<LevelHistoryAggregate> batch;
+        do {
+            batch = LevelHistoryAggregate.find.query().where()
+                    .eq("period", LevelHistoryAggregate.Period.HOUR)
+                    .lt("periodStart", LevelHistoryAggregate.Period.DAY.start(before))
+                    .orderBy("periodStart")
+                    .setMaxRows(batchSize())
+                    .findList();
+            if (batch.isEmpty()) break;
+
+            List<Key> keys = batch.stream()
+                    .map(hourly -> new Key(hourly.playerId(), hourly.reason(), LevelHistoryAggregate.Period.DAY.start(hourly.periodStart())))
+                    .collect(Collectors.toList());
+            Map<Key, LevelHistoryAggregate> aggregates = load(LevelHistoryAggregate.Period.DAY, keys);
+            for (int i = 0; i < batch.size(); i++) {
+                aggregate(aggregates, keys.get(i), LevelHistoryAggregate.Period.DAY).add(batch.get(i));
+            }
+
+            List<UUID> ids = batch.stream().map(LevelHistoryAggregate::id).collect(Collectors.toList());
+            try (Transaction transaction = database.beginTransaction()) {
+                database.saveAll(aggregates.values());
+                LevelHistoryAggregate.find.query().where().idIn(ids).delete();
+                transaction.commit();
+            }
+            rows += batch.size();
+            compacted.add(batch.size());
+        } while (batch.size() == batchSize() && !stopped);
+
+        return rows;
+    }
+
+    /**
+     * Loads the existing aggregates of all keys of a batch in one query.
+     */
+    private Map<Key, LevelHistoryAggregate> load(LevelHistoryAggregate.Period period, List<Key> keys) {
+
+        Set<UUID> players = keys.stream().map(Key::getPlayerId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<Instant> starts = keys.stream().map(Key::getPeriodStart).collect(Collectors.toSet());
+
+        Map<Key, LevelHistoryAggregate> aggregates = new LinkedHashMap<>();
+        for (LevelHistoryAggregate aggregate : LevelHistoryAggregate.findAll(period, players, starts)) {
+            aggregates.putIfAbsent(new Key(aggregate.playerId(), aggregate.reason(), aggregate.periodStart()), aggregate);
+        }
+        return aggregates;
+    }
+
+    private LevelHistoryAggregate aggregate(Map<Key, LevelHistoryAggregate> aggregates, Key key, LevelHistoryAggregate.Period period) {
+
+        return aggregates.computeIfAbsent(key,
+                k -> LevelHistoryAggregate.create(k.getPlayerId(), k.getReason(), period, k.getPeriodStart()));
+    }
+
+    private int batchSize() {
+
+        return Math.max(1, config.getBatchSize());
+    }
+
+    @Value
+    private static class Key {
+
+        UUID playerId;
+        String reason;
+        Instant periodStart;
+    }
+}
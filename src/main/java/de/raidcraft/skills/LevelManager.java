@@ -3,6 +3,7 @@ package de.raidcraft.skills;
 import com.google.common.base.Strings;
 import de.raidcraft.skills.entities.*;
 import de.raidcraft.skills.events.*;
+import de.raidcraft.skills.metrics.Histogram;
 import de.raidcraft.skills.util.Effects;
 import io.ebean.annotation.Transactional;
 import lombok.AccessLevel;
@@ -46,6 +47,7 @@ public final class LevelManager implements Listener {
     private final Map<UUID, Map<Integer, Integer>> cache = new HashMap<>();
     private Map<Integer, Integer> levelToExpMap = new HashMap<>();
     private final Map<UUID, Map.Entry<BossBar, BukkitTask>> activeExpBars = new HashMap<>();
+    private final Histogram expGainTime;
 
     @Getter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
@@ -56,6 +58,7 @@ public final class LevelManager implements Listener {
 
     public LevelManager(RCSkills plugin) {
         this.plugin = plugin;
+        this.expGainTime = plugin.getMetrics().histogram("rcskills_exp_gain_seconds");
     }
 
     public SkillPluginConfig.LevelConfig getConfig() {
@@ -92,18 +95,42 @@ public final class LevelManager implements Listener {
     @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)
     public void onExpGain(SetPlayerExpEvent event) {
 
+        long start = System.nanoTime();
+        try {
+            updateExp(event);
+        } finally {
+            expGainTime.recordSince(start);
+        }
+    }
+
+    private void updateExp(SetPlayerExpEvent event) {
+
         long expDiff = event.getNewExp() - event.getOldExp();
         if (expDiff == 0) return;
 
         int level = getLevelForExp(event.getNewExp());
         event.setLevel(level);
 
-        LevelHistory.create(event.getPlayerLevel())
-                .oldExp(event.getOldExp())
-                .newExp(event.getNewExp())
-                .newLevel(event.getLevel())
-                .reason(event.getReason())
-                .save();
+        UUID playerId = event.getPlayer().id();
+        UUID levelId = event.getPlayerLevel().id();
+        int oldLevel = event.getPlayerLevel().getLevel();
+        long oldExp = event.getOldExp();
+        long newExp = event.getNewExp();
+        String reason = event.getReason();
+        // the entry is created inside the write, so that a retried write never saves the bean of a failed attempt
+        plugin.getPersistenceExecutor().submit(playerId, () -> LevelHistory.create(levelId)
+                .playerId(playerId)
+                .oldLevel(oldLevel)
+                .newLevel(level)
+                .oldExp(oldExp)
+                .newExp(newExp)
+                .exp(expDiff)
+                .reason(reason)
+                .save());
+        plugin.getPersistenceExecutor().afterCommit(() -> showExpGain(event, level, expDiff));
+    }
+
+    private void showExpGain(SetPlayerExpEvent event, int level, long expDiff) {
 
         event.getPlayer().bukkitPlayer().ifPresent(player -> {
             Audience audience = BukkitAudiences.create(plugin)
@@ -212,7 +239,8 @@ public final class LevelManager implements Listener {
                     levelUp.getCommands().stream()
                             .map(s -> s.replace("{player}", skilledPlayer.name()))
                             .map(s -> s.replace("{player_id}", skilledPlayer.id().toString()))
-                            .forEach(s -> Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), s));
+                            .forEach(s -> plugin.getPersistenceExecutor().afterCommit(
+                                    () -> Bukkit.getServer().dispatchCommand(Bukkit.getConsoleSender(), s)));
                 }
             }
         }
@@ -271,7 +299,7 @@ public final class LevelManager implements Listener {
         int finalSkillpoints = skillpoints;
         int finalFreeResets = freeResets;
 
-        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+        plugin.getPersistenceExecutor().afterCommit(() -> Bukkit.getScheduler().runTaskLater(plugin, () -> {
             skilledPlayer.bukkitPlayer().ifPresent(player -> {
                 if (event.getNewLevel() > event.getOldLevel()) {
                     Messages.send(player, Messages.levelUpSelf(skilledPlayer, event.getNewLevel()));
@@ -301,7 +329,7 @@ public final class LevelManager implements Listener {
                             .forEach(p -> Messages.send(p, Messages.levelDown(skilledPlayer)));
                 }
             });
-        }, 10L);
+        }, 10L));
     }
 
     private Map<Integer, Integer> calculateTotalExpMap(int maxLevel) {
@@ -987,6 +987,16 @@ public final class Messages {
                         .append(text(executionResult.formattedDelay(), WARNING))
                         .append(text(" ausgeführt.", TEXT)))
                         .build();
+            case WARMUP:
+                return builder.append(text(" wird in ", TEXT)
+                        .append(text(executionResult.formattedWarmup(), WARNING))
+                        .append(text(" gewirkt. Bewege dich nicht!", TEXT)))
+                        .build();
+            case QUEUED:
+                return builder.append(text(" wurde ", TEXT)
+                        .append(text("vorgemerkt", WARNING))
+                        .append(text(" und wird als nächstes ausgeführt.", TEXT)))
+                        .build();
             case EXCEPTION:
             case FAILURE:
                 return builder.append(text(" konnte nicht ausgeführt werden.", ERROR_ACCENT).append(newline())
@@ -0,0 +1,374 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.metrics.Counter;
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import io.ebean.Database;
+import io.ebean.Transaction;
+import lombok.NonNull;
+import lombok.extern.java.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes changes of players to the database in the background.
+ * <p>Every write belongs to a player and the writes of one player are applied in the order they were submitted.
+ * The players are spread over a fixed number of worker threads. Each worker applies its queued writes
+ * in batches inside a single transaction. If a batch fails the writes are applied one by one to only drop the failing write,
+ * so every write must be safe to run again.
+ * <p>The queue of every worker is bounded. If it is full the submitting thread waits until the worker caught up.
+ * This slows down the server while the database is too slow, but never drops writes or exhausts the memory.
+ * <p>The writes run on another thread while the main thread keeps changing the loaded entities.
+ * Only submit writes that do not touch entities which are used on the main thread, e.g. new history entries
+ * or update queries that carry their own values.
+ * <p>Code that changes many players in its own transaction opens a {@link Scope}. Writes of the scope are applied
+ * directly inside that transaction and the effects after the commit are collected instead of run.
+ */
+@Log(topic = "RCSkills")
+public final class PersistenceExecutor {
+
+    private static final Write STOP = new Write(null, () -> {});
+
+    private final Database database;
+    private final SkillPluginConfig.PersistenceConfig config;
+    private final Worker[] workers;
+    private final Map<UUID, Integer> pending = new ConcurrentHashMap<>();
+    private final ThreadLocal<Scope> scope = new ThreadLocal<>();
+    private final Counter writes;
+    private final Counter failures;
+    private final Counter blocked;
+    private volatile boolean closed = false;
+
+    PersistenceExecutor(Database database, SkillPluginConfig.PersistenceConfig config, MetricsRegistry metrics) {
+
+        this.database = database;
+        this.config = config;
+        this.writes = metrics.counter("rcskills_persistence_writes_total", "result", "success");
+        this.failures = metrics.counter("rcskills_persistence_writes_total", "result", "failure");
+        this.blocked = metrics.counter("rcskills_persistence_blocked_total");
+
+        int threads = config.isAsync() ? Math.max(1, config.getThreads()) : 0;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i, Math.max(1, config.getQueueSize() / threads));
+            workers[i].start();
+        }
+
+        metrics.gauge("rcskills_persistence_queue_size", this::queueSize);
+    }
+
+    /**
+     * Queues the given write of the player.
+     * <p>The write is applied on the calling thread if the executor is closed or disabled in the config.
+     * The calling thread waits if the queue of the player is full.
+     * <p>Inside a {@link Scope} the write is applied on the calling thread inside its transaction.
+     * <p>A write can run more than once: if its batch fails, all writes of the batch are applied again one by one.
+     * Every write must therefore be idempotent. Create the beans it saves inside the write instead of capturing them,
+     * because a bean keeps the id and version of the rolled back attempt and would be updated instead of inserted.
+     *
+     * @param playerId the id of the player the write belongs to
+     * @param write the write that is applied inside a transaction of the worker
+     */
+    public void submit(@NonNull UUID playerId, @NonNull Runnable write) {
+
+        if (closed || workers.length == 0 || scope.get() != null) {
+            write.run();
+            return;
+        }
+
+        Write task = new Write(playerId, write);
+        pending.merge(playerId, 1, Integer::sum);
+        BlockingQueue<Write> queue = worker(playerId).queue;
+        if (queue.offer(task)) return;
+
+        blocked.increment();
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            done(task);
+            write.run();
+        }
+    }
+
+    /**
+     * Runs the given effect after the changes of the calling thread are committed.
+     * <p>Outside of a {@link Scope} the effect runs immediately. Use it for everything that can not be rolled back,
+     * e.g. messages to the player.
+     *
+     * @param effect the effect that should only run once the changes are stored
+     */
+    public void afterCommit(@NonNull Runnable effect) {
+
+        Scope current = scope.get();
+        if (current != null) {
+            current.effects.add(effect);
+        } else {
+            effect.run();
+        }
+    }
+
+    /**
+     * Opens a scope on the calling thread that keeps the writes and effects together with the current transaction.
+     * <p>Until the scope is closed all writes are applied inside the transaction of the calling thread and
+     * all effects are collected. Run {@link Scope#effects()} after the transaction was committed.
+     * Effects of a rolled back scope must be dropped.
+     * <p>Scopes can be nested to roll back only a part of the changes.
+     *
+     * @return the new scope that must be closed on the same thread
+     */
+    public Scope scope() {
+
+        Scope current = new Scope(scope.get());
+        scope.set(current);
+        return current;
+    }
+
+    /**
+     * @param playerId the id of the player
+     * @return true if writes of the player are waiting to be applied
+     */
+    public boolean hasPending(@NonNull UUID playerId) {
+
+        return pending.containsKey(playerId);
+    }
+
+    /**
+     * @return the number of writes that are waiting to be applied
+     */
+    public int queueSize() {
+
+        return Arrays.stream(workers).mapToInt(worker -> worker.queue.size()).sum();
+    }
+
+    /**
+     * Gets a future that completes after all writes of the player that were submitted before are applied.
+     *
+     * @param playerId the id of the player
+     * @return a future that completes when the writes of the player are applied
+     */
+    public CompletableFuture<Void> flush(@NonNull UUID playerId) {
+
+        if (!hasPending(playerId) || closed || workers.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return barrier(worker(playerId));
+    }
+
+    /**
+     * Gets a future that completes after all writes that were submitted before are applied.
+     *
+     * @return a future that completes when all writes are applied
+     */
+    public CompletableFuture<Void> flush() {
+
+        if (closed) return CompletableFuture.completedFuture(null);
+
+        return CompletableFuture.allOf(Arrays.stream(workers)
+                .map(this::barrier)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Waits until all writes of the player are applied, but not longer than the configured flush timeout.
+     * <p>Call it before the data of the player is read from the database, e.g. when the player joins.
+     *
+     * @param playerId the id of the player
+     * @return true if all writes were applied in time
+     */
+    public boolean await(@NonNull UUID playerId) {
+
+        if (!hasPending(playerId)) return true;
+
+        try {
+            flush(playerId).get(config.getFlushTimeout(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            log.warning("timed out waiting for the pending database writes of " + playerId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Applies all queued writes and stops the workers.
+     * <p>Writes that are submitted afterwards are applied on the calling thread.
+     */
+    public void close() {
+
+        if (closed) return;
+        closed = true;
+
+        long deadline = System.currentTimeMillis() + config.getFlushTimeout();
+        for (Worker worker : workers) {
+            try {
+                worker.queue.put(STOP);
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                log.severe("the database writer " + worker.getName() + " did not finish in time and still has "
+                        + worker.queue.size() + " pending writes.");
+                worker.interrupt();
+                continue;
+            }
+            // writes that were submitted while the worker stopped
+            List<Write> remaining = new ArrayList<>();
+            worker.queue.drainTo(remaining);
+            remaining.remove(STOP);
+            if (!remaining.isEmpty()) {
+                apply(remaining);
+            }
+        }
+    }
+
+    private CompletableFuture<Void> barrier(Worker worker) {
+
+        Write barrier = new Write(null, () -> {});
+        try {
+            worker.queue.put(barrier);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            barrier.future.completeExceptionally(e);
+        }
+        return barrier.future;
+    }
+
+    private Worker worker(UUID playerId) {
+
+        return workers[Math.floorMod(playerId.hashCode(), workers.length)];
+    }
+
+    private void apply(List<Write> batch) {
+
+        try (Transaction transaction = database.beginTransaction()) {
+            transaction.setBatchMode(true);
+            transaction.setBatchSize(Math.max(1, config.getBatchSize()));
+            for (Write write : batch) {
+                write.write.run();
+            }
+            transaction.commit();
+            batch.forEach(this::applied);
+        } catch (Exception e) {
+            log.warning("failed to write a batch of " + batch.size() + " changes, writing them one by one: " + e.getMessage());
+            batch.forEach(this::applySingle);
+        } finally {
+            batch.forEach(this::done);
+        }
+    }
+
+    private void applySingle(Write write) {
+
+        try (Transaction transaction = database.beginTransaction()) {
+            write.write.run();
+            transaction.commit();
+            applied(write);
+        } catch (Exception e) {
+            failures.increment();
+            log.severe("failed to write changes of player " + write.playerId + " to the database: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void applied(Write write) {
+
+        if (write.playerId != null) {
+            writes.increment();
+        }
+    }
+
+    private void done(Write write) {
+
+        if (write.playerId != null) {
+            pending.computeIfPresent(write.playerId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+        write.future.complete(null);
+    }
+
+    /**
+     * Applies the writes inside the transaction of the calling thread and collects the effects after the commit.
+     *
+     * @see #scope()
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final List<Runnable> effects = new ArrayList<>();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * @return the effects that were collected in the order they were added
+         */
+        public List<Runnable> effects() {
+
+            return effects;
+        }
+
+        @Override
+        public void close() {
+
+            if (parent != null) {
+                scope.set(parent);
+            } else {
+                scope.remove();
+            }
+        }
+    }
+
+    private static final class Write {
+
+        private final UUID playerId;
+        private final Runnable write;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Write(UUID playerId, Runnable write) {
+            this.playerId = playerId;
+            this.write = write;
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final BlockingQueue<Write> queue;
+
+        private Worker(int index, int capacity) {
+
+            super("RCSkills-Persistence-" + index);
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+
+            int batchSize = Math.max(1, config.getBatchSize());
+            List<Write> batch = new ArrayList<>(batchSize);
+            boolean stop = false;
+            while (!stop) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                stop = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    apply(batch);
+                }
+                batch.clear();
+            }
+        }
+    }
+}
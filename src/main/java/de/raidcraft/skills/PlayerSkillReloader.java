@@ -0,0 +1,141 @@
+package de.raidcraft.skills;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads the skills of many players spread over multiple ticks.
+ * <p>The queued players are reloaded one after another until the time budget of the current tick is used up.
+ * The remaining players are reloaded in the next ticks. At least one player is reloaded every tick.
+ * <p>Every player keeps the old skill contexts until all new contexts of the player are ready.
+ */
+@Log(topic = "RCSkills")
+public final class PlayerSkillReloader {
+
+    private static final int PROGRESS_STEPS = 4;
+
+    private final RCSkills plugin;
+    private final SkillManager skillManager;
+    private final Deque<UUID> queue = new ArrayDeque<>();
+
+    private BukkitTask task;
+    private Consumer<Progress> listener;
+    private long budgetNanos;
+    private long start;
+    private int total;
+    private int done;
+    private int reportedStep;
+
+    PlayerSkillReloader(RCSkills plugin, SkillManager skillManager) {
+        this.plugin = plugin;
+        this.skillManager = skillManager;
+    }
+
+    /**
+     * Queues the given players for a reload and starts the reload in the next tick.
+     * <p>A running reload is aborted and its remaining players are queued again.
+     *
+     * @param players the players to reload
+     * @param budgetMillis the time in milliseconds that may be spent each tick
+     * @param listener is informed about the progress of the reload
+     */
+    void start(Collection<UUID> players, long budgetMillis, Consumer<Progress> listener) {
+
+        cancel();
+        Set<UUID> queued = new LinkedHashSet<>(queue);
+        queued.addAll(players);
+        queue.clear();
+        queue.addAll(queued);
+        this.listener = listener;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, budgetMillis));
+        this.start = System.nanoTime();
+        this.total = queue.size();
+        this.done = 0;
+        this.reportedStep = 0;
+
+        if (queue.isEmpty()) {
+            report();
+            return;
+        }
+
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+    }
+
+    /**
+     * Stops reloading the queued players.
+     */
+    void cancel() {
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    boolean running() {
+
+        return task != null;
+    }
+
+    private void tick() {
+
+        long tickStart = System.nanoTime();
+        do {
+            UUID playerId = queue.poll();
+            if (playerId == null) break;
+
+            try {
+                skillManager.reloadPlayer(playerId);
+            } catch (Exception e) {
+                log.severe("failed to reload the skills of player " + playerId + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+            done++;
+        } while (System.nanoTime() - tickStart < budgetNanos);
+
+        if (queue.isEmpty()) {
+            cancel();
+        }
+        report();
+    }
+
+    private void report() {
+
+        Progress progress = new Progress(done, total, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        int step = total == 0 ? PROGRESS_STEPS : done * PROGRESS_STEPS / total;
+        if (step > reportedStep) {
+            reportedStep = step;
+            log.info("reloaded the skills of " + done + "/" + total + " players in " + progress.millis() + "ms");
+        }
+
+        if (listener != null) {
+            listener.accept(progress);
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Progress {
+
+        int done;
+        int total;
+        long millis;
+
+        public boolean finished() {
+
+            return done >= total;
+        }
+    }
+}
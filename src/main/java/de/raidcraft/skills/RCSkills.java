@@ -10,11 +10,14 @@ import com.sk89q.worldguard.protection.flags.registry.FlagConflictException;
 import com.sk89q.worldguard.protection.flags.registry.FlagRegistry;
 import com.sk89q.worldguard.session.SessionManager;
 import de.raidcraft.skills.art.*;
+import de.raidcraft.skills.bulk.BulkOperationEngine;
 import de.raidcraft.skills.commands.AdminCommands;
 import de.raidcraft.skills.commands.PlayerCommands;
 import de.raidcraft.skills.entities.*;
+import de.raidcraft.skills.journal.ProgressionJournal;
 import de.raidcraft.skills.listener.BindingListener;
 import de.raidcraft.skills.listener.PlayerListener;
+import de.raidcraft.skills.metrics.MetricsRegistry;
 import de.raidcraft.skills.plan.PlanHook;
 import de.raidcraft.skills.worldguard.SkillSessionHandler;
 import de.slikey.effectlib.EffectManager;
@@ -22,6 +25,14 @@ import io.artframework.Scope;
 import io.artframework.annotations.ArtModule;
 import io.artframework.annotations.OnLoad;
 import io.ebean.Database;
+import io.ebean.annotation.PersistBatch;
+import io.ebean.cache.ServerCache;
+import io.ebean.cache.ServerCacheStatistics;
+import io.ebean.config.DatabaseConfig;
+import io.ebean.datasource.DataSourceConfig;
+import io.ebean.datasource.DataSourcePool;
+import io.ebean.datasource.PoolStatus;
+import io.ebean.meta.MetaQueryMetric;
 import kr.entree.spigradle.annotations.PluginMain;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -40,13 +51,18 @@ import org.bukkit.permissions.PermissionDefault;
 import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitTask;
 import org.codehaus.commons.compiler.CompileException;
 
 import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @PluginMain
@@ -59,6 +75,7 @@ public class RCSkills extends JavaPlugin {
     public static final String BYPASS_REQUIREMENT_CHECKS = PERMISSION_PREFIX + "requirements.bypass";
     private static final String WORLD_GUARD_FLAG_ALLOW = "allow-rcskills";
     private static final String WORLD_GUARD_FLAG_DISABLED_SKILLS = "disabled-rcskills";
+    static final String LEVEL_HISTORY_BACKFILLED = ".level-history-backfilled";
 
     public static StateFlag ALLOW_SKILLS_FLAG;
 
@@ -76,6 +93,16 @@ public class RCSkills extends JavaPlugin {
     private TargetManager targetManager;
     private Database database;
     @Getter
+    private PersistenceExecutor persistenceExecutor;
+    @Getter
+    private ProgressionJournal journal;
+    private BukkitTask journalTask;
+    @Getter
+    private LevelHistoryCompactor historyCompactor;
+    @Getter
+    private BulkOperationEngine bulkOperations;
+    private BukkitTask historyTask;
+    @Getter
     @Setter(AccessLevel.PACKAGE)
     private SkillPluginConfig pluginConfig;
     private Messages messages;
@@ -86,6 +113,10 @@ public class RCSkills extends JavaPlugin {
     @Getter
     private EffectManager effectManager;
     private PlanHook planHook;
+    private SkillFileWatcher skillFileWatcher;
+    @Getter
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private BukkitTask metricsTask;
 
     @Getter
     private static boolean testing = false;
@@ -128,7 +159,12 @@ public class RCSkills extends JavaPlugin {
     public void onEnable() {
 
         loadConfig();
+        setupJournal();
         setupDatabase();
+        setupJournalReplay();
+        setupPersistenceExecutor();
+        setupHistoryCompactor();
+        setupBulkOperations();
         setupSkillManager();
         setupLevelManager();
         setupSlotManager();
@@ -136,6 +172,7 @@ public class RCSkills extends JavaPlugin {
         setupEffectManager();
         setupPlaceholder();
         setupListener();
+        setupMetrics();
         if (!isTesting()) {
             setupPlayerAnalytics();
             setupCommands();
@@ -147,7 +184,20 @@ public class RCSkills extends JavaPlugin {
     @Override
     public void onDisable() {
 
+        stopSkillFileWatcher();
+        stopMetricsWriter();
+        stopHistoryCompactor();
+        if (bulkOperations != null) {
+            bulkOperations.close();
+        }
         getSkillManager().unload();
+        if (getTargetManager() != null) {
+            getTargetManager().unload();
+        }
+        if (persistenceExecutor != null) {
+            persistenceExecutor.close();
+        }
+        closeJournal();
     }
 
     private void registerPermissions() {
@@ -158,15 +208,31 @@ public class RCSkills extends JavaPlugin {
 
     public void reload() {
 
+        reload(progress -> {});
+    }
+
+    /**
+     * Reloads the config and all skills of the plugin.
+     * <p>The skill files are parsed in the background, see {@link SkillManager#reload(Consumer)}.
+     *
+     * @param listener is informed about the progress of reloading the skills of all online players
+     * @return a future that completes on the main thread once the skills are loaded
+     */
+    public CompletableFuture<Void> reload(Consumer<PlayerSkillReloader.Progress> listener) {
+
+        loadConfig();
+        CompletableFuture<Void> skills = getSkillManager().reload(listener);
         try {
-            loadConfig();
-            getSkillManager().reload();
+            setupSkillFileWatcher();
+            setupMetricsWriter();
+            setupHistoryCompactor();
             getLevelManager().load();
             getSlotManager().load(getPluginConfig().getSlotConfig());
         } catch (CompileException e) {
             getLogger().severe("failed to parse level expression");
             e.printStackTrace();
         }
+        return skills;
     }
 
     private void loadConfig() {
@@ -215,7 +281,104 @@ public class RCSkills extends JavaPlugin {
 
         // delay the loading of skills by one tick to wait for all plugins to load
         // this is needed to properly auto detect all skill factories inside the other plugins
-        Bukkit.getScheduler().runTaskLater(this, () -> skillManager.load(), 1L);
+        Bukkit.getScheduler().runTaskLater(this, () -> {
+            skillManager.load();
+            setupSkillFileWatcher();
+        }, 1L);
+    }
+
+    private void setupSkillFileWatcher() {
+
+        stopSkillFileWatcher();
+        if (isTesting() || !getPluginConfig().isWatchSkillFiles()) return;
+
+        try {
+            skillFileWatcher = new SkillFileWatcher(this, skillManager,
+                    new File(getDataFolder(), getPluginConfig().getSkillsPath()).toPath(),
+                    getPluginConfig().getWatchDebounceTicks());
+            skillFileWatcher.start();
+        } catch (IOException e) {
+            getLogger().severe("unable to watch the skill configs for changes: " + e.getMessage());
+            e.printStackTrace();
+            skillFileWatcher = null;
+        }
+    }
+
+    private void stopSkillFileWatcher() {
+
+        if (skillFileWatcher != null) {
+            skillFileWatcher.stop();
+            skillFileWatcher = null;
+        }
+    }
+
+    private void setupMetrics() {
+
+        metrics.addCollector(this::collectQueryMetrics);
+        metrics.addCollector(this::collectCacheMetrics);
+        metrics.gauge("rcskills_loaded_players", () -> getSkillManager().cachedPlayerSkills().size());
+        metrics.gauge("rcskills_cast_rejections", () -> getSkillManager().castRateLimiter().totalRejections());
+        metrics.gauge("rcskills_db_pool_connections", () -> poolStatus().map(PoolStatus::getBusy).orElse(0), "state", "busy");
+        metrics.gauge("rcskills_db_pool_connections", () -> poolStatus().map(PoolStatus::getFree).orElse(0), "state", "free");
+        metrics.gauge("rcskills_db_pool_connections", () -> poolStatus().map(PoolStatus::getMaxSize).orElse(0), "state", "max");
+        metrics.gauge("rcskills_db_pool_waiting", () -> poolStatus().map(PoolStatus::getWaiting).orElse(0));
+        metrics.gauge("rcskills_db_pool_high_water_mark", () -> poolStatus().map(PoolStatus::getHighWaterMark).orElse(0));
+        metrics.gauge("rcskills_journal_pending", () -> journal != null ? journal.pending() : 0);
+        setupMetricsWriter();
+    }
+
+    private void setupMetricsWriter() {
+
+        stopMetricsWriter();
+
+        SkillPluginConfig.MetricsConfig config = getPluginConfig().getMetrics();
+        if (Strings.isNullOrEmpty(config.getPrometheusFile())) return;
+
+        File file = new File(getDataFolder(), config.getPrometheusFile());
+        long interval = Math.max(20L, config.getWriteInterval());
+        metricsTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                metrics.writePrometheus(file.toPath());
+            } catch (IOException e) {
+                getLogger().warning("failed to write metrics to " + file.getAbsolutePath() + ": " + e.getMessage());
+            }
+        }, interval, interval);
+    }
+
+    private void stopMetricsWriter() {
+
+        if (metricsTask != null) {
+            metricsTask.cancel();
+            metricsTask = null;
+        }
+    }
+
+    private void collectQueryMetrics() {
+
+        if (database == null) return;
+
+        // collecting the query metrics resets them inside ebean
+        for (MetaQueryMetric queryMetric : database.getMetaInfoManager().collectQueryMetrics()) {
+            metrics.counter("rcskills_db_queries_total", "query", queryMetric.getName()).add(queryMetric.getCount());
+            metrics.counter("rcskills_db_query_time_micros_total", "query", queryMetric.getName()).add(queryMetric.getTotal());
+        }
+    }
+
+    private void collectCacheMetrics() {
+
+        if (database == null) return;
+
+        collectCacheMetrics("configured_skill_beans", database.cacheManager().getBeanCache(ConfiguredSkill.class));
+        collectCacheMetrics("configured_skill_queries", database.cacheManager().getQueryCache(ConfiguredSkill.class));
+    }
+
+    private void collectCacheMetrics(String name, ServerCache cache) {
+
+        // reading the statistics with reset keeps the counters of the registry monotonic
+        ServerCacheStatistics statistics = cache.getStatistics(true);
+        MetricsRegistry.CacheStats stats = metrics.cache(name);
+        stats.hits().add(statistics.getHitCount());
+        stats.misses().add(statistics.getMissCount());
     }
 
     private void setupEffectManager() {
@@ -289,6 +452,7 @@ public class RCSkills extends JavaPlugin {
         registerUnlockedCondition(commandManager);
         registerActiveCondition(commandManager);
         registerExecutableCondition(commandManager);
+        registerCastRateCondition(commandManager);
 
         registerSkillsCompletion(commandManager);
         registerUnlockedSkillsCompletion(commandManager);
@@ -519,6 +683,19 @@ public class RCSkills extends JavaPlugin {
         });
     }
 
+    /**
+     * Limits the cast attempts of the player before the arguments of the command are resolved.
+     * <p>This keeps players that spam the command from loading their skills from the database.
+     */
+    private void registerCastRateCondition(PaperCommandManager commandManager) {
+
+        commandManager.getCommandConditions().addCondition("cast-rate", context -> {
+            if (!getSkillManager().castRateLimiter().tryAcquire(context.getIssuer().getUniqueId())) {
+                throw new ConditionFailedException("Du benutzt Skills zu schnell.");
+            }
+        });
+    }
+
     private void registerExecutableCondition(PaperCommandManager commandManager) {
 
         commandManager.getCommandConditions().addCondition(PlayerSkill.class, "executable", (context, execContext, value) -> {
@@ -537,10 +714,127 @@ public class RCSkills extends JavaPlugin {
                         SkilledPlayer.class,
                         Level.class,
                         LevelHistory.class,
+                        LevelHistoryAggregate.class,
                         DataStore.class,
                         SkillSlot.class,
-                        ItemBinding.class
+                        ItemBinding.class,
+                        BulkCheckpoint.class
                 )
+                .databaseConfigProvider(this::configureDatabase)
                 .build()).connect();
+
+        poolStatus().ifPresent(status -> getLogger().info("database connection pool: min=" + status.getMinSize() + ", max=" + status.getMaxSize()));
+    }
+
+    private void setupJournal() {
+
+        SkillPluginConfig.JournalConfig config = getPluginConfig().getJournal();
+        if (!config.isEnabled()) return;
+
+        try {
+            File file = new File(getDataFolder(), config.getFile());
+            this.journal = ProgressionJournal.open(file.toPath(), config.getSizeMb() * 1024L * 1024L, config.isSync());
+        } catch (IOException e) {
+            getLogger().severe("failed to open the progression journal " + config.getFile() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void setupJournalReplay() {
+
+        if (journal == null) return;
+
+        journal.replay(database);
+        long interval = Math.max(20L, getPluginConfig().getJournal().getReplayInterval());
+        journalTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> journal.replay(database), interval, interval);
+    }
+
+    private void closeJournal() {
+
+        if (journalTask != null) {
+            journalTask.cancel();
+            journalTask = null;
+        }
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            getLogger().warning("failed to close the progression journal: " + e.getMessage());
+        }
+    }
+
+    private void setupPersistenceExecutor() {
+
+        this.persistenceExecutor = new PersistenceExecutor(database, getPluginConfig().getPersistence(), metrics);
+    }
+
+    private void setupHistoryCompactor() {
+
+        stopHistoryCompactor();
+
+        this.historyCompactor = new LevelHistoryCompactor(database, getPluginConfig().getHistory(), metrics,
+                new File(getDataFolder(), LEVEL_HISTORY_BACKFILLED));
+        long interval = Math.max(1200L, getPluginConfig().getHistory().getCompactInterval());
+        historyTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                historyCompactor.compact(Instant.now());
+            } catch (Exception e) {
+                getLogger().warning("failed to compact the level history: " + e.getMessage());
+            }
+        }, interval, interval);
+    }
+
+    private void setupBulkOperations() {
+
+        this.bulkOperations = new BulkOperationEngine(this, database, persistenceExecutor, getPluginConfig().getBulk(), metrics);
+    }
+
+    private void stopHistoryCompactor() {
+
+        if (historyTask != null) {
+            historyTask.cancel();
+            historyTask = null;
+        }
+        // cancelling the task does not interrupt a compaction that is already running
+        if (historyCompactor != null) {
+            historyCompactor.stop();
+        }
+    }
+
+    private void configureDatabase(DatabaseConfig databaseConfig) {
+
+        SkillPluginConfig.DatabaseConfig config = getPluginConfig().getDatabase();
+
+        DataSourceConfig dataSource = databaseConfig.getDataSourceConfig();
+        dataSource.setMinConnections(config.getMinConnections());
+        dataSource.setMaxConnections(config.getMaxConnections());
+        dataSource.setLeakTimeMinutes(config.getLeakTimeMinutes());
+        dataSource.setMaxInactiveTimeSecs(config.getMaxInactiveTimeSecs());
+        dataSource.setPstmtCacheSize(config.getPstmtCacheSize());
+
+        try {
+            databaseConfig.setPersistBatch(PersistBatch.valueOf(config.getBatchMode().toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            getLogger().warning("invalid database batch_mode " + config.getBatchMode() + ": use NONE, INSERT or ALL");
+        }
+        databaseConfig.setPersistBatchSize(config.getBatchSize());
+
+        if (journal != null) {
+            databaseConfig.add(journal.persistController());
+        }
+    }
+
+    /**
+     * Gets the current status of the database connection pool.
+     *
+     * @return the status of the pool or an empty optional if the database does not use a connection pool
+     */
+    public Optional<PoolStatus> poolStatus() {
+
+        if (database == null || !(database.getDataSource() instanceof DataSourcePool)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(((DataSourcePool) database.getDataSource()).getStatus(false));
     }
 }
@@ -0,0 +1,163 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.PlayerSkill;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Holds a skill instance that was configured once and copies its configured state to new instances.
+ * <p>It is used for skills with {@link SkillInfo#sharedConfig()} set to true. The config of these skills
+ * is only mapped and loaded once per {@link de.raidcraft.skills.entities.ConfiguredSkill} and then copied
+ * field by field to the skill instance of every player.
+ * <p>All non final and non static fields of the skill class and its super classes are copied,
+ * except the fields of {@link AbstractSkill}. The values are copied by reference and shared between all instances.
+ * <p>The template is created with a {@link TemplateContext} that is not bound to any player.
+ */
+final class SharedSkillConfig {
+
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            return findFields(type);
+        }
+    };
+
+    private final Skill template;
+    private final List<Field> fields;
+
+    SharedSkillConfig(Skill template) {
+        this.template = template;
+        this.fields = FIELDS.get(template.getClass());
+    }
+
+    /**
+     * Copies the configured state of the template to the given skill.
+     *
+     * @param skill the skill to apply the config to. must be of the same class as the template.
+     * @return the given skill
+     * @throws IllegalArgumentException if the skill is not of the same class as the template,
+     *                                  e.g. because the skill type was registered again after the template was loaded
+     */
+    <TSkill extends Skill> TSkill applyTo(TSkill skill) {
+
+        if (skill.getClass() != template.getClass()) {
+            throw new IllegalArgumentException("cannot apply the config of " + template.getClass().getCanonicalName()
+                    + " to " + skill.getClass().getCanonicalName());
+        }
+
+        try {
+            for (Field field : fields) {
+                field.set(skill, field.get(template));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("unable to copy the config of " + template.getClass().getCanonicalName(), e);
+        }
+        return skill;
+    }
+
+    private static List<Field> findFields(Class<?> skillClass) {
+
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = skillClass; type != null && type != Object.class && type != AbstractSkill.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) continue;
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return List.copyOf(fields);
+    }
+
+    /**
+     * The context of the template skill that is not bound to any player.
+     * <p>The template is only used to load the config, so all methods that need a player throw an {@link UnsupportedOperationException}.
+     */
+    static final class TemplateContext implements SkillContext {
+
+        private final UUID configuredSkillId;
+        private final ExecutionConfig executionConfig;
+        private Skill skill;
+
+        TemplateContext(UUID configuredSkillId, ExecutionConfig executionConfig) {
+            this.configuredSkillId = configuredSkillId;
+            this.executionConfig = executionConfig;
+        }
+
+        /**
+         * Creates the template skill of the given registration with this context.
+         *
+         * @param registration the registration of the skill type
+         * @return the new template skill
+         */
+        Skill create(Skill.Registration<?> registration) {
+
+            skill = registration.supplier().apply(this);
+            return skill;
+        }
+
+        @Override
+        public PlayerSkill playerSkill() {
+
+            throw new UnsupportedOperationException("the template of a shared skill config is not bound to a player");
+        }
+
+        @Override
+        public Skill get() {
+
+            return skill;
+        }
+
+        @Override
+        public UUID configuredSkillId() {
+
+            return configuredSkillId;
+        }
+
+        @Override
+        public ConfiguredSkill configuredSkill() {
+
+            return ConfiguredSkill.find.byId(configuredSkillId);
+        }
+
+        @Override
+        public ExecutionConfig executionConfig() {
+
+            return executionConfig;
+        }
+
+        @Override
+        public void reload() {
+
+            throw new UnsupportedOperationException("the template of a shared skill config can not be reloaded");
+        }
+
+        @Override
+        public void enable() {
+
+            throw new UnsupportedOperationException("the template of a shared skill config can not be enabled");
+        }
+
+        @Override
+        public void disable() {
+        }
+
+        @Override
+        public void execute(Consumer<ExecutionResult> callback) {
+
+            throw new UnsupportedOperationException("the template of a shared skill config can not be executed");
+        }
+
+        @Override
+        public long getRemainingCooldown() {
+
+            return -1;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package de.raidcraft.skills;
 
 import de.raidcraft.skills.entities.DataStore;
-import de.raidcraft.skills.entities.PlayerSkill;
 import lombok.Value;
 import lombok.experimental.Accessors;
 import org.bukkit.OfflinePlayer;
@@ -81,11 +80,11 @@ public interface Skill {
      * <p>{@link Instant#EPOCH} will be returned if the skill was never used.
      *
      * @return the time the skill was last used
-     * @see PlayerSkill#lastUsed()
+     * @see SkillContext#lastUsed()
      */
     default Instant lastUsed() {
 
-        return context().playerSkill().lastUsed();
+        return context().lastUsed();
     }
 
     /**
@@ -93,11 +92,11 @@ public interface Skill {
      *
      * @param instant the instant the skill was last used
      * @return this skill instance
-     * @see PlayerSkill#lastUsed(Instant)
+     * @see SkillContext#lastUsed(Instant)
      */
     default Skill lastUsed(Instant instant) {
 
-        context().playerSkill().lastUsed(instant).save();
+        context().lastUsed(instant);
         return this;
     }
 
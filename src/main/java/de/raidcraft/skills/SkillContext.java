@@ -8,7 +8,10 @@ import de.raidcraft.skills.util.TimeUtil;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 public interface SkillContext {
@@ -64,6 +67,21 @@ public interface SkillContext {
      */
     void execute(Consumer<ExecutionResult> callback);
 
+    /**
+     * Executes this skill and the given child skills as one cast.
+     * <p>The children are executed right after this skill finished its warmup and delay.
+     * They are not queued, rate limited or delayed by the global cooldown on their own,
+     * but are still skipped while they are on cooldown.
+     *
+     * @param callback the callback that is called with the results of this skill and its children
+     * @param children the active child skills that are executed together with this skill
+     */
+    default void execute(Consumer<ExecutionResult> callback, List<SkillContext> children) {
+
+        execute(callback);
+        children.forEach(child -> child.execute(callback));
+    }
+
     /**
      * Checks if the skill is on cooldown.
      * <p>Will return false if the skill has no configured cooldown.
@@ -84,6 +102,37 @@ public interface SkillContext {
      */
     long getRemainingCooldown();
 
+    /**
+     * Gets the time the skill was last used.
+     * <p>{@link Instant#EPOCH} will be returned if the skill was never used.
+     *
+     * @return the time the skill was last used
+     */
+    default Instant lastUsed() {
+
+        return playerSkill().lastUsed();
+    }
+
+    /**
+     * Sets the time the skill was last used which starts the cooldown of the skill.
+     *
+     * @param instant the time the skill was last used
+     */
+    default void lastUsed(Instant instant) {
+
+        playerSkill().lastUsed(instant).save();
+    }
+
+    /**
+     * Gets the unique id of the player that owns this skill without querying the database.
+     *
+     * @return the id of the player of this skill
+     */
+    default UUID playerId() {
+
+        return skilledPlayer().id();
+    }
+
     /**
      * Gets the player that owns this skill.
      *
@@ -94,6 +143,16 @@ public interface SkillContext {
         return playerSkill().player();
     }
 
+    /**
+     * Gets the unique id of the base configuration of this skill without querying the database.
+     *
+     * @return the id of the configured skill
+     */
+    default UUID configuredSkillId() {
+
+        return configuredSkill().id();
+    }
+
     /**
      * Gets the base configuration of this skill.
      *
@@ -104,6 +163,16 @@ public interface SkillContext {
         return playerSkill().configuredSkill();
     }
 
+    /**
+     * Gets the execution config of this skill with all {@link ConfigKey}s of the skill already resolved.
+     *
+     * @return the execution config of the skill
+     */
+    default ExecutionConfig executionConfig() {
+
+        return configuredSkill().executionConfig();
+    }
+
     /**
      * Gets the associated offline player of this skill.
      *
@@ -0,0 +1,246 @@
+package de.raidcraft.skills;
+
+import lombok.extern.java.Log;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+
+/**
+ * Dispatches the events of all {@link Listener} skills through a single handler per skill class and event.
+ * <p>Instead of registering every skill instance with Bukkit, the instances are attached to the router
+ * with the id of the player that owns them. The router then only calls the instances of the players
+ * that are part of the event, e.g. the player of a {@link org.bukkit.event.player.PlayerEvent}
+ * or the damager and the damaged entity of an {@link org.bukkit.event.entity.EntityDamageByEntityEvent}.
+ * <p>Events that do not reference any player, e.g. world or server events or the death of a mob
+ * in an {@link org.bukkit.event.entity.EntityDeathEvent}, are passed to all attached instances of the skill class.
+ */
+@Log(topic = "RCSkills")
+public final class SkillEventRouter {
+
+    private static final ClassValue<List<MethodHandle>> ENTITY_GETTERS = new ClassValue<>() {
+        @Override
+        protected List<MethodHandle> computeValue(Class<?> type) {
+            return findEntityGetters(type);
+        }
+    };
+
+    private final Plugin plugin;
+    private final Map<Class<?>, Route> routes = new ConcurrentHashMap<>();
+
+    SkillEventRouter(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Attaches the given skill instance of the player to the router.
+     * <p>The event handlers of the skill class are registered the first time an instance of the class is attached.
+     *
+     * @param playerId the id of the player that owns the skill
+     * @param listener the skill instance
+     */
+    void register(UUID playerId, Listener listener) {
+
+        routes.computeIfAbsent(listener.getClass(), this::createRoute)
+                .instances.computeIfAbsent(playerId, id -> new CopyOnWriteArrayList<>())
+                .addIfAbsent(listener);
+    }
+
+    /**
+     * Detaches the given skill instance of the player from the router.
+     * <p>The event handlers of the skill class stay registered to avoid changing the handler lists of Bukkit.
+     *
+     * @param playerId the id of the player that owns the skill
+     * @param listener the skill instance
+     */
+    void unregister(UUID playerId, Listener listener) {
+
+        Route route = routes.get(listener.getClass());
+        if (route == null) return;
+
+        route.instances.computeIfPresent(playerId, (id, listeners) -> {
+            listeners.remove(listener);
+            return listeners.isEmpty() ? null : listeners;
+        });
+    }
+
+    /**
+     * Detaches all skill instances and unregisters the event handlers of all skill classes.
+     */
+    void unregisterAll() {
+
+        for (Route route : routes.values()) {
+            HandlerList.unregisterAll(route);
+            route.instances.clear();
+        }
+        routes.clear();
+    }
+
+    private Route createRoute(Class<?> skillClass) {
+
+        Route route = new Route(skillClass);
+        for (Method method : findEventHandlers(skillClass)) {
+            EventHandler handler = method.getAnnotation(EventHandler.class);
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            HandlerList handlerList = getHandlerList(eventClass);
+            if (handlerList == null) {
+                log.severe("unable to register event handler " + skillClass.getCanonicalName() + "#" + method.getName()
+                        + ": " + eventClass.getCanonicalName() + " has no static getHandlerList() method");
+                continue;
+            }
+
+            MethodHandle methodHandle;
+            try {
+                method.setAccessible(true);
+                methodHandle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException e) {
+                log.severe("unable to access event handler " + skillClass.getCanonicalName() + "#" + method.getName() + ": " + e.getMessage());
+                continue;
+            }
+
+            EventExecutor executor = (listener, event) -> {
+                if (eventClass.isInstance(event)) {
+                    route.dispatch(methodHandle, event);
+                }
+            };
+            handlerList.register(new RegisteredListener(route, executor, handler.priority(), plugin, handler.ignoreCancelled()));
+        }
+        return route;
+    }
+
+    private static Collection<Method> findEventHandlers(Class<?> skillClass) {
+
+        Set<Method> methods = new LinkedHashSet<>();
+        methods.addAll(List.of(skillClass.getMethods()));
+        methods.addAll(List.of(skillClass.getDeclaredMethods()));
+
+        List<Method> handlers = new ArrayList<>();
+        for (Method method : methods) {
+            if (method.getAnnotation(EventHandler.class) == null || method.isBridge() || method.isSynthetic()) continue;
+            if (method.getParameterCount() != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                log.severe("skill " + skillClass.getCanonicalName() + " has an invalid event handler: " + method.toGenericString());
+                continue;
+            }
+            handlers.add(method);
+        }
+        return handlers;
+    }
+
+    private static HandlerList getHandlerList(Class<?> eventClass) {
+
+        for (Class<?> type = eventClass; type != null && Event.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod("getHandlerList");
+                method.setAccessible(true);
+                return (HandlerList) method.invoke(null);
+            } catch (NoSuchMethodException e) {
+                // try the super class
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static List<MethodHandle> findEntityGetters(Class<?> eventClass) {
+
+        List<MethodHandle> getters = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method method : eventClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) continue;
+            if (!Entity.class.isAssignableFrom(method.getReturnType())) continue;
+            try {
+                getters.add(lookup.unreflect(method));
+            } catch (IllegalAccessException e) {
+                // only public getters of the event are used
+            }
+        }
+        return List.copyOf(getters);
+    }
+
+    private static Set<UUID> getPlayers(Event event, List<MethodHandle> getters) {
+
+        Set<UUID> players = new HashSet<>();
+        for (MethodHandle getter : getters) {
+            Object entity;
+            try {
+                entity = getter.invoke(event);
+            } catch (Throwable e) {
+                continue;
+            }
+            if (entity instanceof Projectile && ((Projectile) entity).getShooter() instanceof Player) {
+                entity = ((Projectile) entity).getShooter();
+            }
+            if (entity instanceof Player) {
+                players.add(((Player) entity).getUniqueId());
+            }
+        }
+        return players;
+    }
+
+    private static final class Route implements Listener {
+
+        private final Class<?> skillClass;
+        // player_id -> skill instances of the player
+        private final Map<UUID, CopyOnWriteArrayList<Listener>> instances = new ConcurrentHashMap<>();
+
+        private Route(Class<?> skillClass) {
+            this.skillClass = skillClass;
+        }
+
+        private void dispatch(MethodHandle handler, Event event) {
+
+            if (instances.isEmpty()) return;
+
+            List<MethodHandle> getters = ENTITY_GETTERS.get(event.getClass());
+            Set<UUID> players = getters.isEmpty() ? Set.of() : getPlayers(event, getters);
+            // events without a player have no owner and are passed to every skill like before the routing
+            if (players.isEmpty()) {
+                for (List<Listener> listeners : instances.values()) {
+                    call(handler, listeners, event);
+                }
+                return;
+            }
+
+            for (UUID playerId : players) {
+                List<Listener> listeners = instances.get(playerId);
+                if (listeners != null) {
+                    call(handler, listeners, event);
+                }
+            }
+        }
+
+        private void call(MethodHandle handler, List<Listener> listeners, Event event) {
+
+            for (Listener listener : listeners) {
+                try {
+                    handler.invoke(listener, event);
+                } catch (Throwable e) {
+                    log.log(Level.SEVERE, "could not pass " + event.getEventName() + " to skill " + skillClass.getCanonicalName(), e);
+                }
+            }
+        }
+    }
+}
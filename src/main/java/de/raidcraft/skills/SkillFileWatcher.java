@@ -0,0 +1,159 @@
+package de.raidcraft.skills;
+
+import lombok.extern.java.Log;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Watches the skill configs for changes and reloads only the changed skills.
+ * <p>File system events are collected on a separate thread. Once no new change happened for the configured
+ * debounce time the changed files are parsed in the background and then loaded on the main thread,
+ * see {@link SkillManager#reloadAsync(java.util.Collection)}.
+ * <p>Only the skill contexts of players that own one of the changed skills are reloaded.
+ */
+@Log(topic = "RCSkills")
+final class SkillFileWatcher {
+
+    private final RCSkills plugin;
+    private final SkillManager skillManager;
+    private final Path path;
+    private final long debounceTicks;
+
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+    private final Set<File> changedFiles = ConcurrentHashMap.newKeySet();
+    private volatile long lastChange;
+
+    private WatchService watchService;
+    private Thread thread;
+    private BukkitTask task;
+
+    SkillFileWatcher(RCSkills plugin, SkillManager skillManager, Path path, long debounceTicks) {
+        this.plugin = plugin;
+        this.skillManager = skillManager;
+        this.path = path;
+        this.debounceTicks = Math.max(1, debounceTicks);
+    }
+
+    void start() throws IOException {
+
+        if (watchService != null) return;
+
+        Files.createDirectories(path);
+        watchService = FileSystems.getDefault().newWatchService();
+        registerAll(path);
+
+        thread = new Thread(this::watch, "RCSkills-SkillFileWatcher");
+        thread.setDaemon(true);
+        thread.start();
+
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::reloadChangedFiles, debounceTicks, debounceTicks);
+        log.info("watching " + path + " for skill config changes");
+    }
+
+    void stop() {
+
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warning("unable to close skill file watcher: " + e.getMessage());
+            }
+            watchService = null;
+        }
+        thread = null;
+        directories.clear();
+        changedFiles.clear();
+    }
+
+    private void registerAll(Path root) throws IOException {
+
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+                WatchKey key = directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                directories.put(key, directory);
+            }
+        }
+    }
+
+    private void watch() {
+
+        WatchService watchService = this.watchService;
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) continue;
+
+                    Path changed = directory.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                        addDirectory(changed);
+                    } else if (changed.getFileName().toString().endsWith(".yml")) {
+                        changedFiles.add(changed.toFile());
+                    }
+                    lastChange = System.nanoTime();
+                }
+                if (!key.reset()) {
+                    directories.remove(key);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was stopped
+        }
+    }
+
+    /**
+     * Watches the new directory and marks all files inside it as changed.
+     * <p>The directory may already be gone or not be readable. The error is logged and the watcher keeps running.
+     */
+    private void addDirectory(Path directory) {
+
+        try {
+            registerAll(directory);
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.filter(Files::isRegularFile).map(Path::toFile).forEach(changedFiles::add);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warning("unable to watch the new skill directory " + directory + ": " + e.getMessage());
+        }
+    }
+
+    private void reloadChangedFiles() {
+
+        if (changedFiles.isEmpty()) return;
+        // wait until the files were not changed for the debounce time
+        if (System.nanoTime() - lastChange < TimeUnit.MILLISECONDS.toNanos(debounceTicks * 50)) return;
+
+        List<File> files = new ArrayList<>(changedFiles);
+        changedFiles.removeAll(files);
+
+        skillManager.reloadAsync(files);
+    }
+}
@@ -0,0 +1,130 @@
+package de.raidcraft.skills;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * The skill index that is generated at compile time by the {@code rcskills-processor} annotation processor.
+ * <p>The index lists all skill factories, skills and requirements of a jar file
+ * together with their type identifier and plugin dependencies.
+ * Jars that contain an index are registered by reading the index instead of scanning the jar.
+ */
+@Log(topic = "RCSkills")
+@Value
+@Accessors(fluent = true)
+public class SkillIndex {
+
+    public static final String PATH = "META-INF/rcskills/index";
+
+    /**
+     * Reads the skill index of the given jar file.
+     *
+     * @param jar the jar file to read the index from
+     * @return the index of the jar or an empty optional if the jar contains no index
+     */
+    public static Optional<SkillIndex> read(@NonNull File jar) {
+
+        if (!jar.isFile()) return Optional.empty();
+
+        try (JarFile jarFile = new JarFile(jar)) {
+            JarEntry entry = jarFile.getJarEntry(PATH);
+            if (entry == null) return Optional.empty();
+
+            try (Reader reader = new InputStreamReader(jarFile.getInputStream(entry), StandardCharsets.UTF_8)) {
+                return Optional.of(read(reader));
+            }
+        } catch (IOException e) {
+            log.warning("unable to read the skill index of " + jar.getAbsolutePath() + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses the skill index from the given reader.
+     * <p>Invalid lines are skipped with a warning.
+     *
+     * @param reader the reader of the index
+     * @return the parsed index
+     * @throws IOException if reading the index failed
+     */
+    public static SkillIndex read(@NonNull Reader reader) throws IOException {
+
+        List<Entry> factories = new ArrayList<>();
+        List<Entry> skills = new ArrayList<>();
+        List<Entry> requirements = new ArrayList<>();
+
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            String[] columns = line.split("\t", -1);
+            switch (columns[0]) {
+                case "factory":
+                    if (columns.length < 5) break;
+                    factories.add(new Entry(columns[1], columns[2], columns[3], depends(columns[4])));
+                    continue;
+                case "skill":
+                    if (columns.length < 4) break;
+                    skills.add(new Entry(columns[1], columns[1], columns[2], depends(columns[3])));
+                    continue;
+                case "requirement":
+                    if (columns.length < 3) break;
+                    requirements.add(new Entry(columns[1], null, columns[2], List.of()));
+                    continue;
+                default:
+                    break;
+            }
+            log.warning("skipping invalid skill index entry: " + line);
+        }
+
+        return new SkillIndex(
+                Collections.unmodifiableList(factories),
+                Collections.unmodifiableList(skills),
+                Collections.unmodifiableList(requirements)
+        );
+    }
+
+    private static List<String> depends(String column) {
+
+        if (column.isBlank()) return List.of();
+        return List.copyOf(Arrays.asList(column.split(",")));
+    }
+
+    List<Entry> factories;
+    List<Entry> skills;
+    List<Entry> requirements;
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Entry {
+
+        /**
+         * The binary name of the indexed class.
+         */
+        String className;
+        /**
+         * The binary name of the skill class that is created by a factory.
+         * <p>Is the same as the class name for skills and null for requirements.
+         */
+        String skillClass;
+        String type;
+        List<String> depends;
+    }
+}
@@ -40,4 +40,17 @@ public @interface SkillInfo {
      * @return the default task interval
      */
     long taskInterval() default 20L;
+
+    /**
+     * Set this to true if the configured state of the skill only depends on the config
+     * and is the same for every player.
+     * <p>The config of shared skills is mapped and {@link Skill#load(org.bukkit.configuration.ConfigurationSection)}
+     * is called only once per configured skill. The resulting field values are then copied
+     * by reference into the skill instance of every player.
+     * <p>Do not use this if your skill stores player specific state in its fields while loading
+     * or if it modifies the loaded config values afterwards.
+     *
+     * @return true if the config of the skill is shared between all players
+     */
+    boolean sharedConfig() default false;
 }
@@ -4,15 +4,20 @@ import com.google.common.base.Strings;
 import de.raidcraft.skills.entities.ConfiguredSkill;
 import de.raidcraft.skills.entities.PlayerSkill;
 import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.Histogram;
+import de.raidcraft.skills.metrics.MetricsRegistry;
 import de.raidcraft.skills.requirements.*;
 import de.raidcraft.skills.skills.CommandSkill;
 import de.raidcraft.skills.skills.EmptySkill;
 import de.raidcraft.skills.skills.PermissionSkill;
 import de.raidcraft.skills.util.ConfigUtil;
-import de.raidcraft.skills.util.JarUtil;
+import de.raidcraft.skills.util.HashUtil;
+import de.raidcraft.skills.util.JarScanner;
 import io.ebean.annotation.Transactional;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Value;
 import lombok.experimental.Accessors;
 import lombok.extern.java.Log;
 import net.silthus.configmapper.ConfigurationException;
@@ -30,14 +35,25 @@ import org.bukkit.plugin.PluginManager;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log(topic = "RCSkills")
 @Getter
@@ -45,6 +61,7 @@ import java.util.stream.Collectors;
 public final class SkillManager {
 
     public static final String SUB_SKILL_SECTION = "skills";
+    static final String FACTORY_CACHE = ".cache/skill-factories.yml";
 
     private final Map<String, Requirement.Registration<?>> requirements = new HashMap<>();
     private final Map<String, Skill.Registration<?>> skillTypes = new HashMap<>();
@@ -52,12 +69,43 @@ public final class SkillManager {
     // player_id -> player_skill_id -> context
     private final Map<UUID, Map<UUID, SkillContext>> cachedPlayerSkills = new HashMap<>();
 
+    @Getter(AccessLevel.NONE)
+    private final Map<File, ModuleJar> moduleJars = new HashMap<>();
+    // skill file -> hash and skill of the last successful load
+    @Getter(AccessLevel.NONE)
+    private final Map<File, LoadedSkillFile> loadedSkillFiles = new HashMap<>();
+
+    // configured_skill_id -> shared config of skills with SkillInfo#sharedConfig()
+    @Getter(AccessLevel.NONE)
+    private final Map<UUID, SharedSkillConfig> sharedSkillConfigs = new ConcurrentHashMap<>();
+
+    @Getter(AccessLevel.NONE)
+    private final PlayerSkillReloader playerSkillReloader;
+    private final SkillEventRouter eventRouter;
+    private final CastRateLimiter castRateLimiter;
+    private final CastPipeline castPipeline;
+    @Getter(AccessLevel.NONE)
+    private final Histogram playerLoadTime;
+    @Getter(AccessLevel.NONE)
+    private final MetricsRegistry.CacheStats contextCacheStats;
+
     private final RCSkills plugin;
     private final SkillPluginConfig config;
+    @Getter(AccessLevel.NONE)
+    private JarScanner factoryScanner;
+    // parses the skill files of asynchronous reloads one after the other
+    @Getter(AccessLevel.NONE)
+    private ExecutorService loader;
 
     public SkillManager(RCSkills plugin, SkillPluginConfig config) {
         this.plugin = plugin;
         this.config = config;
+        this.playerSkillReloader = new PlayerSkillReloader(plugin, this);
+        this.eventRouter = new SkillEventRouter(plugin);
+        this.castRateLimiter = new CastRateLimiter(config.getCastRateLimit());
+        this.castPipeline = new CastPipeline(plugin, config, castRateLimiter);
+        this.playerLoadTime = plugin.getMetrics().histogram("rcskills_player_load_seconds");
+        this.contextCacheStats = plugin.getMetrics().cache("skill_contexts");
     }
 
     /**
@@ -78,21 +126,78 @@ public final class SkillManager {
 
     public void reload() {
 
+        reload(progress -> {});
+    }
+
+    /**
+     * Reloads all skill types and configs and then the skills of all online players.
+     * <p>The skill types are registered on the calling thread. The skill files are then read and parsed
+     * on a background thread and the parsed files are loaded in a single task on the main thread.
+     * All skills keep their old config until that task runs.
+     * <p>If the staggered player reload is enabled the players are reloaded over the next ticks.
+     * Each player keeps the old skills until the new ones are ready.
+     *
+     * @param listener is informed about the progress of reloading the players
+     * @return a future that completes on the main thread once the skills are loaded
+     */
+    public CompletableFuture<Void> reload(@NonNull Consumer<PlayerSkillReloader.Progress> listener) {
+
         skillTypes.clear();
         requirements.clear();
+        sharedSkillConfigs.clear();
         registerDefaults();
 
-        load();
+        // drop skills that were cached before they were changed outside of this server
+        ConfiguredSkill.clearCache();
+        loadSkillsFromPlugins();
+        loadSkillsFromModules();
+
+        Path path = skillsPath();
+        return loadAsync(() -> readSkillFiles(path), skillFiles -> {
+            loadSkillFiles(path, skillFiles);
+            reloadPlayers(listener);
+            return null;
+        });
+    }
 
-        reloadPlayerSkills();
+    private void reloadPlayers(Consumer<PlayerSkillReloader.Progress> listener) {
+
+        if (config.isStaggeredPlayerReload()) {
+            playerSkillReloader.start(
+                    Bukkit.getOnlinePlayers().stream().map(Player::getUniqueId).collect(Collectors.toList()),
+                    config.getPlayerReloadTickBudget(),
+                    listener
+            );
+        } else {
+            long start = System.nanoTime();
+            reloadPlayerSkills();
+            int players = Bukkit.getOnlinePlayers().size();
+            listener.accept(new PlayerSkillReloader.Progress(players, players, (System.nanoTime() - start) / 1_000_000));
+        }
     }
 
-    @Transactional
+    /**
+     * Loads all skill types and configs on the calling thread.
+     * <p>Use {@link #reload(Consumer)} to reload the skills without blocking the main thread.
+     */
     public void load() {
 
+        // drop skills that were cached before they were changed outside of this server
+        ConfiguredSkill.clearCache();
         loadSkillsFromPlugins();
         loadSkillsFromModules();
-        List<ConfiguredSkill> loadedSkills = loadSkills(new File(plugin.getDataFolder(), config.getSkillsPath()).toPath());
+
+        Path path = skillsPath();
+        loadSkillFiles(path, readSkillFiles(path));
+    }
+
+    /**
+     * Loads the parsed skill files and enables or disables the skills that were added or removed on disk.
+     */
+    @Transactional(batchSize = 100)
+    void loadSkillFiles(Path path, List<SkillFile> skillFiles) {
+
+        List<ConfiguredSkill> loadedSkills = loadSkills(path, skillFiles);
 
         ConfiguredSkill.find.query()
                 .where().eq("enabled", true)
@@ -128,9 +233,105 @@ public final class SkillManager {
 
     public void unload() {
 
+        if (loader != null) {
+            loader.shutdownNow();
+            loader = null;
+        }
+        playerSkillReloader.cancel();
+        castPipeline.cancelAll();
+        castRateLimiter.clear();
         clearCache();
+        eventRouter.unregisterAll();
+        sharedSkillConfigs.clear();
         skillTypes.clear();
         requirements.clear();
+        loadedSkillFiles.clear();
+
+        moduleJars.values().forEach(this::close);
+        moduleJars.clear();
+    }
+
+    private void close(ModuleJar module) {
+
+        try {
+            module.classLoader().close();
+        } catch (IOException e) {
+            log.warning("unable to close class loader of module: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reloads only the skills of the given skill config files on the calling thread.
+     * <p>Files whose content did not change since they were last loaded are skipped.
+     * The skills of deleted files are disabled.
+     * <p>Only the skill contexts of players that own one of the changed skills are reloaded.
+     *
+     * @param files the changed skill config files
+     * @return the skills that were loaded again
+     * @see #reloadAsync(Collection)
+     */
+    public List<ConfiguredSkill> reload(@NonNull Collection<File> files) {
+
+        Path base = skillsPath();
+        return reload(files, readSkillFiles(base, files));
+    }
+
+    /**
+     * Reloads only the skills of the given skill config files like {@link #reload(Collection)}.
+     * <p>The files are read and parsed on a background thread and the parsed files are loaded
+     * in a single task on the main thread.
+     *
+     * @param files the changed skill config files
+     * @return a future that completes on the main thread with the skills that were loaded again
+     */
+    public CompletableFuture<List<ConfiguredSkill>> reloadAsync(@NonNull Collection<File> files) {
+
+        Path base = skillsPath();
+        List<File> changedFiles = List.copyOf(files);
+        return loadAsync(() -> readSkillFiles(base, changedFiles), skillFiles -> reload(changedFiles, skillFiles));
+    }
+
+    @Transactional(batchSize = 100)
+    List<ConfiguredSkill> reload(Collection<File> files, Map<File, SkillFile> skillFiles) {
+
+        Set<UUID> changedSkills = new HashSet<>();
+        List<ConfiguredSkill> loadedSkills = new ArrayList<>();
+
+        for (File file : files) {
+            LoadedSkillFile previous = loadedSkillFiles.get(file);
+            if (!file.exists()) {
+                if (previous == null) continue;
+
+                loadedSkillFiles.remove(file);
+                ConfiguredSkill.find.query().where().idIn(previous.skillIds()).findList()
+                        .forEach(skill -> {
+                            skill.enabled(false).save();
+                            log.info("disabled \"" + skill.alias() + "\" because its config file was deleted.");
+                        });
+                changedSkills.addAll(previous.skillIds());
+                continue;
+            }
+
+            SkillFile skillFile = skillFiles.get(file);
+            if (skillFile == null) continue;
+            if (previous != null && previous.hash().equals(skillFile.hash())) continue;
+
+            loadSkill(skillFile).ifPresent(skill -> {
+                loadedSkills.add(skill);
+                changedSkills.addAll(getSkillIds(skillFile.config()));
+            });
+        }
+
+        if (changedSkills.isEmpty()) return loadedSkills;
+
+        getSkillPermissions(loadedSkills).forEach(permission -> {
+            Bukkit.getPluginManager().removePermission(permission);
+            Bukkit.getPluginManager().addPermission(permission);
+        });
+
+        int contexts = reloadPlayerSkills(changedSkills);
+        log.info("reloaded " + loadedSkills.size() + " changed skills and " + contexts + " skill contexts of their players");
+        return loadedSkills;
     }
 
     List<Permission> getSkillPermissions(List<ConfiguredSkill> skills) {
@@ -148,17 +349,22 @@ public final class SkillManager {
 
         if (RCSkills.isTesting() || !plugin.getPluginConfig().isLoadClassesFromPlugins()) return;
 
+        Map<File, ClassLoader> jars = new LinkedHashMap<>();
         for (Plugin plugin : Bukkit.getPluginManager().getPlugins()) {
 
             if (plugin.equals(plugin())) continue;
 
             try {
-                loadClassesFromJar(new File(plugin.getClass().getProtectionDomain().getCodeSource().getLocation().toURI()));
+                jars.put(new File(plugin.getClass().getProtectionDomain().getCodeSource().getLocation().toURI()), plugin.getClass().getClassLoader());
             } catch (URISyntaxException e) {
                 log.severe("unable to find valid jar file location of plugin " + plugin.getName() + ": " + e.getMessage());
                 e.printStackTrace();
             }
         }
+
+        // the factories of plugins are loaded with the class loader of the plugin
+        // to avoid defining the same classes a second time
+        loadFactoriesFromJars(jars.keySet(), jars::get);
     }
 
     void loadSkillsFromModules() {
@@ -167,64 +373,217 @@ public final class SkillManager {
         modules.mkdirs();
         Path path = modules.toPath();
         try {
-            Files.walk(path, Integer.MAX_VALUE)
+            List<File> jars = Files.walk(path, Integer.MAX_VALUE)
                     .filter(Files::isRegularFile)
                     .map(Path::toFile)
                     .filter(file -> file.getName().endsWith(".jar"))
-                    .forEach(this::loadClassesFromJar);
+                    .collect(Collectors.toList());
+            loadFactoriesFromJars(jars, this::getModuleClassLoader);
         } catch (IOException e) {
             log.severe("unable to load modules from " + path + ": " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void loadClassesFromJar(File jarFile) {
-        JarUtil.findClasses(plugin.getClass().getClassLoader(), jarFile, SkillFactory.class::isAssignableFrom).stream()
-                .map(aClass -> {
-                    try {
-                        return aClass.getDeclaredConstructor();
-                    } catch (NoSuchMethodException e) {
-                        log.warning("unable to find a public no arguments constructor for skill factory " + aClass.getCanonicalName() + ": " + e.getMessage());
-                        log.warning("make sure you register your factory or skill manually with the SkillManager#registerSkill(...) method!");
-                        return null;
-                    }
-                }).filter(Objects::nonNull)
-                .map(constructor -> {
-                    try {
-                        return (SkillFactory<?>) constructor.newInstance();
-                    } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-                        log.severe("unable to create a new instance of the skill factory "
-                                + constructor.getClass().getCanonicalName() + " --> " + constructor.getName() + ": " + e.getMessage());
-                        e.printStackTrace();
-                        return null;
-                    }
-                }).filter(Objects::nonNull)
-                .forEach(this::registerSkill);
+    private JarScanner factoryScanner() {
+
+        if (factoryScanner == null) {
+            factoryScanner = new JarScanner(
+                    new File(plugin.getDataFolder(), FACTORY_CACHE),
+                    SkillFactory.class,
+                    plugin.getClass().getClassLoader()
+            );
+        }
+        return factoryScanner;
+    }
+
+    private ClassLoader getModuleClassLoader(File jarFile) {
+
+        ModuleJar module = moduleJars.get(jarFile);
+        if (module != null && module.modified() == jarFile.lastModified()) {
+            return module.classLoader();
+        }
+
+        try {
+            // the class loader must stay open as long as the classes of the module are used
+            URLClassLoader classLoader = new URLClassLoader(new URL[]{jarFile.toURI().toURL()}, plugin.getClass().getClassLoader());
+            moduleJars.put(jarFile, new ModuleJar(jarFile.lastModified(), classLoader));
+            // the skills of the changed jar are registered again with the new class loader
+            if (module != null) {
+                sharedSkillConfigs.clear();
+                close(module);
+            }
+            return classLoader;
+        } catch (MalformedURLException e) {
+            log.severe("unable to create class loader for module " + jarFile.getAbsolutePath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Registers the skill factories and requirements of the given jars.
+     * <p>Jars that contain a {@link SkillIndex} are registered directly from their index.
+     * All other jars are scanned for skill factories without loading any classes
+     * and then only the found factories are loaded and registered.
+     *
+     * @param jars the jars that should be loaded
+     * @param classLoaders provides the class loader that is used to load the classes of each jar
+     */
+    private void loadFactoriesFromJars(Collection<File> jars, Function<File, ClassLoader> classLoaders) {
+
+        if (jars.isEmpty()) return;
+
+        List<File> unindexedJars = new ArrayList<>();
+        for (File jar : jars) {
+            Optional<SkillIndex> index = SkillIndex.read(jar);
+            if (index.isPresent()) {
+                ClassLoader classLoader = classLoaders.apply(jar);
+                if (classLoader != null) {
+                    loadFromIndex(index.get(), classLoader);
+                }
+            } else {
+                unindexedJars.add(jar);
+            }
+        }
+
+        if (unindexedJars.isEmpty()) return;
+
+        long start = System.nanoTime();
+        Map<File, List<String>> factories = factoryScanner().scan(unindexedJars);
+        log.info("found " + factories.values().stream().mapToInt(List::size).sum() + " skill factories in "
+                + unindexedJars.size() + " jars in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+
+        factories.forEach((jar, classNames) -> {
+            if (classNames.isEmpty()) return;
+
+            ClassLoader classLoader = classLoaders.apply(jar);
+            if (classLoader == null) return;
+
+            classNames.stream()
+                    .map(className -> loadFactory(classLoader, className))
+                    .flatMap(Optional::stream)
+                    .forEach(this::registerSkill);
+        });
+    }
+
+    private void loadFromIndex(SkillIndex index, ClassLoader classLoader) {
+
+        int skillCount = skillTypes.size();
+        int requirementCount = requirements.size();
+
+        for (SkillIndex.Entry factory : index.factories()) {
+            // check the dependencies before loading the class to avoid linkage errors with missing plugins
+            if (hasMissingDependency(factory)) continue;
+            loadFactory(classLoader, factory.className()).ifPresent(this::registerSkill);
+        }
+
+        for (SkillIndex.Entry requirement : index.requirements()) {
+            loadRequirement(classLoader, requirement.className());
+        }
+
+        // skills without a factory can only be created by the plugin that provides them
+        for (SkillIndex.Entry skill : index.skills()) {
+            if (skillTypes.containsKey(skill.type())) continue;
+            log.warning("the skill " + skill.className() + " (" + skill.type() + ") of the skill index has no skill factory "
+                    + "and must be registered manually with the SkillManager#registerSkill(...) method!");
+        }
+
+        log.info("registered " + (skillTypes.size() - skillCount) + " skill factories and "
+                + (requirements.size() - requirementCount) + " requirements from the skill index");
+    }
+
+    private boolean hasMissingDependency(SkillIndex.Entry entry) {
+
+        for (String depend : entry.depends()) {
+            if (Bukkit.getPluginManager().getPlugin(depend) == null) {
+                log.severe("Cannot register skill " + entry.skillClass() + " (" + entry.type() + ")! Missing plugin dependency of " + depend);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void loadRequirement(ClassLoader classLoader, String className) {
+
+        try {
+            registerIndexedRequirement(Class.forName(className, true, classLoader).asSubclass(Requirement.class));
+        } catch (ClassNotFoundException | NoClassDefFoundError | ClassCastException e) {
+            log.warning("unable to load requirement " + className + ": " + e.getMessage());
+        } catch (NoSuchMethodException e) {
+            log.warning("unable to find a public no arguments constructor for requirement " + className + ": " + e.getMessage());
+        }
+    }
+
+    private <TRequirement extends Requirement> void registerIndexedRequirement(Class<TRequirement> requirementClass) throws NoSuchMethodException {
+
+        Constructor<TRequirement> constructor = requirementClass.getConstructor();
+        registerRequirement(requirementClass, () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("unable to create a new instance of the requirement " + requirementClass.getCanonicalName(), e);
+            }
+        });
+    }
+
+    private Optional<SkillFactory<?>> loadFactory(ClassLoader classLoader, String className) {
+
+        Constructor<? extends SkillFactory> constructor;
+        try {
+            constructor = Class.forName(className, true, classLoader)
+                    .asSubclass(SkillFactory.class)
+                    .getDeclaredConstructor();
+        } catch (ClassNotFoundException | NoClassDefFoundError | ClassCastException e) {
+            log.warning("unable to load skill factory " + className + ": " + e.getMessage());
+            return Optional.empty();
+        } catch (NoSuchMethodException e) {
+            log.warning("unable to find a public no arguments constructor for skill factory " + className + ": " + e.getMessage());
+            log.warning("make sure you register your factory or skill manually with the SkillManager#registerSkill(...) method!");
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of((SkillFactory<?>) constructor.newInstance());
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            log.severe("unable to create a new instance of the skill factory "
+                    + className + " --> " + constructor.getName() + ": " + e.getMessage());
+            e.printStackTrace();
+            return Optional.empty();
+        }
     }
 
     /**
      * Recursively loads all skill configs in the given path, creates and caches new skill instances for them.
-     * Each file will be loaded and passed into {@link #loadSkill(String, ConfigurationSection)}.
+     * <p>The files are read and parsed in parallel on the calling thread, see {@link #readSkillFiles(Path)}.
+     * The parsed files are then loaded with {@link #loadSkills(Path, List)}.
      *
      * @param path the path to the skill configs
      */
     List<ConfiguredSkill> loadSkills(Path path) {
 
-        try {
-            Files.createDirectories(path);
-            List<File> files = Files.find(path, Integer.MAX_VALUE,
-                    (file, fileAttr) -> fileAttr.isRegularFile())
-                    .map(Path::toFile).collect(Collectors.toList());
-
+        return loadSkills(path, readSkillFiles(path));
+    }
 
-            int fileCount = files.size();
-            List<ConfiguredSkill> skills = files.stream()
-                    .map(file -> loadSkill(path, file))
-                    .flatMap(Optional::stream)
-                    .collect(Collectors.toList());
+    /**
+     * Recursively reads and parses all skill configs in the given path.
+     * <p>The files are read and parsed in parallel on the common fork join pool.
+     * This method is thread safe and does not access the database, so it can run off the main thread.
+     *
+     * @param path the path to the skill configs
+     * @return the parsed skill files or an empty list if the path could not be read
+     */
+    private List<SkillFile> readSkillFiles(Path path) {
 
-            log.info("Loaded " + skills.size() + "/" + fileCount + " skills from " + path);
-            return skills;
+        try {
+            Files.createDirectories(path);
+            try (Stream<Path> paths = Files.find(path, Integer.MAX_VALUE, (file, fileAttr) -> fileAttr.isRegularFile())) {
+                return paths.map(Path::toFile)
+                        .collect(Collectors.toList())
+                        .parallelStream()
+                        .map(file -> readSkillFile(path, file))
+                        .flatMap(Optional::stream)
+                        .collect(Collectors.toList());
+            }
         } catch (IOException e) {
             log.severe("unable to load skills from " + path + ": " + e.getMessage());
             e.printStackTrace();
@@ -232,6 +591,106 @@ public final class SkillManager {
         }
     }
 
+    /**
+     * Reads and parses the given skill files. This method is thread safe and does not access the database.
+     *
+     * @return the parsed files that exist and could be parsed
+     */
+    private Map<File, SkillFile> readSkillFiles(Path base, Collection<File> files) {
+
+        Map<File, SkillFile> skillFiles = new HashMap<>();
+        for (File file : files) {
+            readSkillFile(base, file).ifPresent(skillFile -> skillFiles.put(file, skillFile));
+        }
+        return skillFiles;
+    }
+
+    /**
+     * Loads the parsed skill files, creates and caches new skill instances for them.
+     * <p>Files whose content did not change since they were last loaded are not loaded again
+     * and their skill is fetched from the database instead.
+     * All other files are passed into {@link #loadSkill(String, ConfigurationSection)} on the calling thread
+     * inside one batched transaction and are only written back if loading the skill changed their content.
+     *
+     * @param path the path to the skill configs
+     * @param skillFiles the parsed skill files
+     */
+    @Transactional(batchSize = 100)
+    List<ConfiguredSkill> loadSkills(Path path, List<SkillFile> skillFiles) {
+
+        long start = System.nanoTime();
+        Map<UUID, ConfiguredSkill> unchangedSkills = findUnchangedSkills(skillFiles);
+
+        List<ConfiguredSkill> skills = new ArrayList<>();
+        int changed = 0;
+        for (SkillFile skillFile : skillFiles) {
+            LoadedSkillFile loaded = loadedSkillFiles.get(skillFile.file());
+            ConfiguredSkill skill = loaded != null ? unchangedSkills.get(loaded.skillId()) : null;
+            if (skill != null && loaded.hash().equals(skillFile.hash())) {
+                skills.add(skill);
+                continue;
+            }
+
+            changed++;
+            loadSkill(skillFile).ifPresent(skills::add);
+        }
+
+        log.info("Loaded " + skills.size() + "/" + skillFiles.size() + " skills (" + changed + " changed) from "
+                + path + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        return skills;
+    }
+
+    /**
+     * Parses the skill files on the loader thread and then loads them in a single task on the main thread.
+     * <p>The loader runs one parse after the other, so the files are always loaded in the order they were parsed.
+     */
+    private <TSkillFiles, TResult> CompletableFuture<TResult> loadAsync(Supplier<TSkillFiles> parse, Function<TSkillFiles, TResult> load) {
+
+        CompletableFuture<TResult> result = new CompletableFuture<>();
+        loader().execute(() -> {
+            TSkillFiles skillFiles;
+            try {
+                skillFiles = parse.get();
+            } catch (Exception e) {
+                log.severe("unable to read the skill files: " + e.getMessage());
+                e.printStackTrace();
+                result.completeExceptionally(e);
+                return;
+            }
+            if (!plugin.isEnabled()) {
+                result.cancel(false);
+                return;
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                try {
+                    result.complete(load.apply(skillFiles));
+                } catch (Exception e) {
+                    log.severe("unable to load the skill files: " + e.getMessage());
+                    e.printStackTrace();
+                    result.completeExceptionally(e);
+                }
+            });
+        });
+        return result;
+    }
+
+    private ExecutorService loader() {
+
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "RCSkills-SkillLoader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loader;
+    }
+
+    private Path skillsPath() {
+
+        return new File(plugin.getDataFolder(), config.getSkillsPath()).toPath();
+    }
+
     /**
      * Tries to load a skill from the given file configuration.
      * <p>The load operation will fail if the file does not exist or
@@ -245,25 +704,122 @@ public final class SkillManager {
      */
     Optional<ConfiguredSkill> loadSkill(Path base, @NonNull File file) {
 
+        return readSkillFile(base, file).flatMap(this::loadSkill);
+    }
+
+    /**
+     * Reads and parses the given skill file. This method is thread safe and does not access the database.
+     */
+    private Optional<SkillFile> readSkillFile(Path base, File file) {
+
         if (!file.exists() || !(file.getName().endsWith(".yml") && !file.getName().endsWith(".yaml"))) {
             return Optional.empty();
         }
 
         try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            String content = new String(bytes, StandardCharsets.UTF_8);
             YamlConfiguration config = new YamlConfiguration();
-            config.load(file);
-            Optional<ConfiguredSkill> skill = loadSkill(ConfigUtil.getFileIdentifier(base, file), config);
-            config.save(file);
-            skill.ifPresentOrElse(s -> {
-                log.info("loaded skill \"" + s.alias() + "\" (" + s.type() + ") from: " + file);
-            }, () -> log.warning("failed to load skill from config: " + file));
-            return skill;
+            config.loadFromString(content);
+            return Optional.of(new SkillFile(file, ConfigUtil.getFileIdentifier(base, file), content, HashUtil.sha256(bytes), config));
         } catch (IOException | InvalidConfigurationException e) {
             log.severe("unable to load skill config " + file.getAbsolutePath() + ": " + e.getMessage());
             e.printStackTrace();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Fetches the skills of all files that did not change since they were last loaded with a single query.
+     * <p>Files that contain a skill type that is no longer registered are always loaded again.
+     */
+    private Map<UUID, ConfiguredSkill> findUnchangedSkills(List<SkillFile> skillFiles) {
+
+        Set<UUID> ids = new HashSet<>();
+        for (SkillFile skillFile : skillFiles) {
+            LoadedSkillFile loaded = loadedSkillFiles.get(skillFile.file());
+            if (loaded != null && loaded.hash().equals(skillFile.hash()) && loaded.types().stream().allMatch(this::hasType)) {
+                ids.add(loaded.skillId());
+            }
+        }
+
+        if (ids.isEmpty()) return Map.of();
+
+        return ConfiguredSkill.find.query()
+                .where().idIn(ids)
+                .findList()
+                .stream()
+                .collect(Collectors.toMap(BaseEntity::id, skill -> skill));
+    }
+
+    private Optional<ConfiguredSkill> loadSkill(SkillFile skillFile) {
+
+        File file = skillFile.file();
+        YamlConfiguration config = skillFile.config();
+        Optional<ConfiguredSkill> skill = loadSkill(skillFile.identifier(), config);
+        // child skills may inherit the config of the changed skill
+        sharedSkillConfigs.clear();
+
+        String content = config.saveToString();
+        String hash = skillFile.hash();
+        if (!content.equals(skillFile.content())) {
+            try {
+                Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+                hash = HashUtil.sha256(content.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                log.severe("unable to save skill config " + file.getAbsolutePath() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
         }
 
-        return Optional.empty();
+        String loadedHash = hash;
+        skill.ifPresentOrElse(s -> {
+            loadedSkillFiles.put(file, new LoadedSkillFile(loadedHash, s.id(), getSkillIds(config), getSkillTypes(config)));
+            log.info("loaded skill \"" + s.alias() + "\" (" + s.type() + ") from: " + file);
+        }, () -> {
+            loadedSkillFiles.remove(file);
+            log.warning("failed to load skill from config: " + file);
+        });
+        return skill;
+    }
+
+    private Set<UUID> getSkillIds(ConfigurationSection config) {
+
+        Set<UUID> ids = new HashSet<>();
+        String id = config.getString("id");
+        if (!Strings.isNullOrEmpty(id)) {
+            ids.add(UUID.fromString(id));
+        }
+
+        ConfigurationSection skills = config.getConfigurationSection(SUB_SKILL_SECTION);
+        if (skills != null) {
+            for (String key : skills.getKeys(false)) {
+                ConfigurationSection section = skills.getConfigurationSection(key);
+                if (section != null) {
+                    ids.addAll(getSkillIds(section));
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    private Set<String> getSkillTypes(ConfigurationSection config) {
+
+        Set<String> types = new HashSet<>();
+        types.add(config.getString("type", "permission"));
+
+        ConfigurationSection skills = config.getConfigurationSection(SUB_SKILL_SECTION);
+        if (skills != null) {
+            for (String key : skills.getKeys(false)) {
+                ConfigurationSection section = skills.getConfigurationSection(key);
+                if (section != null) {
+                    types.addAll(getSkillTypes(section));
+                }
+            }
+        }
+
+        return types;
     }
 
     /**
@@ -362,6 +918,8 @@ public final class SkillManager {
         }
 
         skillTypes.put(type, new Skill.Registration<>(skillClass, info, supplier));
+        // the shared configs were loaded with the class of the previous registration
+        sharedSkillConfigs.clear();
         log.info("registered skill type: " + type + " [" + skillClass.getCanonicalName() + "]");
     }
 
@@ -379,6 +937,7 @@ public final class SkillManager {
             return this;
         }
         skillTypes.remove(skill.getAnnotation(SkillInfo.class).value().toLowerCase());
+        sharedSkillConfigs.clear();
         return this;
     }
 
@@ -390,28 +949,40 @@ public final class SkillManager {
      */
     public void load(@NonNull Player player) {
 
-        SkilledPlayer skilledPlayer = SkilledPlayer.getOrCreate(player);
-        skilledPlayer.activeSkills().forEach(PlayerSkill::enable);
-
-        ConfiguredSkill.autoUnlockableSkills(skilledPlayer.level().getLevel())
-                .forEach(skilledPlayer::addSkill);
-
-        skilledPlayer.unlockedSkills()
-                .stream()
-                .filter(skill -> !skill.isChild())
-                .filter(skill -> skill.configuredSkill().autoUnlock())
-                .forEach(PlayerSkill::activate);
+        long start = System.nanoTime();
+        try {
+            // writes from the last session might still be pending if the player quickly rejoined
+            plugin.getPersistenceExecutor().await(player.getUniqueId());
+            SkilledPlayer skilledPlayer = SkilledPlayer.getOrCreate(player);
+            skilledPlayer.activeSkills().forEach(PlayerSkill::enable);
+
+            ConfiguredSkill.autoUnlockableSkills(skilledPlayer.level().getLevel())
+                    .forEach(skilledPlayer::addSkill);
+
+            skilledPlayer.unlockedSkills()
+                    .stream()
+                    .filter(skill -> !skill.isChild())
+                    .filter(skill -> skill.configuredSkill().autoUnlock())
+                    .forEach(PlayerSkill::activate);
+        } finally {
+            playerLoadTime.recordSince(start);
+        }
     }
 
     /**
      * Unloads the player and all of his skills.
+     * <p>Waits until the pending database writes of the player are applied,
+     * so that the next server the player joins reads the current state.
      * <p>Will do nothing if the player was never loaded.
      *
      * @param player the player to unload
      */
     public void unload(@NonNull Player player) {
 
+        castPipeline.cancel(player.getUniqueId());
+        castRateLimiter.remove(player.getUniqueId());
         clearPlayerCache(player.getUniqueId());
+        plugin.getPersistenceExecutor().await(player.getUniqueId());
     }
 
     private void reloadPlayerSkills() {
@@ -422,6 +993,76 @@ public final class SkillManager {
                 .forEach(PlayerSkill::reload);
     }
 
+    /**
+     * Reloads all active skills of the given player.
+     * <p>The new skill contexts are created and loaded first while the old contexts remain enabled.
+     * Then the old contexts are disabled and replaced by the new ones in one step.
+     * Contexts of inactive skills are removed from the cache and are created again when they are needed.
+     *
+     * @param playerId the id of the player to reload
+     */
+    void reloadPlayer(UUID playerId) {
+
+        Player player = Bukkit.getPlayer(playerId);
+        if (player == null) return;
+
+        SkilledPlayer skilledPlayer = SkilledPlayer.getOrCreate(player);
+        List<PlayerSkill> activeSkills = skilledPlayer.activeSkills();
+
+        Map<UUID, SkillContext> prepared = new HashMap<>();
+        for (PlayerSkill playerSkill : activeSkills) {
+            createContext(playerSkill).ifPresent(context -> prepared.put(playerSkill.id(), context));
+        }
+
+        Map<UUID, SkillContext> cachedSkills = cachedPlayerSkills.computeIfAbsent(playerId, uuid -> new HashMap<>());
+        Iterator<Map.Entry<UUID, SkillContext>> iterator = cachedSkills.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, SkillContext> entry = iterator.next();
+            entry.getValue().disable();
+            if (!prepared.containsKey(entry.getKey())) {
+                iterator.remove();
+            }
+        }
+        cachedSkills.putAll(prepared);
+
+        // the skills are still active, so they must be enabled and not activated again
+        activeSkills.forEach(PlayerSkill::enable);
+    }
+
+    /**
+     * Reloads the cached skill contexts of the given configured skills.
+     * <p>The contexts of active skills are disabled, loaded with the new config and enabled again.
+     * The contexts of inactive or disabled skills are removed from the cache and will be created again the next time they are needed.
+     *
+     * @param configuredSkillIds the ids of the configured skills that changed
+     * @return the number of affected skill contexts
+     */
+    int reloadPlayerSkills(Set<UUID> configuredSkillIds) {
+
+        List<SkillContext> activeContexts = new ArrayList<>();
+        int count = 0;
+        for (Map<UUID, SkillContext> contexts : cachedPlayerSkills.values()) {
+            Iterator<SkillContext> iterator = contexts.values().iterator();
+            while (iterator.hasNext()) {
+                SkillContext context = iterator.next();
+                if (!configuredSkillIds.contains(context.configuredSkillId())) continue;
+
+                count++;
+                PlayerSkill playerSkill = context.playerSkill();
+                if (playerSkill != null && playerSkill.active() && playerSkill.enabled()) {
+                    activeContexts.add(context);
+                } else {
+                    context.disable();
+                    iterator.remove();
+                }
+            }
+        }
+
+        // PlayerSkill#reload skips skills that are already active, so the contexts are reloaded directly
+        activeContexts.forEach(SkillContext::reload);
+        return count;
+    }
+
     private void clearCache() {
 
         cachedPlayerSkills.keySet().stream().collect(Collectors.toUnmodifiableSet())
@@ -438,6 +1079,28 @@ public final class SkillManager {
         }
     }
 
+    /**
+     * Disables and removes the cached contexts of the given configured skills of the player.
+     * <p>Use it after the skills of the player were deleted without loading the player.
+     *
+     * @param uuid the id of the player
+     * @param configuredSkillIds the ids of the configured skills that should be removed
+     */
+    public void clearPlayerCache(UUID uuid, Set<UUID> configuredSkillIds) {
+
+        Map<UUID, SkillContext> cache = cachedPlayerSkills.get(uuid);
+        if (cache == null) return;
+
+        Iterator<SkillContext> iterator = cache.values().iterator();
+        while (iterator.hasNext()) {
+            SkillContext context = iterator.next();
+            if (!configuredSkillIds.contains(context.configuredSkillId())) continue;
+
+            context.disable();
+            iterator.remove();
+        }
+    }
+
     /**
      * Loads and creates requirements from the provided configuration section.
      * <p>The method expects a section with unique keys and each section
@@ -609,10 +1272,24 @@ public final class SkillManager {
         UUID playerId = playerSkill.player().id();
         Map<UUID, SkillContext> cachedSkills = cachedPlayerSkills.getOrDefault(playerId, new HashMap<>());
         if (cachedSkills.containsKey(playerSkill.id())) {
+            contextCacheStats.hit();
             return cachedSkills.get(playerSkill.id());
         }
+        contextCacheStats.miss();
+
+        SkillContext context = createContext(playerSkill).orElse(null);
 
-        DefaultSkillContext context = getSkillType(playerSkill.configuredSkill().type())
+        if (context != null) {
+            cachedSkills.put(playerSkill.id(), context);
+            cachedPlayerSkills.put(playerId, cachedSkills);
+        }
+
+        return context;
+    }
+
+    private Optional<SkillContext> createContext(PlayerSkill playerSkill) {
+
+        return getSkillType(playerSkill.configuredSkill().type())
                 .map(registration -> {
                     try {
                         DefaultSkillContext skillContext = new DefaultSkillContext(playerSkill, registration).init();
@@ -626,18 +1303,76 @@ public final class SkillManager {
                         e.printStackTrace();
                         return null;
                     }
-                }).orElse(null);
+                });
+    }
 
-        if (context != null) {
-            cachedSkills.put(playerSkill.id(), context);
-            cachedPlayerSkills.put(playerId, cachedSkills);
-        }
+    /**
+     * Gets the cached config of a configured skill with {@link SkillInfo#sharedConfig()} enabled.
+     *
+     * @param configuredSkillId the id of the configured skill
+     * @return the shared config or an empty optional if the config was not loaded yet
+     */
+    Optional<SharedSkillConfig> getSharedConfig(UUID configuredSkillId) {
 
-        return context;
+        return Optional.ofNullable(sharedSkillConfigs.get(configuredSkillId));
+    }
+
+    /**
+     * Caches the config of the given loaded skill and shares it with all other players of the configured skill.
+     * <p>The cache is cleared every time a skill config is loaded and every time the skill types are registered again.
+     *
+     * @param configuredSkillId the id of the configured skill
+     * @param template the skill instance that was loaded with the config of the configured skill
+     * @return the shared config
+     */
+    SharedSkillConfig shareConfig(UUID configuredSkillId, Skill template) {
+
+        return sharedSkillConfigs.computeIfAbsent(configuredSkillId, id -> new SharedSkillConfig(template));
+    }
+
+    /**
+     * Removes the given shared config, e.g. because it no longer matches the registered skill class.
+     * <p>The next skill instance loads the config again and shares it.
+     *
+     * @param configuredSkillId the id of the configured skill
+     * @param sharedConfig the shared config that should be removed
+     */
+    void unshareConfig(UUID configuredSkillId, SharedSkillConfig sharedConfig) {
+
+        sharedSkillConfigs.remove(configuredSkillId, sharedConfig);
     }
 
     public boolean isExecutable(ConfiguredSkill skill) {
 
         return getSkillType(skill.type()).map(Skill.Registration::executableSkill).orElse(false);
     }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class ModuleJar {
+
+        long modified;
+        URLClassLoader classLoader;
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class SkillFile {
+
+        File file;
+        String identifier;
+        String content;
+        String hash;
+        YamlConfiguration config;
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class LoadedSkillFile {
+
+        String hash;
+        UUID skillId;
+        Set<UUID> skillIds;
+        Set<String> types;
+    }
 }
@@ -23,6 +23,14 @@ public class SkillPluginConfig extends BukkitYamlConfiguration {
     private String skillsPath = "skills";
     @Comment("The relative path where your skill and effect modules (jar files) are located.")
     private String modulePath = "modules";
+    @Comment("Set to true to automatically reload skills when their config file changes.")
+    private boolean watchSkillFiles = false;
+    @Comment("The time in ticks to wait after the last change of a skill file until the changed skills are reloaded.")
+    private long watchDebounceTicks = 20L;
+    @Comment("Set to false to reload the skills of all online players in a single tick after a reload.")
+    private boolean staggeredPlayerReload = true;
+    @Comment("The maximum time in milliseconds per tick that is spent reloading the skills of players.")
+    private long playerReloadTickBudget = 5L;
     @Comment("Set to true to automatically load skill classes and factories from other plugins.")
     private boolean loadClassesFromPlugins = false;
     @Comment("Set to false if you want to disable broadcasting players leveling up to everyone.")
@@ -31,6 +39,21 @@ public class SkillPluginConfig extends BukkitYamlConfiguration {
     private long buyCommandTimeout = 600L;
     @Comment("The time in ticks how long the progress bar should be displayed.")
     private long expProgressBarDuration = 120L;
+    @Comment("The time in ticks a player has to wait after executing a skill until the next skill is executed.")
+    private long globalCooldown = 0L;
+    @Comment("The number of skill executions that are queued while a player is casting or on global cooldown.")
+    private int castQueueSize = 1;
+    @Comment("Limits how fast players can try to use skills, e.g. with macros.")
+    private CastRateLimitConfig castRateLimit = new CastRateLimitConfig();
+    private MetricsConfig metrics = new MetricsConfig();
+    @Comment("Changes of players, e.g. the last use of skills and the level history, are written to the database in the background.")
+    private PersistenceConfig persistence = new PersistenceConfig();
+    @Comment("Progression changes are written to a local file first and replayed if the database was not reachable.")
+    private JournalConfig journal = new JournalConfig();
+    @Comment("Old exp changes of players are summed up per hour and day to keep the level history small.")
+    private HistoryConfig history = new HistoryConfig();
+    @Comment("Admin commands that change all players, e.g. /rcsa bulk exp, run in batches in the background.")
+    private BulkConfig bulk = new BulkConfig();
     private DatabaseConfig database = new DatabaseConfig();
     @Comment("Define the expression that calculates the required exp for each level here.")
     private LevelConfig levelConfig = new LevelConfig();
@@ -57,6 +80,108 @@ public class SkillPluginConfig extends BukkitYamlConfiguration {
         private String password = "sa";
         private String driver = "h2";
         private String url = "jdbc:h2:~/skills.db";
+        @Comment("The minimum number of connections that are kept open.")
+        private int minConnections = 2;
+        @Comment("The maximum number of open connections. Players wait for a free connection if all connections are busy.")
+        private int maxConnections = 20;
+        @Comment("The time in minutes after which a busy connection is considered leaked and logged.")
+        private int leakTimeMinutes = 30;
+        @Comment("The time in seconds after which idle connections above the minimum are closed.")
+        private int maxInactiveTimeSecs = 300;
+        @Comment("The number of prepared statements that are cached per connection.")
+        private int pstmtCacheSize = 50;
+        @Comment("The default JDBC batch mode of transactions: NONE, INSERT or ALL.")
+        private String batchMode = "NONE";
+        @Comment("The number of statements that are sent to the database in one JDBC batch.")
+        private int batchSize = 20;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class CastRateLimitConfig {
+
+        private boolean enabled = true;
+        @Comment("The number of skills a player can use at once before the rate limit applies.")
+        private int capacity = 5;
+        @Comment("The number of skill uses per second that are refilled.")
+        private double refillPerSecond = 4d;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class PersistenceConfig {
+
+        @Comment("Set to false to write all changes to the database on the main thread.")
+        private boolean async = true;
+        @Comment("The number of threads that write to the database. The changes of one player are always written by the same thread.")
+        private int threads = 2;
+        @Comment("The maximum number of changes that wait to be written. The server waits for the database if the queue is full.")
+        private int queueSize = 10000;
+        @Comment("The maximum number of changes that are written in one transaction.")
+        private int batchSize = 20;
+        @Comment("The time in milliseconds to wait for pending changes when a player joins or the server stops.")
+        private long flushTimeout = 10000L;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class JournalConfig {
+
+        private boolean enabled = true;
+        @Comment({
+                "The path of the journal file relative to the plugin folder.",
+                "Changes that can never be replayed are moved to a .quarantine file next to it."
+        })
+        private String file = "journal.dat";
+        @Comment("The initial size of the journal file in megabytes. The file grows while the database is not reachable.")
+        private int sizeMb = 16;
+        @Comment("Set to true to force every change to the disk. This survives power losses but is slower.")
+        private boolean sync = false;
+        @Comment("The interval in ticks in which failed changes are written to the database again.")
+        private long replayInterval = 600L;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class HistoryConfig {
+
+        @Comment("The number of days after which single exp changes are summed up per hour. Set to 0 to keep them forever.")
+        private int hourlyAfterDays = 7;
+        @Comment("The number of days after which the hourly sums are summed up per day. Set to 0 to keep them forever.")
+        private int dailyAfterDays = 90;
+        @Comment("The maximum number of rows that are summed up in one transaction.")
+        private int batchSize = 1000;
+        @Comment("The interval in ticks in which the level history is compacted.")
+        private long compactInterval = 72000L;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class BulkConfig {
+
+        @Comment({
+                "The number of players that are changed in one transaction.",
+                "Most operations change the players on the main thread, which waits until the whole batch is committed."
+        })
+        private int batchSize = 20;
+        @Comment("The time in milliseconds to wait between two batches.")
+        private long throttle = 250L;
+    }
+
+    @ConfigurationElement
+    @Getter
+    @Setter
+    public static class MetricsConfig {
+
+        @Comment("The relative path of a file the metrics are written to in the Prometheus text format. Leave empty to disable.")
+        private String prometheusFile = "";
+        @Comment("The interval in ticks in which the metrics file is written.")
+        private long writeInterval = 1200L;
     }
 
     @ConfigurationElement
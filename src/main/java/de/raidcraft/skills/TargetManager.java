@@ -2,18 +2,27 @@ package de.raidcraft.skills;
 
 import de.raidcraft.skills.util.ReflectionUtil;
 import de.raidcraft.skills.util.TargetUtil;
+import lombok.Value;
 import lombok.extern.java.Log;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @Log(topic = "RCSkills")
 public final class TargetManager {
 
     private final RCSkills plugin;
     private final Map<Class<?>, TargetResolver<?>> resolvers = new HashMap<>();
+    // resolved targets are only valid for the tick they were resolved in and are cleared by the tick task
+    private final Map<CacheKey, Optional<?>> resolvedTargets = new HashMap<>();
+    private ClassValue<Optional<TargetResolver<?>>> resolverLookup = createResolverLookup();
+    private BukkitTask tickTask;
 
     public TargetManager(RCSkills plugin) {
         this.plugin = plugin;
@@ -22,18 +31,67 @@ public final class TargetManager {
     void load() {
 
         resolvers.clear();
+        clearCache();
         registerDefaults();
+
+        if (tickTask == null) {
+            tickTask = Bukkit.getScheduler().runTaskTimer(plugin, resolvedTargets::clear, 1L, 1L);
+        }
     }
 
+    void unload() {
+
+        if (tickTask != null) {
+            tickTask.cancel();
+            tickTask = null;
+        }
+        clearCache();
+    }
+
+    /**
+     * Resolves the given target type for the player of the execution context.
+     * <p>The result is cached per player, target type and range until the end of the current tick.
+     * This means multiple skills that are executed by the same cast share the resolved target.
+     * A cached entity that died or despawned in the meantime is resolved again.
+     * <p>Only resolutions on the main thread are cached.
+     *
+     * @param context the context that is resolving the target
+     * @param targetClass the type of the target
+     * @param <TTarget> the type of the target
+     * @return the resolved target or an empty optional
+     */
+    @SuppressWarnings("unchecked")
     public <TTarget> Optional<TTarget> resolve(ExecutionContext context, Class<TTarget> targetClass) {
 
-        return resolver(targetClass).flatMap(resolver -> resolver.resolve(context));
+        Optional<TargetResolver<TTarget>> resolver = resolver(targetClass);
+        if (resolver.isEmpty()) return Optional.empty();
+
+        if (tickTask == null || !Bukkit.isPrimaryThread()) {
+            return resolver.get().resolve(context);
+        }
+
+        CacheKey key = new CacheKey(context.source().playerId(), targetClass, context.config().range());
+        Optional<?> target = resolvedTargets.get(key);
+        if (target == null || !isValid(target)) {
+            target = resolver.get().resolve(context);
+            resolvedTargets.put(key, target);
+        }
+
+        return (Optional<TTarget>) target;
+    }
+
+    private static boolean isValid(Optional<?> target) {
+
+        if (target.isEmpty() || !(target.get() instanceof Entity)) return true;
+
+        Entity entity = (Entity) target.get();
+        return entity.isValid() && !entity.isDead();
     }
 
     @SuppressWarnings("unchecked")
     public <TTarget> Optional<TargetResolver<TTarget>> resolver(Class<TTarget> targetClass) {
 
-        return ReflectionUtil.getEntryForTarget(targetClass, resolvers)
+        return resolverLookup.get(targetClass)
                 .map(targetResolver -> (TargetResolver<TTarget>) targetResolver);
     }
 
@@ -45,14 +103,43 @@ public final class TargetManager {
         }
 
         resolvers.put(targetClass, resolver);
+        clearCache();
         log.info("registered target resolver for: " + targetClass.getCanonicalName());
 
         return this;
     }
 
+    /**
+     * Clears all cached resolvers and resolved targets.
+     * <p>Call this if a target changed in a way the next resolution in the same tick must see.
+     */
+    public void clearCache() {
+
+        resolverLookup = createResolverLookup();
+        resolvedTargets.clear();
+    }
+
+    private ClassValue<Optional<TargetResolver<?>>> createResolverLookup() {
+
+        return new ClassValue<>() {
+            @Override
+            protected Optional<TargetResolver<?>> computeValue(Class<?> type) {
+
+                return ReflectionUtil.getEntryForTarget(type, resolvers);
+            }
+        };
+    }
+
     private void registerDefaults() {
 
         register(Player.class, context -> Optional.ofNullable(TargetUtil.getTarget(context.player(), Player.class, context.config().range())));
     }
-}
 
+    @Value
+    private static class CacheKey {
+
+        UUID playerId;
+        Class<?> targetClass;
+        int range;
+    }
+}
@@ -0,0 +1,52 @@
+package de.raidcraft.skills.bulk;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A {@link BulkOperation} that changes all players of a batch at once with set based statements
+ * instead of loading and changing one player after the other.
+ * <p>The statements run on the background thread of the {@link BulkOperationEngine} inside the transaction of the batch.
+ * Only the parts that need bukkit run on the main thread: the selection of the players before the batch is applied
+ * and the update of the online players after the batch was committed.
+ * <p>A batch is applied as a whole. If a statement fails the batch is rolled back and the operation stops.
+ */
+public interface BatchOperation extends BulkOperation {
+
+    /**
+     * Selects the players of the batch the operation is applied to, e.g. to skip online players.
+     * <p>Runs on the main thread before the batch is applied. All players that are not selected are skipped.
+     *
+     * @param ids the ids of the players of the batch
+     * @return the ids of the selected players
+     */
+    default List<UUID> select(List<UUID> ids) {
+
+        return ids;
+    }
+
+    /**
+     * Applies the operation to all selected players of the batch.
+     * <p>Runs on the background thread of the engine inside the transaction of the batch.
+     * Never call bukkit from here.
+     *
+     * @param ids the ids of the selected players
+     * @return the number of changed players
+     */
+    int apply(List<UUID> ids);
+
+    /**
+     * Updates the players after the batch was committed, e.g. to unload the removed skills of online players.
+     * <p>Runs on the main thread.
+     *
+     * @param ids the ids of the selected players
+     */
+    default void applied(List<UUID> ids) {
+    }
+
+    @Override
+    default boolean apply(UUID playerId) {
+
+        return apply(List.of(playerId)) > 0;
+    }
+}
@@ -0,0 +1,53 @@
+package de.raidcraft.skills.bulk;
+
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.ExpressionList;
+
+import java.util.UUID;
+
+/**
+ * An operation that is applied to many players by the {@link BulkOperationEngine}.
+ * <p>The operation is applied to one player at a time inside the transaction of the current batch.
+ * It should only load what it needs to change the player and never keep entities between two players.
+ * <p>Operations that can change many players with a few statements should implement {@link BatchOperation} instead.
+ *
+ * @see BulkOperations
+ */
+public interface BulkOperation {
+
+    /**
+     * The name identifies the operation and its checkpoint.
+     * <p>Include all arguments of the operation, so that resuming an operation with different arguments starts from the beginning.
+     *
+     * @return the unique name of the operation
+     */
+    String name();
+
+    /**
+     * Restricts the players the operation is applied to.
+     * <p>The restriction is part of the query that pages through the player ids.
+     *
+     * @param query the query of the players
+     */
+    default void filter(ExpressionList<SkilledPlayer> query) {
+    }
+
+    /**
+     * Only return true if the operation really needs the main thread for every player, e.g. because it calls bukkit events.
+     * Every batch then waits for the main thread and is applied inside a tick.
+     *
+     * @return true if the operation must be applied on the main thread
+     */
+    default boolean sync() {
+
+        return false;
+    }
+
+    /**
+     * Applies the operation to a single player.
+     *
+     * @param playerId the id of the player
+     * @return true if the player was changed or false if the player was skipped
+     */
+    boolean apply(UUID playerId);
+}
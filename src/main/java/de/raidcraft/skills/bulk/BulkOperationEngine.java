@@ -0,0 +1,447 @@
+package de.raidcraft.skills.bulk;
+
+import de.raidcraft.skills.PersistenceExecutor;
+import de.raidcraft.skills.SkillPluginConfig;
+import de.raidcraft.skills.entities.BulkCheckpoint;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.journal.ProgressionJournal;
+import de.raidcraft.skills.metrics.Counter;
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import io.ebean.Database;
+import io.ebean.ExpressionList;
+import io.ebean.Transaction;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Applies a {@link BulkOperation} to all players without loading them at once.
+ * <p>A background thread pages through the ids of the players ordered by id. The players of each page
+ * are changed inside a single transaction. Every player gets a savepoint, so a failing player only rolls back its own changes.
+ * Operations that need the main thread are handed over one batch at a time.
+ * A {@link BatchOperation} changes the whole batch with set based statements on the background thread
+ * and only hands the selection and the update of online players to the main thread.
+ * The engine waits the configured throttle time between two batches to keep the load on the server and the database low.
+ * <p>The id of the last player is saved as {@link BulkCheckpoint} inside the transaction of the batch.
+ * A batch is therefore either stored together with its checkpoint or not at all. A batch that can not be committed
+ * stops the operation and is applied again when the operation is resumed. The checkpoint is deleted once the operation finished.
+ * <p>The level history is written inside the transaction of the batch and messages to the players are sent after its commit,
+ * see {@link PersistenceExecutor#scope()}. The changes are not journaled, because the checkpoint already covers them.
+ * <p>Only one operation runs at a time.
+ */
+@Log(topic = "RCSkills")
+public final class BulkOperationEngine {
+
+    private static final int APPLIED = 0;
+    private static final int SKIPPED = 1;
+    private static final int FAILED = 2;
+
+    private final Plugin plugin;
+    private final Database database;
+    private final PersistenceExecutor persistence;
+    private final SkillPluginConfig.BulkConfig config;
+    private final Counter applied;
+    private final Counter skipped;
+    private final Counter failed;
+    private volatile Job job;
+
+    public BulkOperationEngine(Plugin plugin, Database database, PersistenceExecutor persistence, SkillPluginConfig.BulkConfig config, MetricsRegistry metrics) {
+
+        this.plugin = plugin;
+        this.database = database;
+        this.persistence = persistence;
+        this.config = config;
+        this.applied = metrics.counter("rcskills_bulk_players_total", "result", "applied");
+        this.skipped = metrics.counter("rcskills_bulk_players_total", "result", "skipped");
+        this.failed = metrics.counter("rcskills_bulk_players_total", "result", "failed");
+    }
+
+    /**
+     * Starts the operation on a background thread.
+     *
+     * @param operation the operation to apply to all players
+     * @param resume true to continue after the last checkpoint of the operation
+     * @param listener is informed about the progress after every batch
+     * @return the progress at the start of the operation
+     * @throws IllegalStateException if another operation is running or there is no checkpoint to resume
+     */
+    public synchronized Progress start(@NonNull BulkOperation operation, boolean resume, @NonNull Consumer<Progress> listener) {
+
+        if (running()) {
+            throw new IllegalStateException("the bulk operation " + job.operation.name() + " is still running");
+        }
+
+        Job job = prepare(operation, resume, listener);
+
+        Thread thread = new Thread(job, "RCSkills-Bulk");
+        thread.setDaemon(true);
+        job.thread = thread;
+        thread.start();
+
+        log.info("started the bulk operation " + operation.name() + (job.lastId != null ? " after " + job.lastId : "") + ".");
+        return job.progress();
+    }
+
+    /**
+     * @return true if an operation is running
+     */
+    public boolean running() {
+
+        return job != null && !job.finished;
+    }
+
+    /**
+     * @return the progress of the running or last operation
+     */
+    public Optional<Progress> progress() {
+
+        return Optional.ofNullable(job).map(Job::progress);
+    }
+
+    /**
+     * Stops the running operation after the current batch. The checkpoint is kept to resume the operation later.
+     *
+     * @return true if an operation was running
+     */
+    public boolean cancel() {
+
+        Job job = this.job;
+        if (job == null || job.finished) return false;
+
+        job.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Cancels the running operation and waits until its thread stopped.
+     * <p>Must be called on the main thread. A batch that waits for the main thread is dropped and applied again when the operation is resumed.
+     */
+    public void close() {
+
+        if (!cancel()) return;
+        Future<?> batch = job.syncBatch;
+        if (batch != null) {
+            batch.cancel(false);
+        }
+        try {
+            job.thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the whole operation on the calling thread.
+     */
+    void run(BulkOperation operation, boolean resume, Consumer<Progress> listener) {
+
+        prepare(operation, resume, listener).run();
+    }
+
+    /**
+     * @param operation the operation
+     * @return true if a checkpoint exists to resume the operation
+     */
+    public boolean hasCheckpoint(@NonNull BulkOperation operation) {
+
+        return checkpoint(operation).isPresent();
+    }
+
+    private Job prepare(BulkOperation operation, boolean resume, Consumer<Progress> listener) {
+
+        Optional<BulkCheckpoint> checkpoint = checkpoint(operation);
+        if (resume && checkpoint.isEmpty()) {
+            throw new IllegalStateException("there is no checkpoint to resume the bulk operation " + operation.name());
+        }
+
+        Job job = new Job(operation, listener, checkpoint.orElseGet(() -> new BulkCheckpoint(operation.name())));
+        if (resume) {
+            job.restore();
+        }
+        job.total = query(operation, job.lastId).findCount() + job.done();
+        this.job = job;
+        return job;
+    }
+
+    private ExpressionList<SkilledPlayer> query(BulkOperation operation, UUID after) {
+
+        ExpressionList<SkilledPlayer> query = database.find(SkilledPlayer.class).where();
+        if (after != null) {
+            query.gt("id", after);
+        }
+        operation.filter(query);
+        return query;
+    }
+
+    private Optional<BulkCheckpoint> checkpoint(BulkOperation operation) {
+
+        return database.find(BulkCheckpoint.class).where()
+                .eq("operation", operation.name())
+                .findOneOrEmpty();
+    }
+
+    private final class Job implements Runnable {
+
+        private final BulkOperation operation;
+        private final Consumer<Progress> listener;
+        private final BulkCheckpoint checkpoint;
+        private final long start = System.nanoTime();
+        private Thread thread;
+        private UUID lastId;
+        private int total;
+        private int applied;
+        private int skipped;
+        private int failed;
+        private volatile boolean cancelled = false;
+        private volatile boolean finished = false;
+        private volatile Future<?> syncBatch;
+
+        private Job(BulkOperation operation, Consumer<Progress> listener, BulkCheckpoint checkpoint) {
+            this.operation = operation;
+            this.listener = listener;
+            this.checkpoint = checkpoint;
+        }
+
+        private int done() {
+
+            return applied + skipped + failed;
+        }
+
+        private Progress progress() {
+
+            return new Progress(operation.name(), applied, skipped, failed, total,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), finished, cancelled);
+        }
+
+        @Override
+        public void run() {
+
+            try {
+                int batchSize = Math.max(1, config.getBatchSize());
+                while (!cancelled) {
+                    List<UUID> ids = query(operation, lastId)
+                            .orderBy("id")
+                            .setMaxRows(batchSize)
+                            .findIds();
+                    if (ids.isEmpty()) break;
+
+                    int[] result = operation instanceof BatchOperation ? applyBatch((BatchOperation) operation, ids) : applySync(ids);
+                    applied += result[APPLIED];
+                    skipped += result[SKIPPED];
+                    failed += result[FAILED];
+                    lastId = ids.get(ids.size() - 1);
+                    report();
+
+                    if (ids.size() < batchSize) break;
+                    throttle();
+                }
+                if (!cancelled) {
+                    deleteCheckpoint();
+                }
+            } catch (CancellationException e) {
+                cancelled = true;
+            } catch (Exception e) {
+                cancelled = true;
+                log.severe("the bulk operation " + operation.name() + " failed after " + lastId + ": " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                finished = true;
+                log.info((cancelled ? "stopped" : "finished") + " the bulk operation " + operation.name()
+                        + ": " + applied + " applied, " + skipped + " skipped, " + failed + " failed.");
+                report();
+            }
+        }
+
+        private int[] applySync(List<UUID> ids) throws Exception {
+
+            if (!operation.sync()) {
+                return apply(ids);
+            }
+            return callSync(() -> apply(ids));
+        }
+
+        /**
+         * Applies the set based operation to the whole batch and saves the checkpoint in one transaction.
+         * <p>Only the selection of the players and the update after the commit wait for the main thread.
+         * A failing statement rolls back the batch and stops the operation.
+         *
+         * @return the number of applied, skipped and failed players
+         */
+        private int[] applyBatch(BatchOperation operation, List<UUID> ids) throws Exception {
+
+            List<UUID> selected = callSync(() -> operation.select(ids));
+
+            int[] result = new int[3];
+            ProgressionJournal.unjournaled(() -> {
+                try (Transaction transaction = database.beginTransaction()) {
+                    result[APPLIED] = selected.isEmpty() ? 0 : operation.apply(selected);
+                    result[SKIPPED] = ids.size() - result[APPLIED];
+                    saveCheckpoint(ids, result);
+                    transaction.commit();
+                }
+                return null;
+            });
+            count(result);
+
+            if (!selected.isEmpty()) {
+                callSync(() -> {
+                    operation.applied(selected);
+                    return null;
+                });
+            }
+            return result;
+        }
+
+        private <T> T callSync(Callable<T> task) throws Exception {
+
+            if (Bukkit.isPrimaryThread()) {
+                return task.call();
+            }
+
+            Future<T> future = Bukkit.getScheduler().callSyncMethod(plugin, task);
+            syncBatch = future;
+            try {
+                return future.get();
+            } finally {
+                syncBatch = null;
+            }
+        }
+
+        /**
+         * Applies the operation to the players and saves the checkpoint in one transaction.
+         * <p>The transaction is never applied again, so nothing of the batch happens twice.
+         * If the commit fails the whole batch is rolled back, its effects are dropped and the error stops the operation.
+         *
+         * @return the number of applied, skipped and failed players
+         */
+        private int[] apply(List<UUID> ids) {
+
+            int[] result = new int[3];
+            List<Runnable> effects = new ArrayList<>();
+            ProgressionJournal.unjournaled(() -> {
+                try (Transaction transaction = database.beginTransaction()) {
+                    transaction.setNestedUseSavepoint();
+                    for (UUID id : ids) {
+                        result[applySingle(id, effects)]++;
+                    }
+                    saveCheckpoint(ids, result);
+                    transaction.commit();
+                }
+                return null;
+            });
+
+            for (Runnable effect : effects) {
+                try {
+                    effect.run();
+                } catch (Exception e) {
+                    log.warning("failed to run an effect of the bulk operation " + operation.name() + ": " + e.getMessage());
+                }
+            }
+
+            count(result);
+            return result;
+        }
+
+        private void saveCheckpoint(List<UUID> ids, int[] result) {
+
+            checkpoint.lastId(ids.get(ids.size() - 1))
+                    .applied(applied + result[APPLIED])
+                    .skipped(skipped + result[SKIPPED])
+                    .failed(failed + result[FAILED]);
+            database.save(checkpoint);
+        }
+
+        private void count(int[] result) {
+
+            BulkOperationEngine.this.applied.add(result[APPLIED]);
+            BulkOperationEngine.this.skipped.add(result[SKIPPED]);
+            BulkOperationEngine.this.failed.add(result[FAILED]);
+        }
+
+        /**
+         * Applies the operation to a single player inside a savepoint of the batch transaction.
+         * <p>The effects of the player are only kept if its changes were released into the batch.
+         */
+        private int applySingle(UUID id, List<Runnable> effects) {
+
+            try (PersistenceExecutor.Scope scope = persistence.scope();
+                 Transaction transaction = database.beginTransaction()) {
+                boolean changed = operation.apply(id);
+                transaction.commit();
+                effects.addAll(scope.effects());
+                return changed ? APPLIED : SKIPPED;
+            } catch (Exception e) {
+                log.severe("failed to apply the bulk operation " + operation.name() + " to player " + id + ": " + e.getMessage());
+                return FAILED;
+            }
+        }
+
+        private void throttle() throws InterruptedException {
+
+            long throttle = config.getThrottle();
+            if (throttle > 0) {
+                Thread.sleep(throttle);
+            }
+        }
+
+        private void report() {
+
+            try {
+                listener.accept(progress());
+            } catch (Exception e) {
+                log.warning("failed to report the progress of the bulk operation " + operation.name() + ": " + e.getMessage());
+            }
+        }
+
+        private void restore() {
+
+            this.lastId = checkpoint.lastId();
+            this.applied = checkpoint.applied();
+            this.skipped = checkpoint.skipped();
+            this.failed = checkpoint.failed();
+        }
+
+        private void deleteCheckpoint() {
+
+            if (checkpoint.id() == null) return;
+
+            try {
+                database.delete(checkpoint);
+            } catch (Exception e) {
+                log.warning("failed to delete the checkpoint of the bulk operation " + operation.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Progress {
+
+        String operation;
+        int applied;
+        int skipped;
+        int failed;
+        int total;
+        long millis;
+        boolean finished;
+        boolean cancelled;
+
+        public int done() {
+
+            return applied + skipped + failed;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package de.raidcraft.skills.bulk;
+
+import de.raidcraft.skills.RCSkills;
+import de.raidcraft.skills.SkillManager;
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.ItemBinding;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkillSlot;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.ExpressionList;
+import lombok.NonNull;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The bulk operations that are provided by the admin commands.
+ */
+public final class BulkOperations {
+
+    /**
+     * Gives all players the given amount of exp.
+     * <p>The exp is added like any other exp, so players level up and get their level up rewards.
+     *
+     * @param exp the exp to add to every player
+     * @param reason the reason that is stored in the level history
+     * @return the operation
+     */
+    public static BulkOperation grantExp(long exp, @NonNull String reason) {
+
+        return new BulkOperation() {
+            @Override
+            public String name() {
+
+                return "exp-" + exp + "-" + reason;
+            }
+
+            @Override
+            public boolean sync() {
+
+                return true;
+            }
+
+            @Override
+            public boolean apply(UUID playerId) {
+
+                SkilledPlayer player = SkilledPlayer.find.byId(playerId);
+                if (player == null) return false;
+
+                player.addExp(exp, reason).save();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Removes the given skill and its child skills from every player that has it.
+     * <p>The skills are deleted with a few statements per batch. Their item bindings are deleted and their skill slots are freed.
+     * The loaded skills of online players are disabled on the main thread after the batch was committed.
+     *
+     * @param skill the skill to remove
+     * @return the operation
+     */
+    public static BulkOperation removeSkill(@NonNull ConfiguredSkill skill) {
+
+        Set<UUID> configuredSkillIds = withChildren(skill);
+
+        return new BatchOperation() {
+            @Override
+            public String name() {
+
+                return "remove-skill-" + skill.alias();
+            }
+
+            @Override
+            public void filter(ExpressionList<SkilledPlayer> query) {
+
+                query.eq("skills.configuredSkill.id", skill.id());
+            }
+
+            @Override
+            public int apply(List<UUID> ids) {
+
+                int players = PlayerSkill.find.query().where()
+                        .in("player.id", ids)
+                        .eq("configuredSkill.id", skill.id())
+                        .findCount();
+                List<UUID> skillIds = PlayerSkill.find.query().where()
+                        .in("player.id", ids)
+                        .in("configuredSkill.id", configuredSkillIds)
+                        .findIds();
+                if (skillIds.isEmpty()) return 0;
+
+                ItemBinding.find.query().where().in("skill.id", skillIds).delete();
+                SkillSlot.find.query().where()
+                        .in("skillId", skillIds)
+                        .asUpdate()
+                        .setNull("skillId")
+                        .set("status", SkillSlot.Status.FREE)
+                        .update();
+                PlayerSkill.find.query().where().idIn(skillIds).delete();
+
+                return players;
+            }
+
+            @Override
+            public void applied(List<UUID> ids) {
+
+                SkillManager skillManager = RCSkills.instance().getSkillManager();
+                for (UUID id : ids) {
+                    skillManager.clearPlayerCache(id, configuredSkillIds);
+                }
+            }
+        };
+    }
+
+    /**
+     * Deletes the skills, level, slots and exp of all players that have not been online for the given time.
+     * <p>Online players are never purged. The players of a batch are selected on the main thread
+     * and deleted with a few statements per batch on the background thread.
+     *
+     * @param inactive the time a player must be offline to be purged
+     * @return the operation
+     */
+    public static BulkOperation purge(@NonNull Duration inactive) {
+
+        return new BatchOperation() {
+            @Override
+            public String name() {
+
+                return "purge-" + inactive.toDays() + "d";
+            }
+
+            @Override
+            public List<UUID> select(List<UUID> ids) {
+
+                Instant lastPlayed = Instant.now().minus(inactive);
+                SkillManager skillManager = RCSkills.instance().getSkillManager();
+                List<UUID> selected = new ArrayList<>();
+                for (UUID id : ids) {
+                    OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(id);
+                    if (offlinePlayer.isOnline()) continue;
+                    if (Instant.ofEpochMilli(offlinePlayer.getLastPlayed()).isAfter(lastPlayed)) continue;
+
+                    skillManager.clearPlayerCache(id);
+                    selected.add(id);
+                }
+                return selected;
+            }
+
+            @Override
+            public int apply(List<UUID> ids) {
+
+                // the delete queries cascade like the entities do, e.g. to the data of the skills, the level and its history
+                ItemBinding.find.query().where().in("player.id", ids).delete();
+                SkillSlot.find.query().where().in("player.id", ids).delete();
+                PlayerSkill.find.query().where().in("player.id", ids).delete();
+                return SkilledPlayer.find.query().where().idIn(ids).delete();
+            }
+
+            @Override
+            public void applied(List<UUID> ids) {
+
+                // a player that joined while the batch was deleted is loaded again with a fresh state
+                SkillManager skillManager = RCSkills.instance().getSkillManager();
+                for (UUID id : ids) {
+                    Player player = Bukkit.getPlayer(id);
+                    if (player == null) continue;
+
+                    skillManager.clearPlayerCache(id);
+                    skillManager.load(player);
+                }
+            }
+        };
+    }
+
+    private static Set<UUID> withChildren(ConfiguredSkill skill) {
+
+        Set<UUID> ids = new HashSet<>();
+        ids.add(skill.id());
+        for (ConfiguredSkill child : skill.children()) {
+            ids.addAll(withChildren(child));
+        }
+        return ids;
+    }
+
+    private BulkOperations() {
+    }
+}
@@ -2,17 +2,26 @@ package de.raidcraft.skills.commands;
 
 
 import co.aikar.commands.BaseCommand;
+import co.aikar.commands.CommandIssuer;
 import co.aikar.commands.annotation.*;
 import com.google.common.base.Strings;
+import de.raidcraft.skills.CastRateLimiter;
 import de.raidcraft.skills.Messages;
 import de.raidcraft.skills.RCSkills;
 import de.raidcraft.skills.actions.AddSkillAction;
+import de.raidcraft.skills.bulk.BulkOperation;
+import de.raidcraft.skills.bulk.BulkOperationEngine;
+import de.raidcraft.skills.bulk.BulkOperations;
 import de.raidcraft.skills.entities.ConfiguredSkill;
 import de.raidcraft.skills.entities.PlayerSkill;
 import de.raidcraft.skills.entities.SkillSlot;
 import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.MetricsRegistry;
 import lombok.Getter;
 import net.md_5.bungee.api.ChatColor;
+import org.bukkit.Bukkit;
+
+import java.time.Duration;
 
 @CommandAlias("rcsa|rcs:admin|rcskills:admin|skills:admin")
 @CommandPermission("rcskills.admin.*")
@@ -189,12 +198,162 @@ public class AdminCommands extends BaseCommand {
         }
     }
 
+    @Subcommand("bulk")
+    public class BulkCommands extends BaseCommand {
+
+        @Subcommand("exp|xp")
+        @CommandCompletion("* * resume")
+        @Description("Gibt allen Spielern Erfahrungspunkte.")
+        @CommandPermission("rcskills.admin.bulk.exp")
+        public void exp(long exp, String reason, @Optional String resume) {
+
+            start(BulkOperations.grantExp(exp, reason), resume);
+        }
+
+        @Subcommand("removeskill")
+        @CommandCompletion("@skills resume")
+        @Description("Entfernt einen Skill von allen Spielern.")
+        @CommandPermission("rcskills.admin.bulk.removeskill")
+        public void removeSkill(ConfiguredSkill skill, @Optional String resume) {
+
+            start(BulkOperations.removeSkill(skill), resume);
+        }
+
+        @Subcommand("purge")
+        @CommandCompletion("* confirm resume")
+        @Description("Setzt alle Spieler zurück, die seit der angegebenen Anzahl an Tagen nicht mehr online waren.")
+        @CommandPermission("rcskills.admin.bulk.purge")
+        public void purge(int days, @Optional String confirm, @Optional String resume) {
+
+            if (Strings.isNullOrEmpty(confirm) || !confirm.equalsIgnoreCase("confirm")) {
+                getCurrentCommandIssuer().sendMessage(ChatColor.RED + "Bist du dir ganz sicher, dass du ALLE Skills, Level, Slots und EXP von allen Spielern zurücksetzen willst, die seit " + days + " Tagen nicht mehr online waren?");
+                getCurrentCommandIssuer().sendMessage(ChatColor.RED + "Dieser Befehl kann nicht rückgängig gemacht werden!");
+                getCurrentCommandIssuer().sendMessage(ChatColor.RED + "Wenn du dir ganz sicher bist gebe \"/rcs:admin bulk purge " + days + " confirm\" ein.");
+                return;
+            }
+
+            start(BulkOperations.purge(Duration.ofDays(days)), resume);
+        }
+
+        @Subcommand("status")
+        @Description("Zeigt den Fortschritt des laufenden Bulk Befehls an.")
+        @CommandPermission("rcskills.admin.bulk")
+        public void status() {
+
+            CommandIssuer issuer = getCurrentCommandIssuer();
+            java.util.Optional<BulkOperationEngine.Progress> progress = getPlugin().getBulkOperations().progress();
+            if (progress.isEmpty()) {
+                issuer.sendMessage(ChatColor.YELLOW + "Es wurde noch kein Bulk Befehl ausgeführt.");
+                return;
+            }
+            issuer.sendMessage(message(progress.get()));
+        }
+
+        @Subcommand("cancel")
+        @Description("Bricht den laufenden Bulk Befehl ab. Er kann später mit resume fortgesetzt werden.")
+        @CommandPermission("rcskills.admin.bulk")
+        public void cancel() {
+
+            if (getPlugin().getBulkOperations().cancel()) {
+                getCurrentCommandIssuer().sendMessage(ChatColor.GREEN + "Der Bulk Befehl wird nach der aktuellen Gruppe abgebrochen.");
+            } else {
+                getCurrentCommandIssuer().sendMessage(ChatColor.RED + "Es läuft gerade kein Bulk Befehl.");
+            }
+        }
+
+        private void start(BulkOperation operation, String resume) {
+
+            CommandIssuer issuer = getCurrentCommandIssuer();
+            BulkOperationEngine engine = getPlugin().getBulkOperations();
+            boolean resumed = "resume".equalsIgnoreCase(resume);
+            if (!resumed && engine.hasCheckpoint(operation)) {
+                issuer.sendMessage(ChatColor.RED + "Der Befehl wurde bereits gestartet und abgebrochen. Hänge \"resume\" an den Befehl an, um ihn fortzusetzen.");
+                return;
+            }
+
+            try {
+                BulkOperationEngine.Progress progress = engine.start(operation, resumed, current -> {
+                    if (current.finished()) {
+                        Bukkit.getScheduler().runTask(getPlugin(), () -> issuer.sendMessage(message(current)));
+                    }
+                });
+                issuer.sendMessage(ChatColor.GREEN + "Der Bulk Befehl " + progress.operation() + " wurde für " + progress.total() + " Spieler gestartet.");
+            } catch (IllegalStateException e) {
+                issuer.sendMessage(ChatColor.RED + e.getMessage());
+            }
+        }
+
+        private String message(BulkOperationEngine.Progress progress) {
+
+            String state = progress.cancelled() ? ChatColor.RED + "abgebrochen"
+                    : progress.finished() ? ChatColor.GREEN + "fertig"
+                    : ChatColor.YELLOW + "läuft";
+            return ChatColor.GOLD + progress.operation() + " (" + state + ChatColor.GOLD + "): "
+                    + ChatColor.AQUA + progress.done() + "/" + progress.total() + ChatColor.YELLOW + " Spieler, "
+                    + ChatColor.GREEN + progress.applied() + " geändert, "
+                    + ChatColor.GRAY + progress.skipped() + " übersprungen, "
+                    + ChatColor.RED + progress.failed() + " fehlgeschlagen "
+                    + ChatColor.GRAY + "(" + progress.millis() + "ms)";
+        }
+    }
+
+    @Subcommand("ratelimit|rejections")
+    @Description("Zeigt die Spieler an, die am häufigsten zu schnell Skills benutzt haben.")
+    @CommandPermission("rcskills.admin.ratelimit")
+    public void rateLimit(@Default("10") int limit, @Optional String reset) {
+
+        CommandIssuer issuer = getCurrentCommandIssuer();
+        CastRateLimiter rateLimiter = getPlugin().getSkillManager().castRateLimiter();
+
+        if ("reset".equalsIgnoreCase(reset)) {
+            rateLimiter.resetRejections();
+            issuer.sendMessage(ChatColor.GREEN + "Die abgelehnten Skill Ausführungen wurden zurückgesetzt.");
+            return;
+        }
+
+        issuer.sendMessage(ChatColor.GOLD + "Abgelehnte Skill Ausführungen: " + ChatColor.AQUA + rateLimiter.totalRejections());
+        for (CastRateLimiter.Rejections rejections : rateLimiter.topRejections(limit)) {
+            String name = Bukkit.getOfflinePlayer(rejections.playerId()).getName();
+            issuer.sendMessage(ChatColor.YELLOW + " - " + (name == null ? rejections.playerId().toString() : name) + ": " + ChatColor.AQUA + rejections.count());
+        }
+    }
+
+    @Subcommand("metrics")
+    @Description("Zeigt die Metriken des Plugins an, z.B. die Ausführungszeiten von Skills.")
+    @CommandPermission("rcskills.admin.metrics")
+    public void metrics(@Optional String filter) {
+
+        CommandIssuer issuer = getCurrentCommandIssuer();
+        issuer.sendMessage(ChatColor.GOLD + "RCSkills Metriken:");
+        for (MetricsRegistry.Snapshot snapshot : getPlugin().getMetrics().snapshot()) {
+            if (!Strings.isNullOrEmpty(filter) && !snapshot.name().contains(filter)) continue;
+
+            String name = ChatColor.YELLOW + snapshot.name() + (snapshot.labels().isEmpty() ? "" : ChatColor.GRAY + "{" + snapshot.labels() + "}");
+            if (snapshot.type() == MetricsRegistry.Type.HISTOGRAM) {
+                issuer.sendMessage(name + ChatColor.YELLOW + ": " + ChatColor.AQUA + String.format("n=%d p50=%.3fms p99=%.3fms max=%.3fms",
+                        snapshot.histogram().count(),
+                        snapshot.histogram().percentileMillis(0.5),
+                        snapshot.histogram().percentileMillis(0.99),
+                        snapshot.histogram().max() / 1000000d));
+            } else {
+                issuer.sendMessage(name + ChatColor.YELLOW + ": " + ChatColor.AQUA + (snapshot.value() == Math.rint(snapshot.value())
+                        ? String.valueOf((long) snapshot.value())
+                        : String.format("%.3f", snapshot.value())));
+            }
+        }
+    }
+
     @Subcommand("reload")
     @Description("Lädt das RCSkills Plugin und alle Konfigurationen neu.")
     @CommandPermission("rcskills.admin.reload")
     public void reload() {
 
-        getPlugin().reload();
-        getCurrentCommandIssuer().sendMessage(ChatColor.GREEN + "Das Skillplugin wurde neugeladen.");
+        CommandIssuer issuer = getCurrentCommandIssuer();
+        getPlugin().reload(progress -> {
+            if (progress.finished()) {
+                issuer.sendMessage(ChatColor.GREEN + "Die Skills von " + progress.total() + " Spielern wurden in " + progress.millis() + "ms neugeladen.");
+            }
+        });
+        issuer.sendMessage(ChatColor.GREEN + "Das Skillplugin wurde neugeladen.");
     }
 }
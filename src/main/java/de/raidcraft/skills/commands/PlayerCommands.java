@@ -172,6 +172,7 @@ public class PlayerCommands extends BaseCommand {
     @CommandCompletion("@executable-skills")
     @CommandPermission("rcskills.skill.execute")
     @Description("Führt den Skill aus.")
+    @Conditions("cast-rate")
     public void use(PlayerSkill skill) {
 
         skill.execute(result -> send(getCurrentCommandIssuer(), Messages.resultOf(result)));
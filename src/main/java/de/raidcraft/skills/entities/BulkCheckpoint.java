@@ -0,0 +1,38 @@
+package de.raidcraft.skills.entities;
+
+import io.ebean.Finder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import net.silthus.ebean.BaseEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/**
+ * The progress of a bulk operation after its last committed batch.
+ * <p>The checkpoint is saved inside the transaction of the batch, so it always matches the changed players.
+ */
+@Entity
+@Getter
+@Setter
+@Accessors(fluent = true)
+@Table(name = "rcs_bulk_checkpoints")
+public class BulkCheckpoint extends BaseEntity {
+
+    public static final Finder<UUID, BulkCheckpoint> find = new Finder<>(BulkCheckpoint.class);
+
+    @Column(unique = true)
+    private String operation;
+    private UUID lastId;
+    private int applied;
+    private int skipped;
+    private int failed;
+
+    public BulkCheckpoint(String operation) {
+
+        this.operation = operation;
+    }
+}
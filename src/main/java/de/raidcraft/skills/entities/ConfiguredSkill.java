@@ -3,7 +3,9 @@ package de.raidcraft.skills.entities;
 import com.google.common.base.Strings;
 import de.raidcraft.skills.*;
 import de.raidcraft.skills.requirements.*;
+import de.raidcraft.skills.util.ReadOnlyConfiguration;
 import io.ebean.Finder;
+import io.ebean.annotation.Cache;
 import io.ebean.annotation.DbDefault;
 import io.ebean.annotation.DbJson;
 import io.ebean.annotation.Index;
@@ -26,7 +28,9 @@ import java.util.stream.Stream;
 @Entity
 @Getter
 @Setter
+@Cache(enableQueryCache = true)
 @Table(name = "rcs_skills")
+@Index(columnNames = {"enabled", "auto_unlock", "level"})
 @Accessors(fluent = true)
 @Log(topic = "RCSkills")
 public class ConfiguredSkill extends BaseEntity implements Comparable<ConfiguredSkill> {
@@ -51,16 +55,31 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
         return Optional.ofNullable(find.byId(id)).orElse(new ConfiguredSkill(id));
     }
 
+    /**
+     * Gets all enabled skills from the query cache.
+     * <p>The returned list and skills are read only.
+     *
+     * @return all enabled skills
+     */
     public static List<ConfiguredSkill> allEnabled() {
 
         return find.query()
+                .setUseQueryCache(true)
                 .where().eq("enabled", true)
                 .findList();
     }
 
+    /**
+     * Gets all skills that are unlocked automatically at the given level from the query cache.
+     * <p>The returned list and skills are read only.
+     *
+     * @param level the level of the player
+     * @return all skills that can be unlocked automatically
+     */
     public static List<ConfiguredSkill> autoUnlockableSkills(int level) {
 
         return find.query()
+                .setUseQueryCache(true)
                 .where().eq("enabled", true)
                 .and().isNull("parent")
                 .and().eq("money", 0)
@@ -72,6 +91,17 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
                 .findList();
     }
 
+    /**
+     * Clears the bean and query cache of all skills.
+     * <p>The skills are cached in memory because they only change when they are loaded.
+     * Changes made through ebean clear the cache automatically,
+     * but changes made directly in the database by another server or by hand are only picked up after the cache was cleared.
+     */
+    public static void clearCache() {
+
+        find.db().cacheManager().clear(ConfiguredSkill.class);
+    }
+
     public static final Finder<UUID, ConfiguredSkill> find = new Finder<>(ConfiguredSkill.class);
 
     @Index
@@ -130,6 +160,14 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
     private transient ExecutionConfig executionConfig;
     @Transient
     private transient TaskConfig taskConfig;
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient Map<String, Object> cachedConfigSource;
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient ConfigurationSection cachedConfig;
 
     ConfiguredSkill(UUID id) {
         this.id(id);
@@ -243,6 +281,12 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
                 .forEach(key -> this.config.put(key, config.get(key)));
     }
 
+    /**
+     * Creates a modifiable copy of the config of this skill.
+     * <p>Use {@link #getReadOnlyConfig()} if you only need to read the config.
+     *
+     * @return a copy of the config
+     */
     public ConfigurationSection getConfig() {
 
         MemoryConfiguration config = new MemoryConfiguration();
@@ -253,10 +297,47 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
         return config;
     }
 
+    /**
+     * Creates a modifiable copy of the "with" section of the config that is passed to the skill.
+     * <p>The section already contains all inherited values of the parent skill.
+     *
+     * @return a copy of the skill config
+     */
     public ConfigurationSection getSkillConfig() {
 
         ConfigurationSection config = getConfig();
-        return Objects.requireNonNullElse(config.getConfigurationSection("with"), config.createSection("with"));
+        ConfigurationSection skillConfig = config.getConfigurationSection("with");
+        return skillConfig != null ? skillConfig : config.createSection("with");
+    }
+
+    /**
+     * Gets a read only view of the config of this skill.
+     * <p>The view is created once for every revision of the config and shared between all callers.
+     * Writing to the view throws an {@link UnsupportedOperationException}.
+     *
+     * @return the read only config of this skill
+     */
+    public ConfigurationSection getReadOnlyConfig() {
+
+        Map<String, Object> source = config();
+        ConfigurationSection config = cachedConfig;
+        if (config == null || cachedConfigSource != source) {
+            config = ReadOnlyConfiguration.of(source, "with");
+            this.cachedConfig = config;
+            this.cachedConfigSource = source;
+        }
+        return config;
+    }
+
+    /**
+     * Gets a read only view of the "with" section of the config that is passed to the skill.
+     * <p>The section already contains all inherited values of the parent skill.
+     *
+     * @return the read only skill config
+     */
+    public ConfigurationSection getReadOnlySkillConfig() {
+
+        return getReadOnlyConfig().getConfigurationSection("with");
     }
 
     @PostLoad
@@ -269,22 +350,14 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
 
         if (!force && loaded) return;
 
-        ConfigurationSection config = getConfig();
+        ConfigurationSection config = getReadOnlyConfig();
 
         String parent = config.getString("parent");
         if (!Strings.isNullOrEmpty(parent)) {
             try {
                 parent(ConfiguredSkill.find.byId(UUID.fromString(parent)));
                 setReplaceParent(config);
-
-                ConfigurationSection parentSkillConfig = parent().getSkillConfig();
-                for (String key : parentSkillConfig.getKeys(true)) {
-                    if (!config.isSet("with." + key)) {
-                        config.set("with." + key, parentSkillConfig.get(key));
-                    }
-                }
-
-                updateConfig(config);
+                config = inheritParentConfig(config);
             } catch (IllegalArgumentException e) {
                 log.severe("the parent of " + id() + " is not a valid UUID.");
                 e.printStackTrace();
@@ -350,6 +423,29 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
         loaded(true);
     }
 
+    /**
+     * Copies all values of the parent skill config that are not set in this skill into the config.
+     * <p>The config is only copied and updated if it is missing a value of the parent.
+     * The merged config is stored, so that the inheritance is only resolved once per revision.
+     */
+    private ConfigurationSection inheritParentConfig(ConfigurationSection config) {
+
+        ConfigurationSection parentSkillConfig = parent().getReadOnlySkillConfig();
+        ConfigurationSection copy = null;
+        for (String key : parentSkillConfig.getKeys(true)) {
+            if (parentSkillConfig.isConfigurationSection(key) || config.isSet("with." + key)) continue;
+            if (copy == null) {
+                copy = getConfig();
+            }
+            copy.set("with." + key, parentSkillConfig.get(key));
+        }
+
+        if (copy == null) return config;
+
+        updateConfig(copy);
+        return getReadOnlyConfig();
+    }
+
     public ConfiguredSkill enabled(boolean enabled) {
 
         if (enabled == this.enabled()) return this;
@@ -502,12 +598,11 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
 
         if (config.isSet("execution")) {
             ConfigurationSection section = config.getConfigurationSection("execution");
-            executionConfig(new ExecutionConfig(Objects.requireNonNullElseGet(section,
-                    () -> config.createSection("execution"))));
+            executionConfig(new ExecutionConfig(Objects.requireNonNullElseGet(section, MemoryConfiguration::new)));
         } else if (isChild()) {
             executionConfig(parent().executionConfig());
         } else {
-            executionConfig(new ExecutionConfig(config.createSection("execution")));
+            executionConfig(new ExecutionConfig(new MemoryConfiguration()));
         }
     }
 
@@ -515,12 +610,11 @@ public class ConfiguredSkill extends BaseEntity implements Comparable<Configured
 
         if (config.isSet("task")) {
             ConfigurationSection section = config.getConfigurationSection("task");
-            taskConfig(new TaskConfig(Objects.requireNonNullElseGet(section,
-                    () -> config.createSection("task"))));
+            taskConfig(new TaskConfig(Objects.requireNonNullElseGet(section, MemoryConfiguration::new)));
         } else if (isChild()) {
             taskConfig(parent().taskConfig());
         } else {
-            taskConfig(new TaskConfig(config.createSection("task")));
+            taskConfig(new TaskConfig(new MemoryConfiguration()));
         }
     }
 
@@ -0,0 +1,159 @@
+package de.raidcraft.skills.entities;
+
+import io.ebean.ExpressionList;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Queries the exp players gained in a time range from the {@link LevelHistory} and its {@link LevelHistoryAggregate}s.
+ * <p>The queries use the indexes on the player or reason and the time. The results are streamed
+ * and never loaded into memory at once.
+ * <p>Compacted exp changes only know the hour or day they happened in.
+ * An aggregate is included if its period starts inside the queried range.
+ *
+ * <pre>{@code
+ * long exp = ExpHistory.of(playerId).between(from, to).sum();
+ * ExpHistory.ofReason("quest").since(from).forEach(gain -> ...);
+ * }</pre>
+ */
+public final class ExpHistory {
+
+    /**
+     * @param playerId the id of the player
+     * @return a query for the exp gained by the player
+     */
+    public static ExpHistory of(@NonNull UUID playerId) {
+
+        return new ExpHistory(playerId, null);
+    }
+
+    /**
+     * @param reason the reason of the exp changes, e.g. the name of a quest
+     * @return a query for the exp gained with the reason by all players
+     */
+    public static ExpHistory ofReason(@NonNull String reason) {
+
+        return new ExpHistory(null, reason);
+    }
+
+    private final UUID playerId;
+    private String reason;
+    private Instant from;
+    private Instant to;
+
+    private ExpHistory(UUID playerId, String reason) {
+
+        this.playerId = playerId;
+        this.reason = reason;
+    }
+
+    /**
+     * Only includes the exp changes with the given reason.
+     *
+     * @param reason the reason of the exp changes
+     * @return this query
+     */
+    public ExpHistory reason(@NonNull String reason) {
+
+        this.reason = reason;
+        return this;
+    }
+
+    /**
+     * @param from the start of the time range (inclusive)
+     * @param to the end of the time range (exclusive)
+     * @return this query
+     */
+    public ExpHistory between(@NonNull Instant from, @NonNull Instant to) {
+
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * @param from the start of the time range (inclusive)
+     * @return this query
+     */
+    public ExpHistory since(@NonNull Instant from) {
+
+        return between(from, Instant.now());
+    }
+
+    /**
+     * @return the sum of the exp that was gained or lost in the time range
+     */
+    public long sum() {
+
+        Number history = filter(LevelHistory.find.query().select("sum(exp)").where(), "whenCreated")
+                .findSingleAttribute();
+        Number aggregates = filter(LevelHistoryAggregate.find.query().select("sum(exp)").where(), "periodStart")
+                .findSingleAttribute();
+
+        return (history == null ? 0 : history.longValue()) + (aggregates == null ? 0 : aggregates.longValue());
+    }
+
+    /**
+     * Streams all exp changes in the time range to the consumer.
+     * <p>The compacted changes are streamed first, followed by the single changes.
+     * Both are ordered by time.
+     *
+     * @param consumer the consumer that receives the exp changes
+     */
+    public void forEach(@NonNull Consumer<ExpGain> consumer) {
+
+        filter(LevelHistoryAggregate.find.query().where(), "periodStart")
+                .orderBy("periodStart")
+                .findEach(aggregate -> consumer.accept(new ExpGain(
+                        aggregate.playerId(),
+                        aggregate.reason(),
+                        aggregate.periodStart(),
+                        aggregate.period().duration(),
+                        aggregate.exp(),
+                        aggregate.changes()
+                )));
+        filter(LevelHistory.find.query().where(), "whenCreated")
+                .orderBy("whenCreated")
+                .findEach(history -> consumer.accept(new ExpGain(
+                        history.playerId(),
+                        history.reason(),
+                        history.whenCreated(),
+                        Duration.ZERO,
+                        history.exp(),
+                        1
+                )));
+    }
+
+    private <T> ExpressionList<T> filter(ExpressionList<T> query, String timeProperty) {
+
+        if (playerId != null) query.eq("playerId", playerId);
+        if (reason != null) query.eq("reason", reason);
+        if (from != null) query.ge(timeProperty, from);
+        if (to != null) query.lt(timeProperty, to);
+        return query;
+    }
+
+    /**
+     * The exp a player gained at a single time or summed up over a period.
+     */
+    @Value
+    @Accessors(fluent = true)
+    public static class ExpGain {
+
+        UUID playerId;
+        String reason;
+        Instant time;
+        /**
+         * The length of the period the exp was gained in. Zero for single exp changes.
+         */
+        Duration period;
+        long exp;
+        int changes;
+    }
+}
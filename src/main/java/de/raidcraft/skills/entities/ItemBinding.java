@@ -2,6 +2,7 @@ package de.raidcraft.skills.entities;
 
 import io.ebean.Finder;
 import io.ebean.annotation.DbEnumValue;
+import io.ebean.annotation.Index;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -24,6 +25,7 @@ import java.util.UUID;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "rcs_player_bindings")
+@Index(columnNames = {"player_id", "material", "action"})
 public class ItemBinding extends BaseEntity {
 
     public static final Finder<UUID, ItemBinding> find = new Finder<>(ItemBinding.class);
@@ -1,5 +1,6 @@
 package de.raidcraft.skills.entities;
 
+import de.raidcraft.skills.journal.ProgressionJournal;
 import io.ebean.Finder;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -30,4 +31,15 @@ public class Level extends BaseEntity {
 
     Level() {
     }
+
+    /**
+     * Saves the entity and journals its progression if the database is not reachable.
+     *
+     * @see ProgressionJournal#save(Object, Runnable)
+     */
+    @Override
+    public void save() {
+
+        ProgressionJournal.saveJournaled(this, super::save);
+    }
 }
@@ -1,6 +1,8 @@
 package de.raidcraft.skills.entities;
 
+import io.ebean.Finder;
 import io.ebean.annotation.DbJson;
+import io.ebean.annotation.Index;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -11,14 +13,24 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * A single exp change of a player.
+ * <p>Old entries are compacted into {@link LevelHistoryAggregate}s by the {@link de.raidcraft.skills.LevelHistoryCompactor}.
+ * Use the {@link ExpHistory} to query the gained exp of both.
+ */
 @Entity
 @Getter
 @Setter
 @Accessors(fluent = true)
 @Table(name = "rcs_level_history")
+@Index(columnNames = {"player_id", "when_created"})
+@Index(columnNames = {"reason", "when_created"})
 public class LevelHistory extends BaseEntity {
 
+    public static final Finder<UUID, LevelHistory> find = new Finder<>(LevelHistory.class);
+
     public static final String REASON = "reason";
 
     public static LevelHistory create(Level level) {
@@ -26,15 +38,36 @@ public class LevelHistory extends BaseEntity {
         return new LevelHistory(level);
     }
 
+    /**
+     * Creates a new entry of the level with the given id without loading the level.
+     * <p>Use it to create entries on another thread than the one that changes the level.
+     * The levels and exp must be set explicitly.
+     *
+     * @param levelId the id of the level
+     * @return the new entry
+     */
+    public static LevelHistory create(UUID levelId) {
+
+        LevelHistory history = new LevelHistory();
+        history.level = Level.find.ref(levelId);
+        return history;
+    }
+
     @ManyToOne
     private Level level;
+    private UUID playerId;
+    private String reason;
     private int oldLevel;
     private int newLevel;
     private long oldExp;
     private long newExp;
+    private long exp;
     @DbJson
     private Map<String, Object> data = new HashMap<>();
 
+    LevelHistory() {
+    }
+
     LevelHistory(Level level) {
 
         this.level = level;
@@ -46,6 +79,7 @@ public class LevelHistory extends BaseEntity {
 
     public LevelHistory reason(String reason) {
 
+        this.reason = reason;
         return data(REASON, reason);
     }
 
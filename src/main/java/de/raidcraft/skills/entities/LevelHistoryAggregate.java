@@ -0,0 +1,142 @@
+package de.raidcraft.skills.entities;
+
+import io.ebean.Finder;
+import io.ebean.annotation.Index;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import net.silthus.ebean.BaseEntity;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The summed up exp changes of a player for one reason in one hour or day.
+ * <p>Aggregates replace the single {@link LevelHistory} entries once they are older than configured.
+ */
+@Entity
+@Getter
+@Setter(AccessLevel.PACKAGE)
+@Accessors(fluent = true)
+@Table(name = "rcs_level_history_aggregates")
+@Index(columnNames = {"player_id", "period_start"})
+@Index(columnNames = {"reason", "period_start"})
+public class LevelHistoryAggregate extends BaseEntity {
+
+    public static final Finder<UUID, LevelHistoryAggregate> find = new Finder<>(LevelHistoryAggregate.class);
+
+    /**
+     * Loads the existing aggregates of the given players in one query.
+     * <p>Aggregates without a player are always included.
+     *
+     * @param period the length of the periods
+     * @param playerIds the ids of the players
+     * @param periodStarts the start of the periods
+     * @return the existing aggregates of all players and periods
+     */
+    public static List<LevelHistoryAggregate> findAll(Period period, Collection<UUID> playerIds, Collection<Instant> periodStarts) {
+
+        return find.query().where()
+                .eq("period", period)
+                .in("periodStart", periodStarts)
+                .or()
+                .in("playerId", playerIds)
+                .isNull("playerId")
+                .endOr()
+                .findList();
+    }
+
+    /**
+     * Creates a new unsaved aggregate for the player, reason and period.
+     *
+     * @param playerId the id of the player
+     * @param reason the reason of the exp changes. Can be null.
+     * @param period the length of the period
+     * @param time any time inside the period
+     * @return the new aggregate
+     */
+    public static LevelHistoryAggregate create(UUID playerId, String reason, Period period, Instant time) {
+
+        return new LevelHistoryAggregate(playerId, reason, period, period.start(time));
+    }
+
+    private UUID playerId;
+    private String reason;
+    private Period period;
+    private Instant periodStart;
+    private long exp;
+    private int changes;
+    private int level;
+
+    LevelHistoryAggregate(UUID playerId, String reason, Period period, Instant periodStart) {
+
+        this.playerId = playerId;
+        this.reason = reason;
+        this.period = period;
+        this.periodStart = periodStart;
+    }
+
+    /**
+     * @return the time the period ends (exclusive)
+     */
+    public Instant periodEnd() {
+
+        return periodStart().plus(period().duration());
+    }
+
+    /**
+     * Adds a single exp change to this aggregate.
+     *
+     * @param history the exp change
+     * @return this aggregate
+     */
+    public LevelHistoryAggregate add(LevelHistory history) {
+
+        this.exp += history.exp();
+        this.changes++;
+        this.level = Math.max(level, history.newLevel());
+        return this;
+    }
+
+    /**
+     * Adds the exp changes of a shorter aggregate to this aggregate.
+     *
+     * @param aggregate the aggregate of a shorter period
+     * @return this aggregate
+     */
+    public LevelHistoryAggregate add(LevelHistoryAggregate aggregate) {
+
+        this.exp += aggregate.exp();
+        this.changes += aggregate.changes();
+        this.level = Math.max(level, aggregate.level());
+        return this;
+    }
+
+    public enum Period {
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Period(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public Instant start(Instant time) {
+
+            return time.truncatedTo(unit);
+        }
+
+        public Duration duration() {
+
+            return unit.getDuration();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import de.raidcraft.skills.RCSkills;
 import de.raidcraft.skills.SkillContext;
 import de.raidcraft.skills.SkillStatus;
 import de.raidcraft.skills.events.*;
+import de.raidcraft.skills.journal.ProgressionJournal;
 import io.ebean.Finder;
 import io.ebean.annotation.DbDefault;
 import io.ebean.annotation.Index;
@@ -30,6 +31,7 @@ import java.util.function.Consumer;
 @Setter
 @Table(name = "rcs_player_skills")
 @Index(columnNames = {"player_id", "configured_skill_id"})
+@Index(columnNames = {"player_id", "status", "parent_id"})
 @Accessors(fluent = true)
 @Log(topic = "RCSkills")
 public class PlayerSkill extends BaseEntity implements Comparable<PlayerSkill> {
@@ -268,14 +270,37 @@ public class PlayerSkill extends BaseEntity implements Comparable<PlayerSkill> {
             return;
         }
 
+        List<SkillContext> children = new ArrayList<>();
+        collectChildContexts(children);
+
+        Optional<SkillContext> context = enabled() ? context() : Optional.empty();
+        if (context.isPresent()) {
+            context.get().execute(callback, children);
+            return;
+        }
+
         if (enabled()) {
-            context().ifPresentOrElse(context -> context.execute(callback),
-                    () -> callback.accept(ExecutionResult.failure(null, "Der Skill konnte nicht geladen werden.")));
+            callback.accept(ExecutionResult.failure(null, "Der Skill konnte nicht geladen werden."));
+        }
+        // the first child leads the cast of its siblings if the parent has no context
+        if (!children.isEmpty()) {
+            children.get(0).execute(callback, children.subList(1, children.size()));
         }
+    }
 
-        children().stream()
-                .filter(PlayerSkill::active)
-                .forEach(skill -> skill.execute(callback));
+    /**
+     * Collects the loaded contexts of all active and enabled children and their children.
+     */
+    private void collectChildContexts(List<SkillContext> contexts) {
+
+        for (PlayerSkill child : children()) {
+            if (!child.active()) continue;
+
+            if (child.enabled()) {
+                child.context().ifPresent(contexts::add);
+            }
+            child.collectChildContexts(contexts);
+        }
     }
 
     public boolean canActivate() {
@@ -416,6 +441,17 @@ public class PlayerSkill extends BaseEntity implements Comparable<PlayerSkill> {
         return true;
     }
 
+    /**
+     * Saves the entity and journals its progression if the database is not reachable.
+     *
+     * @see ProgressionJournal#save(Object, Runnable)
+     */
+    @Override
+    public void save() {
+
+        ProgressionJournal.saveJournaled(this, super::save);
+    }
+
     @Override
     public boolean delete() {
 
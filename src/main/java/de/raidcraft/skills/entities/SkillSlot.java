@@ -1,7 +1,9 @@
 package de.raidcraft.skills.entities;
 
+import de.raidcraft.skills.journal.ProgressionJournal;
 import io.ebean.Finder;
 import io.ebean.annotation.DbEnumValue;
+import io.ebean.annotation.Index;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
@@ -33,6 +35,7 @@ public class SkillSlot extends BaseEntity implements Comparable<SkillSlot> {
 
     @ManyToOne
     private SkilledPlayer player;
+    @Index
     @Setter(AccessLevel.PACKAGE)
     private UUID skillId;
     private Status status = Status.ELIGIBLE;
@@ -92,6 +95,17 @@ public class SkillSlot extends BaseEntity implements Comparable<SkillSlot> {
         return status() == Status.ELIGIBLE;
     }
 
+    /**
+     * Saves the entity and journals its progression if the database is not reachable.
+     *
+     * @see ProgressionJournal#save(Object, Runnable)
+     */
+    @Override
+    public void save() {
+
+        ProgressionJournal.saveJournaled(this, super::save);
+    }
+
     @Override
     public boolean delete() {
 
@@ -5,6 +5,7 @@ import de.raidcraft.skills.RCSkills;
 import de.raidcraft.skills.actions.AddSkillAction;
 import de.raidcraft.skills.actions.BuySkillAction;
 import de.raidcraft.skills.events.*;
+import de.raidcraft.skills.journal.ProgressionJournal;
 import de.raidcraft.skills.settings.Setting;
 import io.ebean.Finder;
 import io.ebean.annotation.DbDefault;
@@ -468,6 +469,17 @@ public class SkilledPlayer extends BaseEntity {
                 .findFirst().orElse(new SkillSlot(this).status(SkillSlot.Status.FREE));
     }
 
+    /**
+     * Saves the entity and journals its progression if the database is not reachable.
+     *
+     * @see ProgressionJournal#save(Object, Runnable)
+     */
+    @Override
+    public void save() {
+
+        ProgressionJournal.saveJournaled(this, super::save);
+    }
+
     @Override
     public boolean delete() {
 
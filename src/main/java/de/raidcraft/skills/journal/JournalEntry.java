@@ -0,0 +1,267 @@
+package de.raidcraft.skills.journal;
+
+import de.raidcraft.skills.SkillStatus;
+import de.raidcraft.skills.entities.Level;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkillSlot;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.Database;
+import io.ebean.ExpressionList;
+import io.ebean.UpdateQuery;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import net.silthus.ebean.BaseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * A single record of the {@link ProgressionJournal}.
+ * <p>State entries contain the complete progression state of one entity after a change,
+ * e.g. the level and total exp and not the amount of gained exp. Applying them twice has the same result as applying them once.
+ * Marker entries tell the outcome of the transaction that wrote the state entries.
+ * <p>State entries remember the version of the entity before the change. They are only replayed
+ * if the entity still has this version, so a newer committed change is never overwritten.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@Accessors(fluent = true)
+final class JournalEntry {
+
+    enum Type {
+        /**
+         * The level and total exp of a {@link Level}.
+         */
+        LEVEL,
+        /**
+         * The skill points, resets and free resets of a {@link SkilledPlayer}.
+         */
+        PLAYER,
+        /**
+         * The status of a {@link PlayerSkill}.
+         */
+        SKILL,
+        /**
+         * The status and assigned skill of a {@link SkillSlot}.
+         */
+        SLOT,
+        /**
+         * The transaction was committed to the database.
+         */
+        COMMIT,
+        /**
+         * The transaction failed because the database was not reachable and its state entries need to be replayed.
+         */
+        ROLLBACK,
+        /**
+         * The transaction was rolled back on purpose and its state entries are dropped.
+         */
+        ABORT,
+        /**
+         * The failed state entry with the sequence stored in the transaction field was replayed or quarantined.
+         */
+        REPLAYED;
+
+        boolean state() {
+
+            return this == LEVEL || this == PLAYER || this == SKILL || this == SLOT;
+        }
+    }
+
+    static boolean journaled(Object bean) {
+
+        return bean instanceof Level || bean instanceof SkilledPlayer || bean instanceof PlayerSkill || bean instanceof SkillSlot;
+    }
+
+    /**
+     * @return true if the entity was loaded from the database and can be updated
+     */
+    static boolean persisted(Object bean) {
+
+        return version((BaseEntity) bean) >= 0;
+    }
+
+    static JournalEntry of(Object bean) {
+
+        if (bean instanceof Level) {
+            Level level = (Level) bean;
+            return new JournalEntry(Type.LEVEL, level.id(), version(level), new long[]{level.getLevel(), level.getTotalExp()}, null, null);
+        } else if (bean instanceof SkilledPlayer) {
+            SkilledPlayer player = (SkilledPlayer) bean;
+            return new JournalEntry(Type.PLAYER, player.id(), version(player), new long[]{player.skillPoints(), player.resetCount(), player.freeResets()}, null, null);
+        } else if (bean instanceof PlayerSkill) {
+            PlayerSkill skill = (PlayerSkill) bean;
+            return new JournalEntry(Type.SKILL, skill.id(), version(skill), new long[0], skill.status().name(), null);
+        } else if (bean instanceof SkillSlot) {
+            SkillSlot slot = (SkillSlot) bean;
+            return new JournalEntry(Type.SLOT, slot.id(), version(slot), new long[0], slot.status().name(), slot.skillId());
+        }
+        throw new IllegalArgumentException("no journal entry for " + bean.getClass().getName());
+    }
+
+    private static long version(BaseEntity entity) {
+
+        Long version = entity.version();
+        return version != null ? version : -1;
+    }
+
+    static JournalEntry marker(Type type, long transaction) {
+
+        JournalEntry entry = new JournalEntry(type, null, -1, new long[0], null, null);
+        entry.transaction = transaction;
+        return entry;
+    }
+
+    static JournalEntry decode(byte[] bytes) {
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            Type type = Type.values()[in.readByte()];
+            long sequence = in.readLong();
+            long transaction = in.readLong();
+            JournalEntry entry;
+            if (type.state()) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+                long version = in.readLong();
+                long[] values = new long[in.readByte()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = in.readLong();
+                }
+                String status = in.readBoolean() ? in.readUTF() : null;
+                UUID reference = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                entry = new JournalEntry(type, id, version, values, status, reference);
+            } else {
+                entry = marker(type, transaction);
+            }
+            entry.sequence = sequence;
+            entry.transaction = transaction;
+            return entry;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final Type type;
+    private final UUID id;
+    private final long version;
+    private final long[] values;
+    private final String status;
+    private final UUID reference;
+    private long sequence;
+    private long transaction;
+
+    private JournalEntry(Type type, UUID id, long version, long[] values, String status, UUID reference) {
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.values = values;
+        this.status = status;
+        this.reference = reference;
+    }
+
+    JournalEntry sequence(long sequence) {
+
+        this.sequence = sequence;
+        return this;
+    }
+
+    JournalEntry transaction(long transaction) {
+
+        this.transaction = transaction;
+        return this;
+    }
+
+    /**
+     * @return the entity this state entry belongs to
+     */
+    Key key() {
+
+        return new Key(type, id);
+    }
+
+    byte[] encode() {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type.ordinal());
+            out.writeLong(sequence);
+            out.writeLong(transaction);
+            if (type.state()) {
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+                out.writeLong(version);
+                out.writeByte(values.length);
+                for (long value : values) {
+                    out.writeLong(value);
+                }
+                out.writeBoolean(status != null);
+                if (status != null) out.writeUTF(status);
+                out.writeBoolean(reference != null);
+                if (reference != null) {
+                    out.writeLong(reference.getMostSignificantBits());
+                    out.writeLong(reference.getLeastSignificantBits());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the state of this entry to the database with an update query.
+     * <p>Update queries do not pass the persist controller and are not journaled again.
+     * The entity is only updated if it still has the version of the failed change.
+     *
+     * @param database the database to update
+     * @return true if the entity was updated or false if it was deleted or changed since
+     */
+    boolean apply(Database database) {
+
+        switch (type) {
+            case LEVEL:
+                return update(database.update(Level.class)
+                        .set("level", (int) values[0])
+                        .set("totalExp", values[1]));
+            case PLAYER:
+                return update(database.update(SkilledPlayer.class)
+                        .set("skillPoints", (int) values[0])
+                        .set("resetCount", (int) values[1])
+                        .set("freeResets", (int) values[2]));
+            case SKILL:
+                return update(database.update(PlayerSkill.class)
+                        .set("status", SkillStatus.valueOf(status)));
+            case SLOT:
+                return update(database.update(SkillSlot.class)
+                        .set("status", SkillSlot.Status.valueOf(status))
+                        .set("skillId", reference));
+            default:
+                return true;
+        }
+    }
+
+    private boolean update(UpdateQuery<?> query) {
+
+        ExpressionList<?> where = query.where().idEq(id);
+        if (version >= 0) {
+            where.eq("version", version);
+        }
+        return where.update() > 0;
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    static class Key {
+
+        Type type;
+        UUID id;
+    }
+}
@@ -0,0 +1,89 @@
+package de.raidcraft.skills.journal;
+
+import de.raidcraft.skills.entities.Level;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkillSlot;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.Transaction;
+import io.ebean.TransactionCallbackAdapter;
+import io.ebean.event.BeanPersistAdapter;
+import io.ebean.event.BeanPersistRequest;
+
+import java.sql.Connection;
+
+/**
+ * Records the progression state of updated entities in the {@link ProgressionJournal}
+ * before the update is sent to the database.
+ * <p>Only updates are journaled. Inserted rows cannot be replayed with an update query
+ * and are recreated by the plugin anyway, e.g. the skill slots and skills of a player.
+ * <p>The changes of a rolled back transaction are only kept if its connection broke.
+ * All other rollbacks were intended by the plugin, e.g. a failed batch, and their changes are dropped.
+ * <p>Changes made inside {@link ProgressionJournal#unjournaled(java.util.function.Supplier)} are not recorded.
+ */
+final class JournalPersistController extends BeanPersistAdapter {
+
+    private static final String TRANSACTION_KEY = "rcskills.journal";
+    private static final int VALID_TIMEOUT_SECONDS = 1;
+
+    private final ProgressionJournal journal;
+
+    JournalPersistController(ProgressionJournal journal) {
+
+        this.journal = journal;
+    }
+
+    @Override
+    public boolean isRegisterFor(Class<?> cls) {
+
+        return Level.class.isAssignableFrom(cls)
+                || SkilledPlayer.class.isAssignableFrom(cls)
+                || PlayerSkill.class.isAssignableFrom(cls)
+                || SkillSlot.class.isAssignableFrom(cls);
+    }
+
+    @Override
+    public boolean preUpdate(BeanPersistRequest<?> request) {
+
+        if (!ProgressionJournal.journaling()) return true;
+
+        // every update is journaled, so that a committed write drops older failed states of the same entity
+        journal.record(transaction(request.getTransaction()), request.getBean());
+        return true;
+    }
+
+    private long transaction(Transaction transaction) {
+
+        Object id = transaction.getUserObject(TRANSACTION_KEY);
+        if (id instanceof Long) return (Long) id;
+
+        long journalTransaction = journal.begin();
+        transaction.putUserObject(TRANSACTION_KEY, journalTransaction);
+        transaction.register(new TransactionCallbackAdapter() {
+            @Override
+            public void postCommit() {
+                journal.commit(journalTransaction);
+            }
+
+            @Override
+            public void preRollback() {
+                // the connection is still assigned to the transaction before the rollback
+                if (connected(transaction)) {
+                    journal.abort(journalTransaction);
+                } else {
+                    journal.fail(journalTransaction);
+                }
+            }
+        });
+        return journalTransaction;
+    }
+
+    private boolean connected(Transaction transaction) {
+
+        try {
+            Connection connection = transaction.connection();
+            return connection != null && !connection.isClosed() && connection.isValid(VALID_TIMEOUT_SECONDS);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package de.raidcraft.skills.journal;
+
+import de.raidcraft.skills.RCSkills;
+import io.ebean.Database;
+import io.ebean.Transaction;
+import io.ebean.event.BeanPersistController;
+import lombok.extern.java.Log;
+import net.silthus.ebean.BaseEntity;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Append only journal of progression changes that survives an unavailable database.
+ * <p>The exp, level, skill points, skill status and skill slots of players are written to a memory mapped file
+ * before the changing transaction is committed. The outcome of the transaction is appended afterwards.
+ * Only changes that failed because the database was not reachable and changes of transactions that never finished
+ * because the server crashed are replayed. Changes of transactions that were rolled back on purpose are dropped.
+ * <p>Every entry contains the complete state of an entity and not the difference, so replaying an entry more than once is harmless.
+ * Entries are only replayed if the entity was not changed in the database since, see {@link JournalEntry#apply(Database)}.
+ * Update queries must therefore never change the journaled properties.
+ * <p>Each entry is replayed in its own transaction. Entries that fail for other reasons than an unreachable database
+ * are moved to a quarantine file next to the journal and are not replayed again.
+ * <p>The file is compacted when it is full and after a successful replay.
+ * Only the entries that still need to be replayed are kept.
+ */
+@Log(topic = "RCSkills")
+public final class ProgressionJournal implements AutoCloseable {
+
+    private static final int HEADER = 8;
+    private static final long MIN_SIZE = 64 * 1024;
+    private static final ThreadLocal<Boolean> UNJOURNALED = new ThreadLocal<>();
+
+    /**
+     * Opens or creates the journal at the given path and reads all entries that need to be replayed.
+     *
+     * @param path the path of the journal file
+     * @param size the initial size of the file in bytes. The file grows if it is too small.
+     * @param sync true to force every entry to the disk. Otherwise entries survive crashes of the server but not of the operating system.
+     * @return the opened journal
+     * @throws IOException if the file could not be opened
+     */
+    public static ProgressionJournal open(Path path, long size, boolean sync) throws IOException {
+
+        ProgressionJournal journal = new ProgressionJournal(path, Math.max(MIN_SIZE, size), sync);
+        journal.load();
+        return journal;
+    }
+
+    /**
+     * Saves the given entity with the journal of the plugin.
+     *
+     * @param bean the entity to save
+     * @param save saves the entity
+     * @see #save(Object, Runnable)
+     */
+    public static void saveJournaled(Object bean, Runnable save) {
+
+        RCSkills plugin = RCSkills.instance();
+        ProgressionJournal journal = plugin != null ? plugin.getJournal() : null;
+        if (journal == null) {
+            save.run();
+        } else {
+            journal.save(bean, save);
+        }
+    }
+
+    /**
+     * Runs the given action without journaling the changes it makes on the calling thread.
+     * <p>Use it for changes that keep their own checkpoint and are applied again after a failure, e.g. bulk operations.
+     * Replaying them from the journal as well would apply them twice.
+     *
+     * @param action the action that changes the entities
+     * @param <T> the type of the result
+     * @return the result of the action
+     */
+    public static <T> T unjournaled(Supplier<T> action) {
+
+        if (!journaling()) return action.get();
+
+        UNJOURNALED.set(true);
+        try {
+            return action.get();
+        } finally {
+            UNJOURNALED.remove();
+        }
+    }
+
+    /**
+     * @return false if the changes of the calling thread must not be journaled
+     */
+    static boolean journaling() {
+
+        return UNJOURNALED.get() == null;
+    }
+
+    /**
+     * Checks if the given error was caused by a connection to the database that could not be opened or broke.
+     *
+     * @param error the error to check
+     * @return true if the database was not reachable
+     */
+    public static boolean isConnectionFailure(Throwable error) {
+
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            // SQL state class 08 is used for all connection exceptions
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null
+                    && ((SQLException) cause).getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final Path path;
+    private final Path quarantine;
+    private final boolean sync;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long sequence = 0;
+    private long transactions = 0;
+    private final Map<Long, List<JournalEntry>> open = new HashMap<>();
+    private final Map<JournalEntry.Key, JournalEntry> failed = new LinkedHashMap<>();
+
+    private ProgressionJournal(Path path, long size, boolean sync) throws IOException {
+
+        this.path = path;
+        this.quarantine = path.resolveSibling(path.getFileName() + ".quarantine");
+        this.sync = sync;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(Math.max(size, channel.size()));
+    }
+
+    /**
+     * Creates the persist controller that journals the changes of all progression entities.
+     * <p>Register it in the ebean database config before the database is created.
+     *
+     * @return the persist controller of this journal
+     */
+    public BeanPersistController persistController() {
+
+        return new JournalPersistController(this);
+    }
+
+    /**
+     * @return the number of changed entities that wait to be replayed
+     */
+    public synchronized int pending() {
+
+        return failed.size();
+    }
+
+    /**
+     * @return the file the entries are written to that could not be replayed
+     */
+    public Path quarantine() {
+
+        return quarantine;
+    }
+
+    /**
+     * Saves the given entity and journals its state if the database is not reachable.
+     * <p>A database that is down fails the save before the transaction is started.
+     * The persist controller is never called in this case, so the state is recorded here.
+     * The error is thrown again after the state was journaled.
+     *
+     * @param bean the entity to save
+     * @param save saves the entity
+     */
+    public void save(Object bean, Runnable save) {
+
+        if (!journaling()) {
+            save.run();
+            return;
+        }
+
+        try {
+            save.run();
+        } catch (RuntimeException e) {
+            // new entities cannot be replayed with an update query
+            if (JournalEntry.journaled(bean) && JournalEntry.persisted(bean) && isConnectionFailure(e)) {
+                synchronized (this) {
+                    long transaction = begin();
+                    record(transaction, bean);
+                    fail(transaction);
+                }
+                log.warning("the database is not reachable, journaled the changes of "
+                        + bean.getClass().getSimpleName() + " " + ((BaseEntity) bean).id() + " to replay them later.");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replays all failed changes to the given database. Every change is written in its own transaction.
+     * <p>The replay stops at the first change that fails because the database is still not reachable.
+     * Changes that fail for other reasons are quarantined, so they do not block the other changes.
+     *
+     * @param database the database to replay the changes to
+     * @return the number of replayed entities
+     */
+    public int replay(Database database) {
+
+        return replay(entry -> {
+            try (Transaction transaction = database.beginTransaction()) {
+                if (!entry.apply(database)) {
+                    log.info("skipped " + entry.type() + " " + entry.id() + " of the journal: it was changed or deleted in the database.");
+                }
+                transaction.commit();
+                return Replay.APPLIED;
+            } catch (Exception e) {
+                if (isConnectionFailure(e)) {
+                    log.warning("the database is still not reachable, replaying the journal later: " + e.getMessage());
+                    return Replay.RETRY;
+                }
+                log.severe("failed to replay " + entry + " from the journal, moving it to " + quarantine + ": " + e.getMessage());
+                return Replay.QUARANTINE;
+            }
+        });
+    }
+
+    /**
+     * Replays the failed entries in the order they were written.
+     *
+     * @param applier writes a single entry to the database
+     * @return the number of applied entries
+     */
+    int replay(Function<JournalEntry, Replay> applier) {
+
+        List<JournalEntry> entries;
+        synchronized (this) {
+            if (failed.isEmpty()) return 0;
+            entries = failed.values().stream()
+                    .sorted(Comparator.comparingLong(JournalEntry::sequence))
+                    .collect(Collectors.toList());
+        }
+
+        int replayed = 0;
+        for (JournalEntry entry : entries) {
+            Replay result = applier.apply(entry);
+            if (result == Replay.RETRY) break;
+
+            synchronized (this) {
+                if (result == Replay.QUARANTINE) {
+                    quarantine(entry);
+                } else {
+                    replayed++;
+                }
+                apply(append(JournalEntry.marker(JournalEntry.Type.REPLAYED, entry.sequence())));
+            }
+        }
+
+        synchronized (this) {
+            compact();
+        }
+        if (replayed > 0) {
+            log.info("replayed " + replayed + " changes from the journal.");
+        }
+        return replayed;
+    }
+
+    /**
+     * Starts a new journal transaction.
+     *
+     * @return the id of the journal transaction
+     */
+    synchronized long begin() {
+
+        return ++transactions;
+    }
+
+    /**
+     * Appends the current state of the given entity to the journal.
+     *
+     * @param transaction the id of the journal transaction
+     * @param bean the changed entity
+     */
+    synchronized void record(long transaction, Object bean) {
+
+        JournalEntry entry = JournalEntry.of(bean).transaction(transaction);
+        apply(append(entry));
+    }
+
+    synchronized void commit(long transaction) {
+
+        if (!open.containsKey(transaction)) return;
+        apply(append(JournalEntry.marker(JournalEntry.Type.COMMIT, transaction)));
+        if (open.isEmpty() && failed.isEmpty()) {
+            compact();
+        }
+    }
+
+    /**
+     * Drops the changes of a transaction that was rolled back on purpose.
+     *
+     * @param transaction the id of the journal transaction
+     */
+    synchronized void abort(long transaction) {
+
+        if (!open.containsKey(transaction)) return;
+        apply(append(JournalEntry.marker(JournalEntry.Type.ABORT, transaction)));
+        if (open.isEmpty() && failed.isEmpty()) {
+            compact();
+        }
+    }
+
+    /**
+     * Keeps the changes of a transaction that failed because the database was not reachable to replay them later.
+     *
+     * @param transaction the id of the journal transaction
+     */
+    synchronized void fail(long transaction) {
+
+        if (!open.containsKey(transaction)) return;
+        apply(append(JournalEntry.marker(JournalEntry.Type.ROLLBACK, transaction)));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if (channel == null) return;
+        buffer.force();
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Updates the in memory state with the given entry.
+     * <p>The same method is used while loading the journal, so the state after a restart is the same as before.
+     */
+    private void apply(JournalEntry entry) {
+
+        sequence = Math.max(sequence, entry.sequence());
+        switch (entry.type()) {
+            case COMMIT:
+                List<JournalEntry> committed = open.remove(entry.transaction());
+                if (committed == null) return;
+                for (JournalEntry state : committed) {
+                    supersede(state);
+                }
+                break;
+            case ABORT:
+                open.remove(entry.transaction());
+                break;
+            case ROLLBACK:
+                failAll(open.remove(entry.transaction()));
+                break;
+            case REPLAYED:
+                failed.values().removeIf(state -> state.sequence() == entry.transaction());
+                break;
+            default:
+                transactions = Math.max(transactions, entry.transaction());
+                open.computeIfAbsent(entry.transaction(), id -> new ArrayList<>()).add(entry);
+        }
+    }
+
+    /**
+     * Drops all older changes of the same entity because the given state was committed.
+     */
+    private void supersede(JournalEntry state) {
+
+        JournalEntry.Key key = state.key();
+        failed.computeIfPresent(key, (k, entry) -> entry.sequence() < state.sequence() ? null : entry);
+        for (List<JournalEntry> entries : open.values()) {
+            entries.removeIf(entry -> entry.key().equals(key) && entry.sequence() < state.sequence());
+        }
+    }
+
+    private void failAll(Collection<JournalEntry> entries) {
+
+        if (entries == null) return;
+        for (JournalEntry entry : entries) {
+            failed.merge(entry.key(), entry, (current, next) -> next.sequence() > current.sequence() ? next : current);
+        }
+    }
+
+    private void quarantine(JournalEntry entry) {
+
+        try {
+            Files.writeString(quarantine, Instant.now() + " " + entry + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.severe("unable to write " + entry + " to the quarantine file " + quarantine + ": " + e.getMessage());
+        }
+    }
+
+    private JournalEntry append(JournalEntry entry) {
+
+        entry.sequence(++sequence);
+        byte[] bytes = entry.encode();
+        if (!fits(bytes)) {
+            compact();
+        }
+        write(bytes);
+        return entry;
+    }
+
+    private boolean fits(byte[] bytes) {
+
+        return buffer.remaining() >= HEADER + bytes.length + HEADER;
+    }
+
+    private void write(byte[] bytes) {
+
+        while (!fits(bytes)) {
+            grow();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        int position = buffer.position();
+        // write the payload first and the length last, so a torn write is never read as a valid entry
+        buffer.position(position + HEADER);
+        buffer.put(bytes);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, bytes.length);
+        // the next header stays zero and marks the end of the journal
+        buffer.putInt(buffer.position(), 0);
+        if (sync) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Rewrites the journal keeping only the entries of open transactions and the failed entries.
+     */
+    private void compact() {
+
+        List<JournalEntry> entries = new ArrayList<>(failed.values());
+        open.values().forEach(entries::addAll);
+        entries.sort(Comparator.comparingLong(JournalEntry::sequence));
+
+        buffer.clear();
+        buffer.putInt(0, 0);
+        Set<Long> failedTransactions = new LinkedHashSet<>();
+        for (JournalEntry entry : entries) {
+            write(entry.encode());
+            if (!open.containsKey(entry.transaction())) {
+                failedTransactions.add(entry.transaction());
+            }
+        }
+        // keep the failed entries failed after a restart
+        for (Long transaction : failedTransactions) {
+            write(JournalEntry.marker(JournalEntry.Type.ROLLBACK, transaction).sequence(sequence).encode());
+        }
+    }
+
+    private void grow() {
+
+        try {
+            int position = buffer.position();
+            map(buffer.capacity() * 2L);
+            buffer.position(position);
+            log.warning("the progression journal is full and was resized to " + buffer.capacity() / 1024 + " KiB. Is the database reachable?");
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to grow the progression journal " + path, e);
+        }
+    }
+
+    private void map(long size) throws IOException {
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("the progression journal " + path + " exceeds the maximum size");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void load() {
+
+        buffer.position(0);
+        while (buffer.remaining() >= HEADER) {
+            int position = buffer.position();
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.remaining() - HEADER) break;
+
+            byte[] bytes = new byte[length];
+            buffer.position(position + HEADER);
+            buffer.get(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                log.warning("ignoring a corrupt entry at the end of the progression journal " + path);
+                buffer.position(position);
+                break;
+            }
+            apply(JournalEntry.decode(bytes));
+        }
+
+        // transactions without an outcome were interrupted by a crash and might not have been committed
+        new ArrayList<>(open.keySet()).forEach(transaction -> failAll(open.remove(transaction)));
+        compact();
+
+        if (!failed.isEmpty()) {
+            log.warning(failed.size() + " changes of the progression journal were not written to the database and will be replayed.");
+        }
+    }
+
+    /**
+     * The outcome of replaying a single entry.
+     */
+    enum Replay {
+        /**
+         * The entry was written to the database or is outdated.
+         */
+        APPLIED,
+        /**
+         * The database is not reachable. The entry and all later entries are replayed again later.
+         */
+        RETRY,
+        /**
+         * The entry can never be written and is moved to the quarantine file.
+         */
+        QUARANTINE
+    }
+}
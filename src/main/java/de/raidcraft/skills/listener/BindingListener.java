@@ -1,9 +1,11 @@
 package de.raidcraft.skills.listener;
 
 import de.raidcraft.skills.Messages;
+import de.raidcraft.skills.RCSkills;
 import de.raidcraft.skills.entities.ItemBinding;
 import de.raidcraft.skills.entities.ItemBindings;
 import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.MetricsRegistry;
 import lombok.Getter;
 import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
@@ -22,9 +24,12 @@ public class BindingListener implements Listener {
     private final Map<UUID, ItemBindings> bindingsMap = new HashMap<>();
     @Getter
     private final Consumer<UUID> updateBindings;
+    private final MetricsRegistry.CacheStats cacheStats;
 
     public BindingListener() {
 
+        cacheStats = RCSkills.instance().getMetrics().cache("item_bindings");
+
         updateBindings = (player) -> {
             SkilledPlayer skilledPlayer = SkilledPlayer.find.byId(player);
             if (skilledPlayer == null) {
@@ -45,7 +50,10 @@ public class BindingListener implements Listener {
     @EventHandler
     public void onClick(PlayerInteractEvent event) {
 
-        if (!bindingsMap.containsKey(event.getPlayer().getUniqueId())) {
+        if (bindingsMap.containsKey(event.getPlayer().getUniqueId())) {
+            cacheStats.hit();
+        } else {
+            cacheStats.miss();
             updateBindings.accept(event.getPlayer().getUniqueId());
         }
 
@@ -64,7 +72,9 @@ public class BindingListener implements Listener {
                 break;
         }
 
-        binding.map(ItemBinding::skill)
+        UUID playerId = event.getPlayer().getUniqueId();
+        binding.filter(itemBinding -> RCSkills.instance().getSkillManager().castRateLimiter().tryAcquire(playerId))
+                .map(ItemBinding::skill)
                 .ifPresent(skill -> skill.execute(executionResult ->
                         Messages.send(event.getPlayer(), Messages.resultOf(executionResult))));
     }
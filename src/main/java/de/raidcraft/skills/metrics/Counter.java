@@ -0,0 +1,31 @@
+package de.raidcraft.skills.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing counter that can be incremented from any thread.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+
+        value.increment();
+    }
+
+    public void add(long amount) {
+
+        if (amount > 0) {
+            value.add(amount);
+        }
+    }
+
+    public long get() {
+
+        return value.sum();
+    }
+}
@@ -0,0 +1,122 @@
+package de.raidcraft.skills.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram with logarithmic buckets that records nanoseconds from any thread.
+ * <p>Values below 16ns are recorded exactly. Every power of two above is split into eight linear
+ * sub buckets, which keeps the error of all percentiles below 12.5% with a fixed memory footprint.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_VALUES = 1 << (SUB_BUCKET_BITS + 1);
+    private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - 1 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {
+    }
+
+    /**
+     * Records the time since the given start time.
+     *
+     * @param startNanos the start time retrieved with {@link System#nanoTime()}
+     */
+    public void recordSince(long startNanos) {
+
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records the given value in nanoseconds. Negative values are ignored.
+     *
+     * @param nanos the value to record
+     */
+    public void record(long nanos) {
+
+        if (nanos < 0) return;
+
+        buckets.incrementAndGet(index(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long count() {
+
+        return count.sum();
+    }
+
+    public long sum() {
+
+        return sum.sum();
+    }
+
+    public long max() {
+
+        return max.get();
+    }
+
+    /**
+     * Gets the estimated value at the given percentile.
+     *
+     * @param percentile the percentile between 0 and 1, e.g. 0.99
+     * @return the upper bound of the bucket containing the percentile in nanoseconds
+     */
+    public long percentile(double percentile) {
+
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, percentile)) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 1
+     * @return the estimated value at the given percentile in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+
+        return percentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    static int index(long value) {
+
+        if (value < EXACT_VALUES) return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_VALUES + (exponent - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+
+        if (index < EXACT_VALUES) return index;
+
+        int exponent = (index - EXACT_VALUES) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (index - EXACT_VALUES) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+    }
+}
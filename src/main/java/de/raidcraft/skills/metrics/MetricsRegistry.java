@@ -0,0 +1,290 @@
+package de.raidcraft.skills.metrics;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Holds all counters, gauges and histograms of the plugin.
+ * <p>Metrics are identified by their name and an optional list of label pairs, e.g.
+ * {@code counter("rcskills_cache_requests_total", "cache", "bindings", "result", "hit")}.
+ * Look up your metrics once and keep the returned instance if it is used in a hot path.
+ * <p>The registry can be written in the Prometheus text format with {@link #writePrometheus(Writer)}.
+ */
+@Log(topic = "RCSkills")
+public final class MetricsRegistry {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final Map<String, Series<Counter>> counters = new ConcurrentHashMap<>();
+    private final Map<String, Series<DoubleSupplier>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Series<Histogram>> histograms = new ConcurrentHashMap<>();
+    private final Map<String, CacheStats> caches = new ConcurrentHashMap<>();
+    private final List<Runnable> collectors = new CopyOnWriteArrayList<>();
+
+    /**
+     * Gets or creates the counter with the given name and labels.
+     *
+     * @param name the name of the metric
+     * @param labels pairs of label names and values
+     * @return the counter
+     */
+    public Counter counter(String name, String... labels) {
+
+        return counters.computeIfAbsent(key(name, labels), key -> new Series<>(name, labels(labels), new Counter())).metric();
+    }
+
+    /**
+     * Gets or creates the latency histogram with the given name and labels.
+     *
+     * @param name the name of the metric
+     * @param labels pairs of label names and values
+     * @return the histogram
+     */
+    public Histogram histogram(String name, String... labels) {
+
+        return histograms.computeIfAbsent(key(name, labels), key -> new Series<>(name, labels(labels), new Histogram())).metric();
+    }
+
+    /**
+     * Registers a gauge that is read every time the metrics are collected.
+     * <p>An existing gauge with the same name and labels is replaced.
+     *
+     * @param name the name of the metric
+     * @param gauge the supplier of the current value
+     * @param labels pairs of label names and values
+     */
+    public void gauge(String name, DoubleSupplier gauge, String... labels) {
+
+        gauges.put(key(name, labels), new Series<>(name, labels(labels), gauge));
+    }
+
+    /**
+     * Gets or creates the hit and miss counters of the given cache.
+     * <p>The hit ratio of the cache is registered as a gauge.
+     *
+     * @param name the name of the cache
+     * @return the stats of the cache
+     */
+    public CacheStats cache(String name) {
+
+        return caches.computeIfAbsent(name, cache -> {
+            CacheStats stats = new CacheStats(
+                    counter("rcskills_cache_requests_total", "cache", cache, "result", "hit"),
+                    counter("rcskills_cache_requests_total", "cache", cache, "result", "miss")
+            );
+            gauge("rcskills_cache_hit_ratio", stats::hitRatio, "cache", cache);
+            return stats;
+        });
+    }
+
+    /**
+     * Adds a collector that is called before the metrics are read,
+     * e.g. to pull statistics from an external source into counters.
+     *
+     * @param collector the collector to call
+     */
+    public void addCollector(Runnable collector) {
+
+        collectors.add(collector);
+    }
+
+    /**
+     * Calls all collectors to update the pulled metrics.
+     */
+    public void collect() {
+
+        for (Runnable collector : collectors) {
+            try {
+                collector.run();
+            } catch (Exception e) {
+                log.warning("failed to collect metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Collects and returns the current value of all metrics sorted by their name.
+     *
+     * @return a snapshot of all metrics
+     */
+    public List<Snapshot> snapshot() {
+
+        collect();
+
+        List<Snapshot> snapshots = new ArrayList<>();
+        counters.values().forEach(series -> snapshots.add(new Snapshot(series.name(), series.labels(), Type.COUNTER, series.metric().get(), null)));
+        gauges.values().forEach(series -> snapshots.add(new Snapshot(series.name(), series.labels(), Type.GAUGE, series.metric().getAsDouble(), null)));
+        histograms.values().forEach(series -> snapshots.add(new Snapshot(series.name(), series.labels(), Type.HISTOGRAM, series.metric().count(), series.metric())));
+        snapshots.sort(Comparator.comparing(Snapshot::name).thenComparing(Snapshot::labels));
+        return snapshots;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format.
+     * <p>Histograms are written as summaries in seconds.
+     *
+     * @param writer the writer to write the metrics to
+     * @throws IOException if writing failed
+     */
+    public void writePrometheus(Writer writer) throws IOException {
+
+        Map<String, List<Snapshot>> byName = snapshot().stream()
+                .collect(Collectors.groupingBy(Snapshot::name, TreeMap::new, Collectors.toList()));
+
+        for (Map.Entry<String, List<Snapshot>> entry : byName.entrySet()) {
+            String name = entry.getKey();
+            Type type = entry.getValue().get(0).type();
+            writer.write("# TYPE " + name + " " + (type == Type.HISTOGRAM ? "summary" : type.name().toLowerCase(Locale.ROOT)) + "\n");
+            for (Snapshot snapshot : entry.getValue()) {
+                if (type != Type.HISTOGRAM) {
+                    writer.write(name + braces(snapshot.labels()) + " " + format(snapshot.value()) + "\n");
+                    continue;
+                }
+                Histogram histogram = snapshot.histogram();
+                for (double quantile : QUANTILES) {
+                    String labels = join(snapshot.labels(), "quantile=\"" + quantile + "\"");
+                    writer.write(name + braces(labels) + " " + format(histogram.percentile(quantile) / NANOS_PER_SECOND) + "\n");
+                }
+                writer.write(name + "_sum" + braces(snapshot.labels()) + " " + format(histogram.sum() / NANOS_PER_SECOND) + "\n");
+                writer.write(name + "_count" + braces(snapshot.labels()) + " " + histogram.count() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format to the given file.
+     * <p>The metrics are written to a temporary file first that replaces the target file,
+     * so scrapers never read a partially written file.
+     *
+     * @param file the file to write the metrics to
+     * @throws IOException if writing failed
+     */
+    public void writePrometheus(Path file) throws IOException {
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writePrometheus(writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(String name, String... labels) {
+
+        return name + braces(labels(labels));
+    }
+
+    private static String labels(String... labels) {
+
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("labels must be pairs of names and values: " + String.join(",", labels));
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (builder.length() > 0) builder.append(',');
+            builder.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return builder.toString();
+    }
+
+    private static String escape(String value) {
+
+        return Objects.toString(value, "")
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n");
+    }
+
+    private static String join(String labels, String label) {
+
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    private static String braces(String labels) {
+
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+
+    private static String format(double value) {
+
+        if (Double.isNaN(value)) return "NaN";
+        if (value == Math.rint(value) && !Double.isInfinite(value)) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    public enum Type {
+        COUNTER,
+        GAUGE,
+        HISTOGRAM
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    private static class Series<TMetric> {
+
+        String name;
+        String labels;
+        TMetric metric;
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Snapshot {
+
+        String name;
+        String labels;
+        Type type;
+        double value;
+        Histogram histogram;
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class CacheStats {
+
+        Counter hits;
+        Counter misses;
+
+        public void hit() {
+
+            hits.increment();
+        }
+
+        public void miss() {
+
+            misses.increment();
+        }
+
+        public double hitRatio() {
+
+            long hits = this.hits.get();
+            long total = hits + misses.get();
+            return total == 0 ? 0 : hits / (double) total;
+        }
+    }
+}
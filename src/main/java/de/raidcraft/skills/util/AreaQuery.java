@@ -0,0 +1,299 @@
+package de.raidcraft.skills.util;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.util.NumberConversions;
+
+import java.util.function.Consumer;
+
+/**
+ * Queries blocks and entities inside a sphere, cylinder or cone without creating garbage.
+ * <p>All shapes are tested with primitive math. Cones compare the dot product of the
+ * relative position with a precomputed cosine threshold instead of calculating the angle.
+ * <p>Results are streamed to a callback or into a reusable {@link BlockPositions} buffer,
+ * which allows area of effect skills to scan large radii every tick.
+ * <p>A query keeps scratch state and must never be shared between threads or used again
+ * from inside one of its own callbacks. Use {@link #get()} to obtain the query of the current thread.
+ * <br><pre>{@code
+ * AreaQuery.get().entitiesInCone(player, 10, 45, LivingEntity.class, entity -> entity.damage(5, player));
+ * }</pre>
+ */
+public final class AreaQuery {
+
+    /**
+     * Receives the block coordinates that are inside the queried area.
+     */
+    @FunctionalInterface
+    public interface BlockVisitor {
+
+        void accept(int x, int y, int z);
+    }
+
+    private static final ThreadLocal<AreaQuery> QUERY = ThreadLocal.withInitial(AreaQuery::new);
+
+    /**
+     * @return the area query of the current thread
+     */
+    public static AreaQuery get() {
+
+        return QUERY.get();
+    }
+
+    /**
+     * Checks if the relative position is inside the cone with the given axis and cosine threshold.
+     * <p>The check is done without any square root or trigonometric function.
+     *
+     * @param x the x coordinate relative to the tip of the cone
+     * @param y the y coordinate relative to the tip of the cone
+     * @param z the z coordinate relative to the tip of the cone
+     * @param axisX the normalized x direction of the cone
+     * @param axisY the normalized y direction of the cone
+     * @param axisZ the normalized z direction of the cone
+     * @param radiusSquared the squared length of the cone
+     * @param cos the cosine of the half angle of the cone
+     * @return true if the position is inside the cone
+     */
+    public static boolean inCone(double x, double y, double z,
+                                 double axisX, double axisY, double axisZ,
+                                 double radiusSquared, double cos) {
+
+        double distanceSquared = x * x + y * y + z * z;
+        if (distanceSquared > radiusSquared) return false;
+        if (distanceSquared == 0) return true;
+
+        double dot = x * axisX + y * axisY + z * axisZ;
+        double threshold = cos * cos * distanceSquared;
+        if (cos >= 0) {
+            return dot >= 0 && dot * dot >= threshold;
+        }
+        return dot >= 0 || dot * dot <= threshold;
+    }
+
+    private enum Shape {
+        SPHERE,
+        CYLINDER,
+        CONE
+    }
+
+    private final Location origin = new Location(null, 0, 0, 0);
+    private final Location position = new Location(null, 0, 0, 0);
+
+    private Shape shape;
+    private double originX;
+    private double originY;
+    private double originZ;
+    private double radius;
+    private double radiusSquared;
+    private double height;
+    private double axisX;
+    private double axisY;
+    private double axisZ;
+    private double cos;
+
+    AreaQuery() {
+    }
+
+    /**
+     * Visits all blocks whose center is inside the given sphere.
+     *
+     * @return the number of visited blocks
+     */
+    public int blocksInSphere(double centerX, double centerY, double centerZ, double radius, @NonNull BlockVisitor visitor) {
+
+        sphere(centerX, centerY, centerZ, radius);
+        return visitBlocks(centerY - radius, centerY + radius, visitor);
+    }
+
+    /**
+     * Visits all blocks whose center is inside the upright cylinder standing on the given base.
+     *
+     * @return the number of visited blocks
+     */
+    public int blocksInCylinder(double baseX, double baseY, double baseZ, double radius, double height, @NonNull BlockVisitor visitor) {
+
+        cylinder(baseX, baseY, baseZ, radius, height);
+        return visitBlocks(baseY, baseY + height, visitor);
+    }
+
+    /**
+     * Visits all blocks whose center is inside the given cone.
+     *
+     * @param degrees the half angle of the cone between its axis and its edge
+     * @return the number of visited blocks
+     */
+    public int blocksInCone(double originX, double originY, double originZ,
+                            double directionX, double directionY, double directionZ,
+                            double radius, double degrees, @NonNull BlockVisitor visitor) {
+
+        if (!cone(originX, originY, originZ, directionX, directionY, directionZ, radius, degrees)) return 0;
+        return visitBlocks(originY - radius, originY + radius, visitor);
+    }
+
+    /**
+     * Visits all blocks inside the cone starting at the eyes of the source in its view direction.
+     *
+     * @param degrees the half angle of the cone between its axis and its edge
+     * @return the number of visited blocks
+     */
+    public int blocksInCone(@NonNull LivingEntity source, double radius, double degrees, @NonNull BlockVisitor visitor) {
+
+        eyeCone(source, radius, degrees);
+        return visitBlocks(originY - radius, originY + radius, visitor);
+    }
+
+    /**
+     * Streams all entities of the given type whose location is inside the sphere to the consumer.
+     *
+     * @return the number of entities passed to the consumer
+     */
+    public <TEntity extends Entity> int entitiesInSphere(@NonNull Location center, double radius,
+                                                         @NonNull Class<TEntity> type, @NonNull Consumer<? super TEntity> consumer) {
+
+        sphere(center.getX(), center.getY(), center.getZ(), radius);
+        return visitEntities(center.getWorld(), null, type, consumer);
+    }
+
+    /**
+     * Streams all entities of the given type whose location is inside the upright cylinder to the consumer.
+     *
+     * @return the number of entities passed to the consumer
+     */
+    public <TEntity extends Entity> int entitiesInCylinder(@NonNull Location base, double radius, double height,
+                                                           @NonNull Class<TEntity> type, @NonNull Consumer<? super TEntity> consumer) {
+
+        cylinder(base.getX(), base.getY(), base.getZ(), radius, height);
+        return visitEntities(base.getWorld(), null, type, consumer);
+    }
+
+    /**
+     * Streams all entities of the given type that are inside the view cone of the source to the consumer.
+     * <p>The source itself is never included.
+     *
+     * @param degrees the half angle of the cone between its axis and its edge
+     * @return the number of entities passed to the consumer
+     */
+    public <TEntity extends Entity> int entitiesInCone(@NonNull LivingEntity source, double radius, double degrees,
+                                                       @NonNull Class<TEntity> type, @NonNull Consumer<? super TEntity> consumer) {
+
+        eyeCone(source, radius, degrees);
+        return visitEntities(source.getWorld(), source, type, consumer);
+    }
+
+    private void sphere(double x, double y, double z, double radius) {
+
+        this.shape = Shape.SPHERE;
+        origin(x, y, z, radius);
+    }
+
+    private void cylinder(double x, double y, double z, double radius, double height) {
+
+        this.shape = Shape.CYLINDER;
+        origin(x, y, z, radius);
+        this.height = height;
+    }
+
+    private boolean cone(double x, double y, double z, double directionX, double directionY, double directionZ, double radius, double degrees) {
+
+        double length = Math.sqrt(directionX * directionX + directionY * directionY + directionZ * directionZ);
+        if (length == 0) return false;
+
+        this.shape = Shape.CONE;
+        origin(x, y, z, radius);
+        this.axisX = directionX / length;
+        this.axisY = directionY / length;
+        this.axisZ = directionZ / length;
+        this.cos = Math.cos(Math.toRadians(degrees));
+        return true;
+    }
+
+    private void eyeCone(LivingEntity source, double radius, double degrees) {
+
+        source.getLocation(origin);
+
+        double yaw = Math.toRadians(origin.getYaw());
+        double pitch = Math.toRadians(origin.getPitch());
+        double xz = Math.cos(pitch);
+
+        cone(origin.getX(), origin.getY() + source.getEyeHeight(), origin.getZ(),
+                -xz * Math.sin(yaw), -Math.sin(pitch), xz * Math.cos(yaw),
+                radius, degrees);
+    }
+
+    private void origin(double x, double y, double z, double radius) {
+
+        this.originX = x;
+        this.originY = y;
+        this.originZ = z;
+        this.radius = Math.max(radius, 0);
+        this.radiusSquared = this.radius * this.radius;
+    }
+
+    private boolean contains(double x, double y, double z) {
+
+        double dx = x - originX;
+        double dy = y - originY;
+        double dz = z - originZ;
+
+        switch (shape) {
+            case SPHERE:
+                return dx * dx + dy * dy + dz * dz <= radiusSquared;
+            case CYLINDER:
+                return dy >= 0 && dy <= height && dx * dx + dz * dz <= radiusSquared;
+            case CONE:
+                return inCone(dx, dy, dz, axisX, axisY, axisZ, radiusSquared, cos);
+            default:
+                return false;
+        }
+    }
+
+    private int visitBlocks(double minY, double maxY, BlockVisitor visitor) {
+
+        int count = 0;
+        int maxBlockX = NumberConversions.floor(originX + radius);
+        int maxBlockY = NumberConversions.floor(maxY);
+        int maxBlockZ = NumberConversions.floor(originZ + radius);
+
+        for (int x = NumberConversions.floor(originX - radius); x <= maxBlockX; x++) {
+            for (int y = NumberConversions.floor(minY); y <= maxBlockY; y++) {
+                for (int z = NumberConversions.floor(originZ - radius); z <= maxBlockZ; z++) {
+                    if (contains(x + 0.5, y + 0.5, z + 0.5)) {
+                        visitor.accept(x, y, z);
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    private <TEntity extends Entity> int visitEntities(World world, Entity exclude, Class<TEntity> type, Consumer<? super TEntity> consumer) {
+
+        if (world == null) return 0;
+
+        int count = 0;
+        int maxChunkX = NumberConversions.floor(originX + radius) >> 4;
+        int maxChunkZ = NumberConversions.floor(originZ + radius) >> 4;
+
+        for (int chunkX = NumberConversions.floor(originX - radius) >> 4; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = NumberConversions.floor(originZ - radius) >> 4; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if (entity == exclude || !type.isInstance(entity)) continue;
+
+                    entity.getLocation(position);
+                    if (contains(position.getX(), position.getY(), position.getZ())) {
+                        consumer.accept(type.cast(entity));
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,121 @@
+package de.raidcraft.skills.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of block coordinates packed into a single long each.
+ * <p>The coordinates use the same layout as Minecraft: 26 bits for x, 26 bits for z and 12 bits for y.
+ * <p>Reuse the buffer by calling {@link #clear()} to scan large areas without creating garbage.
+ * <br><pre>{@code
+ * BlockPositions positions = new BlockPositions();
+ * AreaQuery.get().blocksInSphere(x, y, z, 20, positions);
+ * for (int i = 0; i < positions.size(); i++) {
+ *     world.getBlockAt(positions.x(i), positions.y(i), positions.z(i));
+ * }
+ * }</pre>
+ */
+public final class BlockPositions implements AreaQuery.BlockVisitor {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    public static long pack(int x, int y, int z) {
+
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int unpackX(long packed) {
+
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+
+        return (int) (packed << 26 >> 38);
+    }
+
+    private long[] positions;
+    private int size;
+
+    public BlockPositions() {
+
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BlockPositions(int capacity) {
+
+        this.positions = new long[Math.max(capacity, 1)];
+    }
+
+    @Override
+    public void accept(int x, int y, int z) {
+
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        positions[size++] = pack(x, y, z);
+    }
+
+    /**
+     * @return the number of positions in this buffer
+     */
+    public int size() {
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+
+        return size == 0;
+    }
+
+    /**
+     * @param index the index of the position
+     * @return the packed position at the given index
+     */
+    public long get(int index) {
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of bounds for size " + size);
+        }
+        return positions[index];
+    }
+
+    public int x(int index) {
+
+        return unpackX(get(index));
+    }
+
+    public int y(int index) {
+
+        return unpackY(get(index));
+    }
+
+    public int z(int index) {
+
+        return unpackZ(get(index));
+    }
+
+    /**
+     * Resets the size of this buffer keeping the allocated memory for the next query.
+     *
+     * @return this buffer
+     */
+    public BlockPositions clear() {
+
+        size = 0;
+        return this;
+    }
+
+    /**
+     * @return a copy of the packed positions in this buffer
+     */
+    public long[] toArray() {
+
+        return Arrays.copyOf(positions, size);
+    }
+}
@@ -0,0 +1,139 @@
+package de.raidcraft.skills.util;
+
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The header of a compiled class file containing its name, super class and interfaces.
+ * <p>The header is read directly from the bytecode by walking the constant pool.
+ * No class is loaded or initialized while reading it.
+ * <p>All names use the internal JVM format, e.g. {@code de/raidcraft/skills/SkillFactory}.
+ */
+@Value
+@Accessors(fluent = true)
+public class ClassHeader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    /**
+     * Converts the given class into its internal JVM name.
+     *
+     * @param type the class to convert
+     * @return the internal name of the class
+     */
+    public static String internalName(Class<?> type) {
+
+        return type.getName().replace('.', '/');
+    }
+
+    /**
+     * Reads the class header from the given class file stream.
+     * <p>The stream is not closed and only read until the list of interfaces.
+     *
+     * @param stream the stream of the class file
+     * @return the header of the class
+     * @throws IOException if the stream is not a valid class file
+     */
+    public static ClassHeader read(InputStream stream) throws IOException {
+
+        DataInputStream in = new DataInputStream(stream);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a valid class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classes = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classes[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    skip(in, 2);
+                    break;
+                case 15: // MethodHandle
+                    skip(in, 3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    skip(in, 4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    skip(in, 8);
+                    // long and double constants occupy two slots
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag " + tag + " at index " + i);
+            }
+        }
+
+        int access = in.readUnsignedShort();
+        String name = utf8[classes[in.readUnsignedShort()]];
+        int superIndex = in.readUnsignedShort();
+        String superName = superIndex == 0 ? null : utf8[classes[superIndex]];
+
+        int interfaceCount = in.readUnsignedShort();
+        List<String> interfaces = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(utf8[classes[in.readUnsignedShort()]]);
+        }
+
+        return new ClassHeader(name, superName, Collections.unmodifiableList(interfaces), access);
+    }
+
+    private static void skip(DataInputStream in, int bytes) throws IOException {
+
+        if (in.skipBytes(bytes) != bytes) {
+            throw new EOFException("unexpected end of class file");
+        }
+    }
+
+    String name;
+    String superName;
+    List<String> interfaces;
+    int access;
+
+    /**
+     * @return the binary name of the class that can be passed to {@link ClassLoader#loadClass(String)}
+     */
+    public String className() {
+
+        return name.replace('/', '.');
+    }
+
+    /**
+     * @return true if the class is neither abstract nor an interface and can be instantiated
+     */
+    public boolean concrete() {
+
+        return (access & (Modifier.ABSTRACT | Modifier.INTERFACE)) == 0;
+    }
+}
@@ -0,0 +1,64 @@
+package de.raidcraft.skills.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class HashUtil {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Calculates the SHA-256 hash of the given bytes.
+     *
+     * @param bytes the bytes to hash
+     * @return the hash as lowercase hex string
+     */
+    public static String sha256(byte[] bytes) {
+
+        MessageDigest digest = sha256();
+        return toHex(digest.digest(bytes));
+    }
+
+    /**
+     * Calculates the SHA-256 hash of the remaining content of the given stream.
+     * <p>The stream is not closed.
+     *
+     * @param stream the stream to hash
+     * @return the hash as lowercase hex string
+     * @throws IOException if reading the stream failed
+     */
+    public static String sha256(InputStream stream) throws IOException {
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private HashUtil() {
+    }
+}
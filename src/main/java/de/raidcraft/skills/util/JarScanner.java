@@ -0,0 +1,268 @@
+package de.raidcraft.skills.util;
+
+import lombok.NonNull;
+import lombok.Value;
+import lombok.experimental.Accessors;
+import lombok.extern.java.Log;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * Finds all concrete classes inside jar files that implement or extend a given type.
+ * <p>The jars are scanned by reading the class file headers directly from the bytecode.
+ * No class is loaded while scanning, which means only the matching classes need to be loaded afterwards.
+ * <p>The results are cached per jar in the given cache file. A jar is only scanned again
+ * if its size and modification time changed and its content hash no longer matches.
+ * Multiple jars are scanned in parallel.
+ */
+@Log(topic = "RCSkills")
+public final class JarScanner {
+
+    private static final int CACHE_VERSION = 1;
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final File cacheFile;
+    private final String type;
+    private final ClassLoader parent;
+    private final Map<String, CachedJar> cache = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private boolean cacheLoaded = false;
+
+    /**
+     * @param cacheFile the file the scan results are stored in
+     * @param type the type all found classes must implement
+     * @param parent the class loader that is used to lookup super types that are not inside the scanned jar
+     */
+    public JarScanner(@NonNull File cacheFile, @NonNull Class<?> type, @NonNull ClassLoader parent) {
+
+        this.cacheFile = cacheFile;
+        this.type = ClassHeader.internalName(type);
+        this.parent = parent;
+    }
+
+    /**
+     * Scans the given jar files in parallel and stores the results in the cache file.
+     *
+     * @param jars the jar files to scan
+     * @return the binary class names of all matching classes per jar in the order of the given jars
+     */
+    public Map<File, List<String>> scan(@NonNull Collection<File> jars) {
+
+        loadCache();
+
+        Map<File, List<String>> scanned = jars.parallelStream()
+                .collect(Collectors.toConcurrentMap(jar -> jar, this::scanJar, (first, second) -> first));
+
+        Map<File, List<String>> result = new LinkedHashMap<>();
+        for (File jar : jars) {
+            result.put(jar, scanned.get(jar));
+        }
+
+        saveCache();
+        return result;
+    }
+
+    /**
+     * Returns the matching classes of the given jar from the cache or scans the jar if it changed.
+     *
+     * @param jar the jar file to scan
+     * @return the binary class names of all matching classes
+     */
+    List<String> scanJar(File jar) {
+
+        if (!jar.isFile()) return List.of();
+
+        String key = jar.getAbsolutePath();
+        long size = jar.length();
+        long modified = jar.lastModified();
+
+        CachedJar cached = cache.get(key);
+        if (cached != null && cached.size() == size && cached.modified() == modified) {
+            return cached.classes();
+        }
+
+        try {
+            String hash = hash(jar);
+            List<String> classes;
+            if (cached != null && cached.hash().equals(hash)) {
+                classes = cached.classes();
+            } else {
+                long start = System.nanoTime();
+                classes = findClasses(jar);
+                log.fine("scanned " + jar.getName() + " in " + (System.nanoTime() - start) / 1_000_000 + "ms and found " + classes.size() + " matching classes");
+            }
+            cache.put(key, new CachedJar(key, size, modified, hash, classes));
+            dirty.set(true);
+            return classes;
+        } catch (IOException e) {
+            log.severe("unable to scan jar file " + jar.getAbsolutePath() + ": " + e.getMessage());
+            e.printStackTrace();
+            return List.of();
+        }
+    }
+
+    private List<String> findClasses(File jar) throws IOException {
+
+        Map<String, ClassHeader> headers = new HashMap<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(CLASS_SUFFIX)
+                        || name.startsWith("META-INF/") || name.endsWith("module-info.class")) {
+                    continue;
+                }
+
+                try (InputStream stream = jarFile.getInputStream(entry)) {
+                    ClassHeader header = ClassHeader.read(stream);
+                    headers.put(header.name(), header);
+                } catch (IOException e) {
+                    log.warning("unable to read class header of " + name + " in " + jar.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        Map<String, Boolean> matches = new HashMap<>();
+        return headers.values().stream()
+                .filter(ClassHeader::concrete)
+                .filter(header -> isSubtype(header.name(), headers, matches))
+                .map(ClassHeader::className)
+                .sorted()
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    private boolean isSubtype(String name, Map<String, ClassHeader> headers, Map<String, Boolean> matches) {
+
+        if (name == null) return false;
+        if (name.equals(type)) return true;
+        // types of the JDK can never implement our own types
+        if (name.startsWith("java/") || name.startsWith("javax/")) return false;
+
+        Boolean match = matches.get(name);
+        if (match != null) return match;
+
+        ClassHeader header = headers.get(name);
+        if (header == null) {
+            header = readFromParent(name);
+        }
+
+        boolean result = false;
+        if (header != null) {
+            result = isSubtype(header.superName(), headers, matches);
+            for (String anInterface : header.interfaces()) {
+                if (result) break;
+                result = isSubtype(anInterface, headers, matches);
+            }
+        }
+
+        matches.put(name, result);
+        return result;
+    }
+
+    private ClassHeader readFromParent(String name) {
+
+        try (InputStream stream = parent.getResourceAsStream(name + CLASS_SUFFIX)) {
+            if (stream == null) return null;
+            return ClassHeader.read(stream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String hash(File jar) throws IOException {
+
+        try (InputStream stream = Files.newInputStream(jar.toPath())) {
+            return HashUtil.sha256(stream);
+        }
+    }
+
+    private void loadCache() {
+
+        if (cacheLoaded) return;
+        cacheLoaded = true;
+
+        if (!cacheFile.exists()) return;
+
+        YamlConfiguration config = YamlConfiguration.loadConfiguration(cacheFile);
+        if (config.getInt("version") != CACHE_VERSION || !type.equals(config.getString("type"))) return;
+
+        for (Map<?, ?> jar : config.getMapList("jars")) {
+            try {
+                CachedJar cached = CachedJar.of(jar);
+                if (new File(cached.path()).exists()) {
+                    cache.put(cached.path(), cached);
+                }
+            } catch (ClassCastException | NullPointerException e) {
+                log.warning("ignoring invalid jar cache entry " + jar + " in " + cacheFile.getName());
+            }
+        }
+    }
+
+    private void saveCache() {
+
+        if (!dirty.getAndSet(false)) return;
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("version", CACHE_VERSION);
+        config.set("type", type);
+        config.set("jars", cache.values().stream()
+                .sorted(Comparator.comparing(CachedJar::path))
+                .map(CachedJar::serialize)
+                .collect(Collectors.toList()));
+
+        try {
+            cacheFile.getParentFile().mkdirs();
+            config.save(cacheFile);
+        } catch (IOException e) {
+            log.warning("unable to save jar scan cache to " + cacheFile.getAbsolutePath() + ": " + e.getMessage());
+        }
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    static class CachedJar {
+
+        static CachedJar of(Map<?, ?> map) {
+
+            List<String> classes = ((List<?>) map.get("classes")).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.toUnmodifiableList());
+
+            return new CachedJar(
+                    (String) Objects.requireNonNull(map.get("path")),
+                    ((Number) map.get("size")).longValue(),
+                    ((Number) map.get("modified")).longValue(),
+                    (String) Objects.requireNonNull(map.get("hash")),
+                    classes
+            );
+        }
+
+        String path;
+        long size;
+        long modified;
+        String hash;
+        List<String> classes;
+
+        Map<String, Object> serialize() {
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("path", path);
+            map.put("size", size);
+            map.put("modified", modified);
+            map.put("hash", hash);
+            map.put("classes", new ArrayList<>(classes));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package de.raidcraft.skills.util;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.configuration.MemorySection;
+
+import java.util.Map;
+
+/**
+ * A memory configuration that cannot be modified after it was created.
+ * <p>All sections of the configuration are read only as well. Any attempt to set a value
+ * or to create a section will throw an {@link UnsupportedOperationException}.
+ * <p>Use it to share parsed configs between multiple readers without copying them.
+ */
+public final class ReadOnlyConfiguration extends MemoryConfiguration {
+
+    /**
+     * Creates a new read only configuration from the given flat map of config paths and values.
+     * <p>The given sections are created if they do not exist, so that they can be retrieved
+     * with {@link #getConfigurationSection(String)} without modifying the config.
+     *
+     * @param values the config values keyed by their full path
+     * @param sections the sections that should always exist in the config
+     * @return the read only configuration
+     */
+    public static ReadOnlyConfiguration of(Map<String, Object> values, String... sections) {
+
+        ReadOnlyConfiguration config = new ReadOnlyConfiguration();
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            config.set(entry.getKey(), entry.getValue());
+        }
+        for (String section : sections) {
+            if (!config.isConfigurationSection(section)) {
+                config.createSection(section);
+            }
+        }
+        config.locked = true;
+        return config;
+    }
+
+    private boolean locked;
+
+    private ReadOnlyConfiguration() {
+    }
+
+    @Override
+    public void set(String path, Object value) {
+
+        checkWritable(this);
+        super.set(path, value);
+    }
+
+    @Override
+    public ConfigurationSection createSection(String path) {
+
+        checkWritable(this);
+        return createSection(this, map, path);
+    }
+
+    @Override
+    public void addDefault(String path, Object value) {
+
+        checkWritable(this);
+        super.addDefault(path, value);
+    }
+
+    @Override
+    public void addDefaults(Map<String, Object> defaults) {
+
+        checkWritable(this);
+        super.addDefaults(defaults);
+    }
+
+    @Override
+    public void addDefaults(Configuration defaults) {
+
+        checkWritable(this);
+        super.addDefaults(defaults);
+    }
+
+    @Override
+    public void setDefaults(Configuration defaults) {
+
+        checkWritable(this);
+        super.setDefaults(defaults);
+    }
+
+    private static void checkWritable(ConfigurationSection section) {
+
+        Configuration root = section.getRoot();
+        if (root instanceof ReadOnlyConfiguration && ((ReadOnlyConfiguration) root).locked) {
+            throw new UnsupportedOperationException("the configuration is read only");
+        }
+    }
+
+    private static ConfigurationSection createSection(MemorySection section, Map<String, Object> map, String path) {
+
+        int index = path.indexOf(section.getRoot().options().pathSeparator());
+        if (index != -1) {
+            String node = path.substring(0, index);
+            ConfigurationSection parent = section.getConfigurationSection(node);
+            if (parent == null) {
+                parent = section.createSection(node);
+            }
+            return parent.createSection(path.substring(index + 1));
+        }
+
+        Section result = new Section(section, path);
+        map.put(path, result);
+        return result;
+    }
+
+    private static final class Section extends MemorySection {
+
+        private Section(ConfigurationSection parent, String path) {
+            super(parent, path);
+        }
+
+        @Override
+        public void set(String path, Object value) {
+
+            checkWritable(this);
+            super.set(path, value);
+        }
+
+        @Override
+        public ConfigurationSection createSection(String path) {
+
+            checkWritable(this);
+            return ReadOnlyConfiguration.createSection(this, map, path);
+        }
+    }
+}
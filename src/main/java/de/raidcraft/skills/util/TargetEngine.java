@@ -0,0 +1,189 @@
+package de.raidcraft.skills.util;
+
+import lombok.NonNull;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+
+/**
+ * Finds the entity a living entity is looking at by casting a ray from its eyes.
+ * <p>Only entities inside the loaded chunks along the view ray are considered, instead of every
+ * entity in the world. Each candidate is tested with a ray and axis aligned bounding box
+ * intersection and the nearest hit inside the range is returned.
+ * <p>The engine works on primitive doubles and reuses its scratch locations. This means an instance
+ * must never be shared between threads. Use {@link #get()} to obtain the engine of the current thread.
+ * <br><pre>{@code
+ * Player target = TargetEngine.get().nearest(player, Player.class, context.config().range());
+ * }</pre>
+ */
+public final class TargetEngine {
+
+    private static final ThreadLocal<TargetEngine> ENGINE = ThreadLocal.withInitial(TargetEngine::new);
+
+    // the distance from the center of a chunk to its corner
+    // plus the margin a large hitbox can reach into the neighbouring chunk
+    private static final double CHUNK_REACH = 8 * Math.sqrt(2) + 4;
+    private static final double CHUNK_REACH_SQUARED = CHUNK_REACH * CHUNK_REACH;
+
+    /**
+     * @return the target engine of the current thread
+     */
+    public static TargetEngine get() {
+
+        return ENGINE.get();
+    }
+
+    private final Location origin = new Location(null, 0, 0, 0);
+    private final Location position = new Location(null, 0, 0, 0);
+
+    private double originX;
+    private double originY;
+    private double originZ;
+    private double dirX;
+    private double dirY;
+    private double dirZ;
+    private double range;
+
+    private double near;
+    private double far;
+
+    TargetEngine() {
+    }
+
+    /**
+     * Finds the nearest entity of the given type the source is looking at.
+     *
+     * @param source the entity that is looking for a target
+     * @param targetClass the type of the target
+     * @param range the maximum distance in blocks from the eyes of the source
+     * @param <TTarget> the type of the target
+     * @return the nearest entity that is hit by the view ray or null if nothing is hit
+     */
+    public <TTarget extends Entity> TTarget nearest(@NonNull LivingEntity source, @NonNull Class<TTarget> targetClass, double range) {
+
+        if (range <= 0) return null;
+
+        World world = source.getWorld();
+        setupRay(source, range);
+
+        double endX = originX + dirX * range;
+        double endZ = originZ + dirZ * range;
+
+        int minChunkX = floor(Math.min(originX, endX) - CHUNK_REACH - 8) >> 4;
+        int maxChunkX = floor(Math.max(originX, endX) + CHUNK_REACH - 8) >> 4;
+        int minChunkZ = floor(Math.min(originZ, endZ) - CHUNK_REACH - 8) >> 4;
+        int maxChunkZ = floor(Math.max(originZ, endZ) + CHUNK_REACH - 8) >> 4;
+
+        TTarget target = null;
+        double nearest = Double.MAX_VALUE;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (!isChunkNearRay(chunkX, chunkZ, endX, endZ)) continue;
+                if (!world.isChunkLoaded(chunkX, chunkZ)) continue;
+
+                for (Entity entity : world.getChunkAt(chunkX, chunkZ).getEntities()) {
+                    if (entity == source || !targetClass.isInstance(entity)) continue;
+
+                    double distance = intersect(entity);
+                    if (distance >= 0 && distance < nearest) {
+                        nearest = distance;
+                        target = targetClass.cast(entity);
+                    }
+                }
+            }
+        }
+
+        return target;
+    }
+
+    private void setupRay(LivingEntity source, double range) {
+
+        source.getLocation(origin);
+
+        double yaw = Math.toRadians(origin.getYaw());
+        double pitch = Math.toRadians(origin.getPitch());
+        double xz = Math.cos(pitch);
+
+        this.originX = origin.getX();
+        this.originY = origin.getY() + source.getEyeHeight();
+        this.originZ = origin.getZ();
+        this.dirX = -xz * Math.sin(yaw);
+        this.dirY = -Math.sin(pitch);
+        this.dirZ = xz * Math.cos(yaw);
+        this.range = range;
+    }
+
+    /**
+     * Checks if the center of the given chunk is close enough to the ray (projected on the xz plane)
+     * that an entity inside the chunk could be hit.
+     */
+    private boolean isChunkNearRay(int chunkX, int chunkZ, double endX, double endZ) {
+
+        double centerX = (chunkX << 4) + 8;
+        double centerZ = (chunkZ << 4) + 8;
+
+        double segmentX = endX - originX;
+        double segmentZ = endZ - originZ;
+        double lengthSquared = segmentX * segmentX + segmentZ * segmentZ;
+
+        double t = 0;
+        if (lengthSquared > 0) {
+            t = ((centerX - originX) * segmentX + (centerZ - originZ) * segmentZ) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+        }
+
+        double dx = originX + segmentX * t - centerX;
+        double dz = originZ + segmentZ * t - centerZ;
+
+        return dx * dx + dz * dz <= CHUNK_REACH_SQUARED;
+    }
+
+    /**
+     * Intersects the ray with the bounding box of the given entity using the slab method.
+     *
+     * @return the distance from the eyes to the hitbox or -1 if the ray misses the entity
+     */
+    private double intersect(Entity entity) {
+
+        entity.getLocation(position);
+        double halfWidth = entity.getWidth() / 2;
+
+        near = 0;
+        far = range;
+
+        if (!slab(originX, dirX, position.getX() - halfWidth, position.getX() + halfWidth)) return -1;
+        if (!slab(originY, dirY, position.getY(), position.getY() + entity.getHeight())) return -1;
+        if (!slab(originZ, dirZ, position.getZ() - halfWidth, position.getZ() + halfWidth)) return -1;
+
+        return near;
+    }
+
+    private boolean slab(double start, double direction, double min, double max) {
+
+        if (direction == 0) {
+            return start >= min && start <= max;
+        }
+
+        double inverse = 1 / direction;
+        double t1 = (min - start) * inverse;
+        double t2 = (max - start) * inverse;
+        if (t1 > t2) {
+            double swap = t1;
+            t1 = t2;
+            t2 = swap;
+        }
+
+        if (t1 > near) near = t1;
+        if (t2 < far) far = t2;
+
+        return near <= far;
+    }
+
+    private static int floor(double value) {
+
+        int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+}
@@ -1,5 +1,7 @@
 package de.raidcraft.skills.util;
 
+import de.raidcraft.skills.ExecutionConfig;
+import org.bukkit.Location;
 import org.bukkit.entity.Creature;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
@@ -14,26 +16,48 @@ public class TargetUtil {
 
     public static Player getTargetPlayer(final Player player) {
 
-        return getTarget(player, player.getWorld().getPlayers());
+        return getTargetPlayer(player, ExecutionConfig.DEFAULT_RANGE);
+    }
+
+    public static Player getTargetPlayer(final Player player, int range) {
+
+        return getTarget(player, Player.class, range);
     }
 
     public static LivingEntity getTargetEntity(final LivingEntity entity, final Class<? extends LivingEntity> type) {
 
+        return getTargetEntity(entity, type, ExecutionConfig.DEFAULT_RANGE);
+    }
+
+    public static LivingEntity getTargetEntity(final LivingEntity entity, final Class<? extends LivingEntity> type, int range) {
+
         if (entity instanceof Creature) {
             return ((Creature) entity).getTarget();
         }
-        return getTarget(entity, entity.getWorld().getEntitiesByClass(type));
+        return getTarget(entity, type, range);
     }
 
+    /**
+     * Gets the nearest entity of the given type the source is looking at.
+     * <p>Only the chunks along the view ray of the source are searched.
+     *
+     * @see TargetEngine#nearest(LivingEntity, Class, double)
+     */
     public static <T extends LivingEntity> T getTarget(final LivingEntity source, Class<T> targetClass, int range) {
 
-        return getTarget(source, getNearbyEntities(source, range).stream()
-                .filter(targetClass::isInstance)
-                .map(targetClass::cast)
-                .collect(Collectors.toSet())
-        );
+        return TargetEngine.get().nearest(source, targetClass, range);
     }
 
+    /**
+     * Searches the given entities for the entity the source is looking at.
+     * <p>Prefer {@link #getTarget(LivingEntity, Class, int)} which only looks at the entities
+     * along the view ray instead of iterating over every given entity.
+     *
+     * @param source the entity that is looking for a target
+     * @param entities all entities that should be checked
+     * @param <T> the type of the target
+     * @return the nearest target or null
+     */
     public static <T extends LivingEntity> T getTarget(final LivingEntity source, final Iterable<T> entities) {
 
         T target = null;
@@ -71,12 +95,9 @@ public class TargetUtil {
 
     public static List<LivingEntity> getLivingEntitiesInCone(LivingEntity source, float radius, float degrees) {
 
-        return getEntitiesInCone(
-                getNearbyEntities(source, (int) radius),
-                source.getLocation().toVector(),
-                radius,
-                degrees,
-                source.getEyeLocation().toVector());
+        List<LivingEntity> entities = new ArrayList<>();
+        AreaQuery.get().entitiesInCone(source, radius, degrees, LivingEntity.class, entities::add);
+        return entities;
     }
 
 
@@ -88,24 +109,30 @@ public class TargetUtil {
      * @param direction direction of the cone
      *
      * @return All entities inside the cone
+     * @see AreaQuery#entitiesInCone(LivingEntity, double, double, Class, java.util.function.Consumer)
      */
     public static List<LivingEntity> getEntitiesInCone(List<LivingEntity> entities, Vector startPos, float radius, float degrees, Vector direction) {
 
         // Returned list
         List<LivingEntity> newEntities = new ArrayList<>();
-        // We don't want to use square root
+        // We don't want to use square root or acos
         float squaredRadius = radius * radius;
-
-        for (Entity entity : entities) {
-            Vector relativePosition = entity.getLocation().toVector();
+        double cos = Math.cos(Math.toRadians(degrees));
+        double length = direction.length();
+        double axisX = direction.getX() / length;
+        double axisY = direction.getY() / length;
+        double axisZ = direction.getZ() / length;
+
+        for (LivingEntity entity : entities) {
+            Location location = entity.getLocation();
             // Position of the entity relative to the cone origin
-            relativePosition.subtract(startPos);
-            // First check : distance
-            if (relativePosition.lengthSquared() > squaredRadius) continue;
-            // Second check : angle
-            if (getAngleBetweenVectors(direction, relativePosition) > degrees) continue;
-            if (entity instanceof LivingEntity) {
-                newEntities.add((LivingEntity) entity);
+            if (AreaQuery.inCone(
+                    location.getX() - startPos.getX(),
+                    location.getY() - startPos.getY(),
+                    location.getZ() - startPos.getZ(),
+                    axisX, axisY, axisZ,
+                    squaredRadius, cos)) {
+                newEntities.add(entity);
             }
         }
         return newEntities;
@@ -118,23 +145,29 @@ public class TargetUtil {
      * @param direction direction of the cone
      *
      * @return All block positions inside the cone
+     * @see AreaQuery#blocksInCone(double, double, double, double, double, double, double, double, AreaQuery.BlockVisitor)
      */
     public static List<Vector> getPositionsInCone(Vector startPos, float radius, float degrees, Vector direction) {
 
         // Returned list
         List<Vector> positions = new ArrayList<>();
-        // We don't want to use square root
+        // We don't want to use square root or acos
         float squaredRadius = radius * radius;
+        double cos = Math.cos(Math.toRadians(degrees));
+        double length = direction.length();
+        double axisX = direction.getX() / length;
+        double axisY = direction.getY() / length;
+        double axisZ = direction.getZ() / length;
 
         for (float x = startPos.getBlockX() - radius; x < startPos.getBlockX() + radius; x++) {
             for (float y = startPos.getBlockY() - radius; y < startPos.getBlockY() + radius; y++) {
                 for (float z = startPos.getBlockZ() - radius; z < startPos.getBlockZ() + radius; z++) {
-                    Vector relative = new Vector(x, y, z);
-                    relative.subtract(startPos);
-                    // First check : distance
-                    if (relative.lengthSquared() > squaredRadius) continue;
-                    // Second check : angle
-                    if (getAngleBetweenVectors(direction, relative) > degrees) continue;
+                    if (!AreaQuery.inCone(
+                            x - startPos.getX(),
+                            y - startPos.getY(),
+                            z - startPos.getZ(),
+                            axisX, axisY, axisZ,
+                            squaredRadius, cos)) continue;
                     // The position v is in the cone
                     positions.add(new Vector(x, y, z));
                 }
@@ -0,0 +1,6 @@
+-- apply changes
+create index ix_rcs_skills_enabled_auto_unlock_level on rcs_skills (enabled,auto_unlock,level);
+create index ix_rcs_player_skills_player_id_status_parent_id on rcs_player_skills (player_id,status,parent_id);
+create index ix_rcs_skill_slots_skill_id on rcs_skill_slots (skill_id);
+create index ix_rcs_player_bindings_player_id_material_action on rcs_player_bindings (player_id,material,action);
+
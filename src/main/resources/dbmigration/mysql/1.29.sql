@@ -0,0 +1,27 @@
+-- apply changes
+create table rcs_level_history_aggregates (
+  id                            varchar(40) not null,
+  player_id                     varchar(40),
+  reason                        varchar(255),
+  period                        varchar(4),
+  period_start                  datetime(6),
+  exp                           bigint not null,
+  changes                       integer not null,
+  level                         integer not null,
+  version                       bigint not null,
+  when_created                  datetime(6) not null,
+  when_modified                 datetime(6) not null,
+  constraint pk_rcs_level_history_aggregates primary key (id)
+);
+
+alter table rcs_level_history add column player_id varchar(40);
+alter table rcs_level_history add column reason varchar(255);
+alter table rcs_level_history add column exp bigint default 0 not null;
+
+update rcs_level_history set exp = new_exp - old_exp;
+update rcs_level_history set player_id = (select p.id from rcs_players p where p.level_id = rcs_level_history.level_id);
+
+create index ix_rcs_level_history_player_id_when_created on rcs_level_history (player_id,when_created);
+create index ix_rcs_level_history_reason_when_created on rcs_level_history (reason,when_created);
+create index ix_rcs_level_history_aggregates_player_id_period_start on rcs_level_history_aggregates (player_id,period_start);
+create index ix_rcs_level_history_aggregates_reason_period_start on rcs_level_history_aggregates (reason,period_start);
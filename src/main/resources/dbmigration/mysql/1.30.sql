@@ -0,0 +1,15 @@
+-- apply changes
+create table rcs_bulk_checkpoints (
+  id                            varchar(40) not null,
+  operation                     varchar(255),
+  last_id                       varchar(40),
+  applied                       integer not null,
+  skipped                       integer not null,
+  failed                        integer not null,
+  version                       bigint not null,
+  when_created                  datetime(6) not null,
+  when_modified                 datetime(6) not null,
+  constraint uq_rcs_bulk_checkpoints_operation unique (operation),
+  constraint pk_rcs_bulk_checkpoints primary key (id)
+);
+
@@ -0,0 +1,28 @@
+-- apply changes
+create table rcs_level_history_aggregates (
+  id                            varchar(40) not null,
+  player_id                     varchar(40),
+  reason                        varchar(255),
+  period                        varchar(4),
+  period_start                  timestamp,
+  exp                           integer not null,
+  changes                       integer not null,
+  level                         integer not null,
+  version                       integer not null,
+  when_created                  timestamp not null,
+  when_modified                 timestamp not null,
+  constraint ck_rcs_level_history_aggregates_period check ( period in ('HOUR','DAY')),
+  constraint pk_rcs_level_history_aggregates primary key (id)
+);
+
+alter table rcs_level_history add column player_id varchar(40);
+alter table rcs_level_history add column reason varchar(255);
+alter table rcs_level_history add column exp integer default 0 not null;
+
+update rcs_level_history set exp = new_exp - old_exp;
+update rcs_level_history set player_id = (select p.id from rcs_players p where p.level_id = rcs_level_history.level_id);
+
+create index ix_rcs_level_history_player_id_when_created on rcs_level_history (player_id,when_created);
+create index ix_rcs_level_history_reason_when_created on rcs_level_history (reason,when_created);
+create index ix_rcs_level_history_aggregates_player_id_period_start on rcs_level_history_aggregates (player_id,period_start);
+create index ix_rcs_level_history_aggregates_reason_period_start on rcs_level_history_aggregates (reason,period_start);
@@ -0,0 +1,124 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CastPipelineTest {
+
+    private ServerMock server;
+    private RCSkills plugin;
+    private SkilledPlayer player;
+    private final List<ExecutionResult> results = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(RCSkills.class);
+        plugin.getSkillManager().registerSkill(DefaultSkillContextTest.TestSkill.class, DefaultSkillContextTest.TestSkill::new);
+        player = SkilledPlayer.getOrCreate(server.addPlayer());
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should execute the children together with their delayed parent")
+    void shouldExecuteChildrenAfterParentDelay() {
+
+        PlayerSkill skill = addSkillWithChildren(config -> config.set("execution.delay", "5"));
+
+        skill.execute(results::add);
+
+        assertThat(results).extracting(ExecutionResult::status)
+                .containsExactly(ExecutionResult.Status.DELAYED);
+
+        server.getScheduler().performTicks(5L);
+
+        assertThat(results).extracting(ExecutionResult::status)
+                .containsExactly(
+                        ExecutionResult.Status.DELAYED,
+                        ExecutionResult.Status.SUCCESS,
+                        ExecutionResult.Status.SUCCESS,
+                        ExecutionResult.Status.SUCCESS
+                );
+    }
+
+    @Test
+    @DisplayName("should not queue the children behind their parent if a global cooldown is configured")
+    void shouldNotQueueChildrenOnGlobalCooldown() {
+
+        plugin.getPluginConfig().setGlobalCooldown(20);
+        PlayerSkill skill = addSkillWithChildren(config -> {});
+
+        skill.execute(results::add);
+
+        assertThat(results).extracting(ExecutionResult::status)
+                .containsExactly(
+                        ExecutionResult.Status.SUCCESS,
+                        ExecutionResult.Status.SUCCESS,
+                        ExecutionResult.Status.SUCCESS
+                );
+        assertThat(plugin.getSkillManager().castPipeline().casting(player.id())).isFalse();
+    }
+
+    @Test
+    @DisplayName("should not take rate limit tokens for the children")
+    void shouldNotRateLimitChildren() {
+
+        PlayerSkill skill = addSkillWithChildren(config -> {
+            config.set("skills.child-a.execution.rate-limit", 0.1);
+            config.set("skills.child-b.execution.rate-limit", 0.1);
+        });
+
+        skill.execute(results::add);
+        skill.execute(results::add);
+
+        assertThat(results).extracting(ExecutionResult::status)
+                .containsOnly(ExecutionResult.Status.SUCCESS)
+                .hasSize(6);
+        assertThat(plugin.getSkillManager().castRateLimiter().rejections(player.id())).isZero();
+    }
+
+    private PlayerSkill addSkillWithChildren(Consumer<MemoryConfiguration> config) {
+
+        String alias = "cast-" + UUID.randomUUID();
+        MemoryConfiguration cfg = new MemoryConfiguration();
+        cfg.set("type", "test");
+        cfg.set("name", alias);
+        cfg.set("auto-unlock", true);
+        cfg.set("no-skill-slot", true);
+        for (String child : List.of("child-a", "child-b")) {
+            cfg.set("skills." + child + ".name", alias + "-" + child);
+            cfg.set("skills." + child + ".auto-unlock", true);
+            cfg.set("skills." + child + ".no-skill-slot", true);
+        }
+        config.accept(cfg);
+        plugin.getSkillManager().loadSkill(alias, cfg);
+
+        ConfiguredSkill skill = ConfiguredSkill.findByAliasOrName(alias).orElseThrow();
+        PlayerSkill playerSkill = player.addSkill(skill).playerSkill();
+        assertThat(playerSkill.children())
+                .hasSize(2)
+                .allMatch(PlayerSkill::active);
+        return playerSkill;
+    }
+}
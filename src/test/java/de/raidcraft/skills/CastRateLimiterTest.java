@@ -0,0 +1,136 @@
+package de.raidcraft.skills;
+
+import org.assertj.core.groups.Tuple;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CastRateLimiterTest {
+
+    private SkillPluginConfig.CastRateLimitConfig config;
+    private CastRateLimiter rateLimiter;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+
+        this.config = new SkillPluginConfig.CastRateLimitConfig();
+        config.setCapacity(2);
+        config.setRefillPerSecond(1);
+        this.now = 0;
+        this.rateLimiter = new CastRateLimiter(config, () -> now);
+    }
+
+    @Test
+    @DisplayName("should reject casts after the capacity is used up")
+    void shouldRejectCastsAboveCapacity() {
+
+        UUID playerId = UUID.randomUUID();
+
+        assertThat(rateLimiter.tryAcquire(playerId)).isTrue();
+        assertThat(rateLimiter.tryAcquire(playerId)).isTrue();
+        assertThat(rateLimiter.tryAcquire(playerId)).isFalse();
+        assertThat(rateLimiter.tryAcquire(UUID.randomUUID())).isTrue();
+    }
+
+    @Test
+    @DisplayName("should refill the bucket over time")
+    void shouldRefillBucket() {
+
+        UUID playerId = UUID.randomUUID();
+        rateLimiter.tryAcquire(playerId);
+        rateLimiter.tryAcquire(playerId);
+
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        assertThat(rateLimiter.tryAcquire(playerId)).isFalse();
+
+        now += TimeUnit.MILLISECONDS.toNanos(500);
+        assertThat(rateLimiter.tryAcquire(playerId)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should count the rejections per player")
+    void shouldCountRejections() {
+
+        UUID playerId = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire(playerId);
+        }
+
+        assertThat(rateLimiter.rejections(playerId)).isEqualTo(3);
+        assertThat(rateLimiter.totalRejections()).isEqualTo(3);
+        assertThat(rateLimiter.topRejections(10))
+                .extracting(CastRateLimiter.Rejections::playerId, CastRateLimiter.Rejections::count)
+                .containsExactly(Tuple.tuple(playerId, 3L));
+
+        rateLimiter.remove(playerId);
+        assertThat(rateLimiter.rejections(playerId)).isEqualTo(3);
+
+        rateLimiter.resetRejections();
+        assertThat(rateLimiter.totalRejections()).isZero();
+    }
+
+    @Test
+    @DisplayName("should limit casts of a skill with its own rate limit")
+    void shouldLimitSkillCasts() {
+
+        UUID playerId = UUID.randomUUID();
+        SkillContext limited = skill(playerId, 1, 2);
+        SkillContext other = skill(playerId, 1, 2);
+
+        assertThat(rateLimiter.tryAcquire(limited)).isTrue();
+        assertThat(rateLimiter.tryAcquire(limited)).isTrue();
+        assertThat(rateLimiter.tryAcquire(limited)).isFalse();
+        assertThat(rateLimiter.tryAcquire(other)).isTrue();
+        assertThat(rateLimiter.rejections(playerId)).isEqualTo(1);
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        assertThat(rateLimiter.tryAcquire(limited)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should not limit casts of a skill without a rate limit")
+    void shouldNotLimitSkillWithoutRateLimit() {
+
+        SkillContext skill = skill(UUID.randomUUID(), 0, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire(skill)).isTrue();
+        }
+        assertThat(rateLimiter.totalRejections()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not limit casts if disabled")
+    void shouldNotLimitIfDisabled() {
+
+        config.setEnabled(false);
+        UUID playerId = UUID.randomUUID();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.tryAcquire(playerId)).isTrue();
+        }
+        assertThat(rateLimiter.totalRejections()).isZero();
+    }
+
+    private SkillContext skill(UUID playerId, double rateLimit, int burst) {
+
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set(CastRateLimiter.RATE_LIMIT.key(), rateLimit);
+        config.set(CastRateLimiter.RATE_LIMIT_BURST.key(), burst);
+
+        SkillContext context = mock(SkillContext.class);
+        when(context.playerId()).thenReturn(playerId);
+        when(context.configuredSkillId()).thenReturn(UUID.randomUUID());
+        when(context.executionConfig()).thenReturn(ExecutionConfig.builder().config(config).build());
+        return context;
+    }
+}
@@ -0,0 +1,118 @@
+package de.raidcraft.skills;
+
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigKeyTest {
+
+    private static final ConfigKey<Integer> AMOUNT = ConfigKey.ofInt("amount", 5);
+    private static final ConfigKey<Double> DAMAGE = ConfigKey.ofDouble("damage", 1.5);
+    private static final ConfigKey<Long> DURATION = ConfigKey.ofMillis("duration", "10s");
+    private static final ConfigKey<List<String>> TARGETS = ConfigKey.ofStringList("targets", List.of());
+
+    private MemoryConfiguration config;
+
+    @BeforeEach
+    void setUp() {
+
+        this.config = new MemoryConfiguration();
+    }
+
+    @Test
+    @DisplayName("should return the default value if the key is not set")
+    void shouldReturnDefaultIfNotSet() {
+
+        ExecutionConfig executionConfig = new ExecutionConfig(config);
+
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(5);
+        assertThat(executionConfig.get(DURATION)).isEqualTo(10000L);
+    }
+
+    @Test
+    @DisplayName("should convert the configured values")
+    void shouldConvertConfiguredValues() {
+
+        config.set("amount", 10L);
+        config.set("damage", 2);
+        config.set("duration", "1s");
+        config.set("targets", List.of("foo", 1));
+
+        ExecutionConfig executionConfig = new ExecutionConfig(config);
+
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(10);
+        assertThat(executionConfig.get(DAMAGE)).isEqualTo(2.0);
+        assertThat(executionConfig.get(DURATION)).isEqualTo(1000L);
+        assertThat(executionConfig.get(TARGETS)).containsExactly("foo", "1");
+    }
+
+    @Test
+    @DisplayName("should return the default value if the value has the wrong type")
+    void shouldReturnDefaultForInvalidTypes() {
+
+        config.set("amount", "foobar");
+
+        assertThat(new ExecutionConfig(config).get(AMOUNT)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("should only resolve the value once")
+    void shouldCacheResolvedValues() {
+
+        config.set("amount", 10);
+        ExecutionConfig executionConfig = new ExecutionConfig(config).resolve(List.of(AMOUNT));
+
+        config.set("amount", 20);
+
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("should resolve the values of a config created by the builder")
+    void shouldResolveBuiltConfig() {
+
+        config.set("amount", 10);
+        ExecutionConfig executionConfig = ExecutionConfig.builder()
+                .config(config)
+                .range(10)
+                .build();
+
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(10);
+        assertThat(executionConfig.range()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("should reuse the slot of keys with the same name")
+    void shouldReuseSlotOfSameName() {
+
+        ConfigKey<Integer> amount = ConfigKey.ofInt("amount", 5);
+
+        assertThat(amount.slot()).isEqualTo(AMOUNT.slot());
+        assertThat(ConfigKey.ofInt("other-amount", 5).slot()).isNotEqualTo(AMOUNT.slot());
+    }
+
+    @Test
+    @DisplayName("should not return the value of another key with the same name")
+    void shouldResolveKeysWithSameSlot() {
+
+        ConfigKey<String> amount = ConfigKey.ofString("amount", "none");
+        ExecutionConfig executionConfig = new ExecutionConfig(config);
+
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(5);
+        assertThat(executionConfig.get(amount)).isEqualTo("none");
+        assertThat(executionConfig.get(AMOUNT)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("should find all keys declared in a class")
+    void shouldFindDeclaredKeys() {
+
+        assertThat(ConfigKey.declaredBy(ConfigKeyTest.class))
+                .containsExactlyInAnyOrder(AMOUNT, DAMAGE, DURATION, TARGETS);
+    }
+}
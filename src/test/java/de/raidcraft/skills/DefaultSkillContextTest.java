@@ -6,6 +6,7 @@ import be.seeseemelk.mockbukkit.scheduler.BukkitSchedulerMock;
 import de.raidcraft.skills.entities.ConfiguredSkill;
 import de.raidcraft.skills.entities.PlayerSkill;
 import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.Histogram;
 import de.raidcraft.skills.util.RandomString;
 import lombok.SneakyThrows;
 import mockit.Mock;
@@ -21,6 +22,7 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -137,6 +139,42 @@ class DefaultSkillContextTest {
         verify(skillContext.get(), times(1)).remove();
     }
 
+    @Test
+    @DisplayName("should enable the new context of an active skill when the player is reloaded")
+    void shouldEnableNewContextOnReload() {
+
+        PlayerSkill playerSkill = loadAndAdd();
+        SkillContext oldContext = plugin.getSkillManager().loadSkill(playerSkill);
+
+        plugin.getSkillManager().reloadPlayer(playerMock.getUniqueId());
+
+        SkillContext newContext = plugin.getSkillManager().loadSkill(playerSkill);
+        assertThat(newContext).isNotSameAs(oldContext);
+        assertThat(((DefaultSkillContext) newContext).attached()).isTrue();
+        assertThat(((DefaultSkillContext) oldContext).attached()).isFalse();
+        verify(newContext.get(), times(1)).apply();
+        verify(oldContext.get(), times(1)).remove();
+    }
+
+    @Test
+    @DisplayName("should load the changed config into the context of an active skill")
+    void shouldReloadActiveContextWithChangedConfig() {
+
+        plugin.getSkillManager().registerSkill(ConfigSkill.class, ConfigSkill::new);
+        config.set("with.value", "old");
+        PlayerSkill playerSkill = loadAndAdd(skill -> skill.type("config-test"));
+        SkillContext context = plugin.getSkillManager().loadSkill(playerSkill);
+        assertThat(context.get()).extracting("value").isEqualTo("old");
+
+        config.set("with.value", "new");
+        configuredSkill.load(config).save();
+        plugin.getSkillManager().reloadPlayerSkills(Set.of(configuredSkill.id()));
+
+        assertThat(plugin.getSkillManager().loadSkill(playerSkill)).isSameAs(context);
+        assertThat(context.get()).extracting("value").isEqualTo("new");
+        assertThat(((DefaultSkillContext) context).attached()).isTrue();
+    }
+
     @Nested
     @DisplayName("Executable Skill")
     class ExecutableSkill {
@@ -178,6 +216,89 @@ class DefaultSkillContextTest {
             verify((Executable) skillContext.get(), times(1)).execute(any());
         }
 
+        @Test
+        @DisplayName("should record the execution time when the delayed skill is executed")
+        void shouldRecordExecutionTimeAfterDelay() {
+
+            config.set("execution.delay", "5");
+            SkillContext skillContext = loadContext();
+            Histogram executeTime = plugin.getMetrics().histogram("rcskills_skill_execute_seconds", "type", "test");
+            long count = executeTime.count();
+
+            skillContext.execute(executionResult -> {});
+            assertThat(executeTime.count()).isEqualTo(count);
+
+            scheduler.performTicks(5L);
+            assertThat(executeTime.count()).isEqualTo(count + 1);
+        }
+
+        @SneakyThrows
+        @Test
+        @DisplayName("should execute skill after warmup")
+        void shouldExecuteSkillAfterWarmup() {
+
+            config.set("execution.warmup", "5");
+            SkillContext skillContext = loadContext();
+
+            Consumer<ExecutionResult> callback = callback();
+            skillContext.execute(callback);
+
+            verify(callback).accept(captor.capture());
+            assertThat(captor.getValue())
+                    .extracting(ExecutionResult::status)
+                    .isEqualTo(ExecutionResult.Status.WARMUP);
+            verify((Executable) skillContext.get(), never()).execute(any());
+
+            scheduler.performTicks(5L);
+
+            verify((Executable) skillContext.get(), times(1)).execute(any());
+        }
+
+        @SneakyThrows
+        @Test
+        @DisplayName("should interrupt the warmup if the player moves")
+        void shouldInterruptWarmupIfPlayerMoves() {
+
+            config.set("execution.warmup", "5");
+            SkillContext skillContext = loadContext();
+
+            Consumer<ExecutionResult> callback = callback();
+            skillContext.execute(callback);
+            playerMock.teleport(playerMock.getLocation().add(5, 0, 0));
+
+            scheduler.performTicks(5L);
+
+            verify((Executable) skillContext.get(), never()).execute(any());
+            verify(callback, times(2)).accept(captor.capture());
+            assertThat(captor.getValue())
+                    .extracting(ExecutionResult::status)
+                    .isEqualTo(ExecutionResult.Status.FAILURE);
+        }
+
+        @SneakyThrows
+        @Test
+        @DisplayName("should queue skills while the player is casting")
+        void shouldQueueSkillsWhileCasting() {
+
+            config.set("execution.delay", "5");
+            SkillContext skillContext = loadContext();
+
+            skillContext.execute(callback());
+            Consumer<ExecutionResult> secondCallback = callback();
+            skillContext.execute(secondCallback);
+
+            verify(secondCallback).accept(captor.capture());
+            assertThat(captor.getValue())
+                    .extracting(ExecutionResult::status)
+                    .isEqualTo(ExecutionResult.Status.QUEUED);
+
+            scheduler.performTicks(5L);
+            verify((Executable) skillContext.get(), times(1)).execute(any());
+
+            scheduler.performTicks(5L);
+            verify((Executable) skillContext.get(), times(2)).execute(any());
+        }
+
         @Test
         @DisplayName("should not execute skill on cooldown")
         void shouldNotExecuteSkillThatIsOnCooldown() {
@@ -233,6 +354,119 @@ class DefaultSkillContextTest {
         }
     }
 
+    @Nested
+    @DisplayName("SharedConfig")
+    class SharedConfig {
+
+        @BeforeEach
+        void setUp() {
+
+            SharedSkill.loads = 0;
+            SharedSkill.loadedWith = null;
+            plugin.getSkillManager().registerSkill(SharedSkill.class, SharedSkill::new);
+            config.set("with.value", "foobar");
+        }
+
+        @Test
+        @DisplayName("should load the config of shared skills only once")
+        void shouldLoadSharedConfigOnce() {
+
+            ConfiguredSkill skill = load(s -> s.type("shared-test"));
+            SkilledPlayer otherPlayer = SkilledPlayer.getOrCreate(server.addPlayer());
+
+            SkillContext context = plugin.getSkillManager().loadSkill(player.addSkill(skill, true).playerSkill());
+            SkillContext otherContext = plugin.getSkillManager().loadSkill(otherPlayer.addSkill(skill, true).playerSkill());
+
+            assertThat(SharedSkill.loads).isEqualTo(1);
+            assertThat(context.get()).isNotSameAs(otherContext.get());
+            assertThat(otherContext.get())
+                    .isInstanceOf(SharedSkill.class)
+                    .extracting("value")
+                    .isEqualTo("foobar");
+        }
+
+        @Test
+        @DisplayName("should load the shared config with a context that is not bound to a player")
+        void shouldLoadSharedConfigWithoutPlayer() {
+
+            ConfiguredSkill skill = load(s -> s.type("shared-test"));
+
+            SkillContext context = plugin.getSkillManager().loadSkill(player.addSkill(skill, true).playerSkill());
+
+            assertThat(SharedSkill.loadedWith)
+                    .isInstanceOf(SharedSkillConfig.TemplateContext.class)
+                    .isNotSameAs(context);
+            assertThat(((SharedSkill) context.get()).context()).isSameAs(context);
+        }
+
+        @Test
+        @DisplayName("should load the shared config again after the skill type was registered again")
+        void shouldDropSharedConfigOnRegister() {
+
+            ConfiguredSkill skill = load(s -> s.type("shared-test"));
+            SkilledPlayer otherPlayer = SkilledPlayer.getOrCreate(server.addPlayer());
+
+            plugin.getSkillManager().loadSkill(player.addSkill(skill, true).playerSkill());
+            plugin.getSkillManager().registerSkill(SharedSkill.class, SharedSkill::new);
+            plugin.getSkillManager().loadSkill(otherPlayer.addSkill(skill, true).playerSkill());
+
+            assertThat(SharedSkill.loads).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should load the config for the player if the shared config does not match the skill class")
+        void shouldFallBackIfSharedConfigDoesNotMatch() {
+
+            ConfiguredSkill skill = load(s -> s.type("shared-test"));
+            plugin.getSkillManager().shareConfig(skill.id(), new ConfigSkill(mock(SkillContext.class)));
+
+            SkillContext context = plugin.getSkillManager().loadSkill(player.addSkill(skill, true).playerSkill());
+
+            assertThat(context.get())
+                    .isInstanceOf(SharedSkill.class)
+                    .extracting("value")
+                    .isEqualTo("foobar");
+            assertThat(plugin.getSkillManager().getSharedConfig(skill.id())).isEmpty();
+        }
+    }
+
+    @SkillInfo(value = "shared-test", sharedConfig = true)
+    public static class SharedSkill extends AbstractSkill {
+
+        static int loads;
+        static SkillContext loadedWith;
+
+        private String value;
+
+        public SharedSkill(SkillContext context) {
+            super(context);
+        }
+
+        @Override
+        public void load(ConfigurationSection config) {
+
+            loads++;
+            loadedWith = context();
+            value = config.getString("value");
+        }
+    }
+
+    @SkillInfo("config-test")
+    public static class ConfigSkill extends AbstractSkill {
+
+        private String value;
+
+        public ConfigSkill(SkillContext context) {
+            super(context);
+        }
+
+        @Override
+        public void load(ConfigurationSection config) {
+
+            value = config.getString("value");
+        }
+    }
+
     @SkillInfo("test")
     public static class TestSkill extends AbstractSkill implements Executable {
 
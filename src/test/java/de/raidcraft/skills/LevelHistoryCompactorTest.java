@@ -0,0 +1,209 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.entities.ExpHistory;
+import de.raidcraft.skills.entities.LevelHistory;
+import de.raidcraft.skills.entities.LevelHistoryAggregate;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LevelHistoryCompactorTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.DAYS).plus(Duration.ofHours(12));
+
+    private RCSkills plugin;
+    private SkilledPlayer player;
+
+    @BeforeEach
+    void setUp() {
+
+        ServerMock server = MockBukkit.mock();
+        plugin = MockBukkit.load(RCSkills.class);
+        plugin.getPluginConfig().getHistory().setHourlyAfterDays(7);
+        plugin.getPluginConfig().getHistory().setDailyAfterDays(30);
+        plugin.getPluginConfig().getHistory().setBatchSize(3);
+        player = SkilledPlayer.getOrCreate(server.addPlayer());
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        plugin.getPersistenceExecutor().flush().join();
+        LevelHistoryAggregate.find.query().delete();
+        SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should sum up old exp changes per player, reason and hour")
+    void shouldCompactOldChangesHourly() {
+
+        Instant old = NOW.minus(Duration.ofDays(10));
+        history("quest", 10, old);
+        history("quest", 20, old.plus(Duration.ofMinutes(5)));
+        history("kill", 5, old.plus(Duration.ofMinutes(10)));
+        history("quest", 7, old.plus(Duration.ofHours(1)));
+        history("quest", 100, NOW.minus(Duration.ofDays(1)));
+
+        assertThat(plugin.getHistoryCompactor().compact(NOW)).isEqualTo(4);
+
+        assertThat(LevelHistory.find.query().where().eq("playerId", player.id()).findCount()).isEqualTo(1);
+        assertThat(LevelHistoryAggregate.find.query().where().eq("playerId", player.id()).findList())
+                .extracting(LevelHistoryAggregate::reason, LevelHistoryAggregate::exp, LevelHistoryAggregate::changes)
+                .containsExactlyInAnyOrder(
+                        tuple("quest", 30L, 2),
+                        tuple("kill", 5L, 1),
+                        tuple("quest", 7L, 1)
+                );
+        assertThat(ExpHistory.of(player.id()).sum()).isEqualTo(142);
+    }
+
+    @Test
+    @DisplayName("should sum up old hourly aggregates per day")
+    void shouldCompactHourlyAggregatesDaily() {
+
+        Instant old = NOW.minus(Duration.ofDays(40)).truncatedTo(ChronoUnit.DAYS);
+        history("quest", 10, old.plus(Duration.ofHours(1)));
+        history("quest", 20, old.plus(Duration.ofHours(5)));
+        history("quest", 30, old.plus(Duration.ofHours(23)));
+
+        plugin.getHistoryCompactor().compact(NOW);
+
+        List<LevelHistoryAggregate> aggregates = LevelHistoryAggregate.find.query().where().eq("playerId", player.id()).findList();
+        assertThat(aggregates).hasSize(1);
+        assertThat(aggregates.get(0))
+                .extracting(LevelHistoryAggregate::period, LevelHistoryAggregate::periodStart, LevelHistoryAggregate::exp, LevelHistoryAggregate::changes)
+                .containsExactly(LevelHistoryAggregate.Period.DAY, old, 60L, 3);
+    }
+
+    @Test
+    @DisplayName("should not count exp twice if compacted again")
+    void shouldCompactIncrementally() {
+
+        Instant old = NOW.minus(Duration.ofDays(10)).truncatedTo(ChronoUnit.HOURS);
+        history("quest", 10, old);
+        plugin.getHistoryCompactor().compact(NOW);
+        history("quest", 15, old.plus(Duration.ofMinutes(30)));
+        plugin.getHistoryCompactor().compact(NOW);
+        plugin.getHistoryCompactor().compact(NOW);
+
+        assertThat(LevelHistoryAggregate.find.query().where().eq("playerId", player.id()).findList())
+                .hasSize(1)
+                .first()
+                .extracting(LevelHistoryAggregate::exp, LevelHistoryAggregate::changes)
+                .containsExactly(25L, 2);
+    }
+
+    @Test
+    @DisplayName("should query the exp of a reason in a time range")
+    void shouldQueryByReasonAndTime() {
+
+        history("quest", 10, NOW.minus(Duration.ofDays(10)));
+        history("quest", 20, NOW.minus(Duration.ofDays(2)));
+        history("kill", 40, NOW.minus(Duration.ofDays(2)));
+        history("quest", 80, NOW.minus(Duration.ofHours(1)));
+        plugin.getHistoryCompactor().compact(NOW);
+
+        assertThat(ExpHistory.ofReason("quest").between(NOW.minus(Duration.ofDays(11)), NOW.minus(Duration.ofDays(1))).sum())
+                .isEqualTo(30);
+        assertThat(ExpHistory.of(player.id()).reason("kill").sum()).isEqualTo(40);
+
+        List<ExpHistory.ExpGain> gains = new ArrayList<>();
+        ExpHistory.of(player.id()).reason("quest").forEach(gains::add);
+        assertThat(gains).extracting(ExpHistory.ExpGain::exp).containsExactly(10L, 20L, 80L);
+        assertThat(gains.get(0).period()).isEqualTo(Duration.ofHours(1));
+        assertThat(gains.get(1).period()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("should store the player and reason of new exp changes")
+    void shouldStorePlayerAndReason() {
+
+        player.addExp(100, "test");
+        plugin.getPersistenceExecutor().flush().join();
+
+        assertThat(ExpHistory.of(player.id()).reason("test").sum()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("should copy the reason of old entries out of their data")
+    void shouldBackfillLegacyReasons() {
+
+        legacyHistory("quest", 10, NOW.minus(Duration.ofDays(10)));
+        legacyHistory("quest", 20, NOW.minus(Duration.ofDays(1)));
+
+        plugin.getHistoryCompactor().compact(NOW);
+
+        assertThat(LevelHistoryAggregate.find.query().where().eq("playerId", player.id()).findList())
+                .extracting(LevelHistoryAggregate::reason, LevelHistoryAggregate::exp)
+                .containsExactly(tuple("quest", 10L));
+        assertThat(LevelHistory.find.query().where().eq("playerId", player.id()).findList())
+                .extracting(LevelHistory::reason)
+                .containsExactly("quest");
+        assertThat(ExpHistory.of(player.id()).reason("quest").sum()).isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("should remember that the reasons of old entries were copied")
+    void shouldBackfillReasonsOnce() {
+
+        plugin.getHistoryCompactor().compact(NOW);
+        assertThat(new File(plugin.getDataFolder(), RCSkills.LEVEL_HISTORY_BACKFILLED)).exists();
+
+        legacyHistory("quest", 10, NOW.minus(Duration.ofDays(1)));
+
+        assertThat(plugin.getHistoryCompactor().backfillReasons()).isZero();
+        assertThat(LevelHistory.find.query().where().eq("playerId", player.id()).findList())
+                .extracting(LevelHistory::reason)
+                .containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("should not compact anything after the compactor was stopped")
+    void shouldNotCompactAfterStop() {
+
+        history("quest", 10, NOW.minus(Duration.ofDays(10)));
+
+        plugin.getHistoryCompactor().stop();
+
+        assertThat(plugin.getHistoryCompactor().compact(NOW)).isZero();
+        assertThat(LevelHistory.find.query().where().eq("playerId", player.id()).findCount()).isEqualTo(1);
+    }
+
+    private void history(String reason, long exp, Instant time) {
+
+        LevelHistory history = LevelHistory.create(player.level())
+                .playerId(player.id())
+                .reason(reason)
+                .exp(exp);
+        history.save();
+        LevelHistory.find.update().set("whenCreated", time).where().idEq(history.id()).update();
+    }
+
+    /**
+     * Creates an entry like it was written before the reason had its own column.
+     */
+    private void legacyHistory(String reason, long exp, Instant time) {
+
+        LevelHistory history = LevelHistory.create(player.level())
+                .playerId(player.id())
+                .data(LevelHistory.REASON, reason)
+                .exp(exp);
+        history.save();
+        LevelHistory.find.update().set("whenCreated", time).where().idEq(history.id()).update();
+    }
+}
@@ -0,0 +1,187 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import de.raidcraft.skills.entities.LevelHistory;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import io.ebean.DB;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistenceExecutorTest {
+
+    private SkillPluginConfig.PersistenceConfig config;
+    private MetricsRegistry metrics;
+    private PersistenceExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+
+        MockBukkit.mock();
+        MockBukkit.load(RCSkills.class);
+
+        this.config = new SkillPluginConfig.PersistenceConfig();
+        config.setThreads(2);
+        config.setBatchSize(10);
+        this.metrics = new MetricsRegistry();
+        this.executor = new PersistenceExecutor(DB.getDefault(), config, metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        executor.close();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should apply the writes of a player in the submitted order")
+    void shouldApplyWritesInOrder() {
+
+        UUID playerId = UUID.randomUUID();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 500; i++) {
+            int write = i;
+            executor.submit(playerId, () -> applied.add(write));
+        }
+        executor.flush(playerId).join();
+
+        assertThat(applied).containsExactlyElementsOf(IntStream.range(0, 500).boxed().collect(Collectors.toList()));
+        assertThat(executor.hasPending(playerId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should apply the other writes of a batch if one write fails")
+    void shouldIsolateFailingWrites() {
+
+        UUID playerId = UUID.randomUUID();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+
+        executor.submit(playerId, () -> applied.add(1));
+        executor.submit(playerId, () -> {
+            throw new IllegalStateException("test");
+        });
+        executor.submit(playerId, () -> applied.add(2));
+        executor.flush().join();
+
+        // the writes of a failed batch are applied again one by one
+        assertThat(applied).contains(1, 2).last().isEqualTo(2);
+        assertThat(metrics.counter("rcskills_persistence_writes_total", "result", "failure").get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should insert a new entry once if its batch is applied again")
+    void shouldInsertOnceOnRetry() throws InterruptedException {
+
+        SkilledPlayer player = SkilledPlayer.getOrCreate(MockBukkit.getMock().addPlayer());
+        UUID playerId = player.id();
+        UUID levelId = player.level().id();
+
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.submit(playerId, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // wait until the worker picked up the blocking write, so that the next writes end up in the same batch
+        while (executor.queueSize() > 0) {
+            Thread.sleep(1);
+        }
+        executor.submit(playerId, () -> LevelHistory.create(levelId)
+                .playerId(playerId)
+                .exp(10)
+                .reason("retry")
+                .save());
+        executor.submit(playerId, () -> {
+            throw new IllegalStateException("test");
+        });
+        blocker.countDown();
+        executor.flush().join();
+
+        assertThat(LevelHistory.find.query().where().eq("playerId", playerId).findCount()).isEqualTo(1);
+        player.delete();
+    }
+
+    @Test
+    @DisplayName("should block the caller while the queue is full")
+    void shouldApplyBackPressure() throws InterruptedException {
+
+        executor.close();
+        config.setThreads(1);
+        config.setQueueSize(1);
+        executor = new PersistenceExecutor(DB.getDefault(), config, metrics);
+
+        UUID playerId = UUID.randomUUID();
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.submit(playerId, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // wait until the worker picked up the blocking write
+        while (executor.queueSize() > 0) {
+            Thread.sleep(1);
+        }
+        executor.submit(playerId, () -> {});
+
+        Thread producer = new Thread(() -> executor.submit(playerId, () -> {}));
+        producer.start();
+        producer.join(100);
+        assertThat(producer.isAlive()).isTrue();
+
+        blocker.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+        assertThat(producer.isAlive()).isFalse();
+        assertThat(metrics.counter("rcskills_persistence_blocked_total").get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should apply all pending writes when closed")
+    void shouldFlushOnClose() {
+
+        UUID playerId = UUID.randomUUID();
+        List<Integer> applied = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 50; i++) {
+            int write = i;
+            executor.submit(playerId, () -> applied.add(write));
+        }
+
+        executor.close();
+
+        assertThat(applied).hasSize(50);
+        executor.submit(playerId, () -> applied.add(50));
+        assertThat(applied).hasSize(51);
+    }
+
+    @Test
+    @DisplayName("should apply writes on the calling thread if async writes are disabled")
+    void shouldWriteSynchronouslyIfDisabled() {
+
+        executor.close();
+        config.setAsync(false);
+        executor = new PersistenceExecutor(DB.getDefault(), config, metrics);
+
+        List<Thread> threads = new ArrayList<>();
+        executor.submit(UUID.randomUUID(), () -> threads.add(Thread.currentThread()));
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+}
@@ -0,0 +1,233 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import de.raidcraft.skills.actions.AddSkillAction;
+import de.raidcraft.skills.actions.ResetSlotsAction;
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkillSlot;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asserts the number of SQL select queries of the common player operations.
+ * <p>Every operation is measured twice: once with {@link #SKILLS} skills and once with twice as many.
+ * Both runs must execute the same number of queries, so that no query runs once per skill,
+ * e.g. by accessing an unloaded relation inside a loop. The budgets are the upper bound of the first run.
+ * Lower the budget if a change reduced the number of queries.
+ */
+class QueryBudgetTest {
+
+    private static final int SKILLS = 5;
+
+    private static final long JOIN_BUDGET = 20;
+    private static final long REJOIN_BUDGET = 40;
+    private static final long CAST_BUDGET = 10;
+    private static final long BUY_BUDGET = 25;
+    private static final long ACTIVATE_BUDGET = 20;
+    private static final long LEVEL_UP_BUDGET = 25;
+    private static final long RESET_BUDGET = 30;
+
+    private ServerMock server;
+    private RCSkills plugin;
+    private final List<ConfiguredSkill> skills = new ArrayList<>();
+    private int aliases = 0;
+
+    @BeforeEach
+    void setUp() {
+
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(RCSkills.class);
+        plugin.getSkillManager().registerSkill(DefaultSkillContextTest.TestSkill.class, DefaultSkillContextTest.TestSkill::new);
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        plugin.getPersistenceExecutor().flush().join();
+        SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
+        ConfiguredSkill.find.all().stream()
+                .filter(skill -> !skill.isChild())
+                .forEach(ConfiguredSkill::delete);
+
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("joining a new player should stay within the query budget")
+    void join() {
+
+        measure(() -> SelectCounter.count(() -> server.addPlayer()), JOIN_BUDGET);
+    }
+
+    @Test
+    @DisplayName("joining a player with active skills should stay within the query budget")
+    void rejoin() {
+
+        measure(() -> {
+            PlayerMock playerMock = server.addPlayer();
+            SkilledPlayer player = newPlayer(playerMock);
+            skills.forEach(player::addSkill);
+            plugin.getSkillManager().unload(playerMock);
+
+            return SelectCounter.count(() -> plugin.getSkillManager().load(playerMock));
+        }, REJOIN_BUDGET);
+    }
+
+    @Test
+    @DisplayName("casting a skill should stay within the query budget")
+    void cast() {
+
+        measure(() -> {
+            SkilledPlayer player = newPlayer(server.addPlayer());
+            skills.forEach(player::addSkill);
+            ConfiguredSkill skill = loadSkill(config -> config.set("type", "test"));
+            PlayerSkill playerSkill = player.addSkill(skill).playerSkill();
+            List<ExecutionResult> results = new ArrayList<>();
+
+            SelectCounter.Result result = SelectCounter.count(() -> playerSkill.execute(results::add));
+
+            assertThat(results).hasSize(1).allMatch(ExecutionResult::success);
+            return result;
+        }, CAST_BUDGET);
+    }
+
+    @Test
+    @DisplayName("buying a skill should stay within the query budget")
+    void buy() {
+
+        measure(() -> {
+            SkilledPlayer newPlayer = newPlayer(server.addPlayer());
+            skills.forEach(newPlayer::addSkill);
+            ConfiguredSkill skill = loadSkill(config -> {});
+            SkilledPlayer player = reload(newPlayer);
+            List<AddSkillAction.Result> results = new ArrayList<>();
+
+            SelectCounter.Result result = SelectCounter.count(() -> results.add(player.buySkill(skill)));
+
+            assertThat(results).allMatch(AddSkillAction.Result::success);
+            return result;
+        }, BUY_BUDGET);
+    }
+
+    @Test
+    @DisplayName("activating a skill should stay within the query budget")
+    void activate() {
+
+        measure(() -> {
+            SkilledPlayer player = newPlayer(server.addPlayer());
+            skills.forEach(player::addSkill);
+            ConfiguredSkill skill = loadSkill(config -> {
+                config.set("no-skill-slot", false);
+                config.set("auto-activate", false);
+            });
+            player.addSkill(skill);
+            PlayerSkill playerSkill = PlayerSkill.getOrCreate(reload(player), skill);
+            assertThat(playerSkill.active()).isFalse();
+
+            SelectCounter.Result result = SelectCounter.count(playerSkill::activate);
+
+            assertThat(playerSkill.active()).isTrue();
+            return result;
+        }, ACTIVATE_BUDGET);
+    }
+
+    @Test
+    @DisplayName("leveling up should stay within the query budget")
+    void levelUp() {
+
+        measure(() -> {
+            SkilledPlayer newPlayer = newPlayer(server.addPlayer());
+            skills.forEach(newPlayer::addSkill);
+            SkilledPlayer player = reload(newPlayer);
+            int level = player.level().getLevel();
+
+            SelectCounter.Result result = SelectCounter.count(() -> player.addLevel(1));
+
+            assertThat(player.level().getLevel()).isEqualTo(level + 1);
+            return result;
+        }, LEVEL_UP_BUDGET);
+    }
+
+    @Test
+    @DisplayName("resetting the skill slots should stay within the query budget")
+    void reset() {
+
+        measure(() -> {
+            SkilledPlayer newPlayer = newPlayer(server.addPlayer());
+            for (int i = 0; i < skills.size(); i++) {
+                newPlayer.addSkill(loadSkill(config -> config.set("no-skill-slot", false)));
+            }
+            SkilledPlayer player = reload(newPlayer);
+            assertThat(player.skillSlots()).anyMatch(slot -> slot.status() == SkillSlot.Status.IN_USE);
+            List<ResetSlotsAction.Result> results = new ArrayList<>();
+
+            SelectCounter.Result result = SelectCounter.count(() -> results.add(new ResetSlotsAction(player).execute(true)));
+
+            assertThat(results).allMatch(ResetSlotsAction.Result::success);
+            return result;
+        }, RESET_BUDGET);
+    }
+
+    /**
+     * Measures the operation with {@link #SKILLS} skills and again after the number of skills was doubled.
+     *
+     * @param operation sets up a new player with all skills and counts the queries of the operation
+     * @param budget the maximum number of queries with {@link #SKILLS} skills
+     */
+    private void measure(Supplier<SelectCounter.Result> operation, long budget) {
+
+        addSkills(SKILLS);
+        SelectCounter.Result result = operation.get().assertAtMost(budget);
+
+        addSkills(SKILLS);
+        operation.get().assertSameAs(result);
+    }
+
+    private void addSkills(int count) {
+
+        for (int i = 0; i < count; i++) {
+            skills.add(loadSkill(config -> {}));
+        }
+    }
+
+    private SkilledPlayer newPlayer(PlayerMock playerMock) {
+
+        SkilledPlayer player = SkilledPlayer.getOrCreate(playerMock);
+        player.addSkillSlots(2 * skills.size() + 1, SkillSlot.Status.FREE);
+        return player;
+    }
+
+    private ConfiguredSkill loadSkill(Consumer<MemoryConfiguration> config) {
+
+        String alias = "budget-" + aliases++;
+        MemoryConfiguration cfg = new MemoryConfiguration();
+        cfg.set("type", "none");
+        cfg.set("name", alias);
+        cfg.set("no-skill-slot", true);
+        config.accept(cfg);
+        plugin.getSkillManager().loadSkill(alias, cfg);
+        return ConfiguredSkill.findByAliasOrName(alias).orElseThrow();
+    }
+
+    /**
+     * Loads the player fresh from the database to include the lazy loading of its relations in the query count.
+     */
+    private SkilledPlayer reload(SkilledPlayer player) {
+
+        return SkilledPlayer.find.byId(player.id());
+    }
+}
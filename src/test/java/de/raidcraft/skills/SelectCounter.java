@@ -0,0 +1,105 @@
+package de.raidcraft.skills;
+
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import lombok.Value;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL select queries executed by a piece of code.
+ * <p>The counter reads the {@code rcskills_db_queries_total} counters of the {@link MetricsRegistry}
+ * which are fed by the query metrics of ebean. This includes the lazy loading queries
+ * that ebean executes when an unloaded relation of an entity is accessed.
+ * Inserts, updates and deletes are not part of the ebean query metrics and are not counted.
+ * <pre>{@code
+ * SelectCounter.count(() -> player.addLevel(1)).assertAtMost(10);
+ * }</pre>
+ */
+public final class SelectCounter {
+
+    private static final String QUERIES = "rcskills_db_queries_total";
+
+    /**
+     * Runs the given code and counts the select queries it executed.
+     * <p>The plugin must be enabled and the code must run synchronously on the calling thread.
+     *
+     * @param runnable the code to count the queries of
+     * @return the executed queries grouped by the query name of ebean
+     */
+    public static Result count(Runnable runnable) {
+
+        MetricsRegistry metrics = RCSkills.instance().getMetrics();
+        Map<String, Long> before = queries(metrics);
+        runnable.run();
+        Map<String, Long> after = queries(metrics);
+
+        Map<String, Long> queries = new TreeMap<>();
+        after.forEach((query, count) -> {
+            long executed = count - before.getOrDefault(query, 0L);
+            if (executed > 0) {
+                queries.put(query, executed);
+            }
+        });
+        return new Result(queries);
+    }
+
+    private static Map<String, Long> queries(MetricsRegistry metrics) {
+
+        Map<String, Long> queries = new TreeMap<>();
+        for (MetricsRegistry.Snapshot snapshot : metrics.snapshot()) {
+            if (snapshot.name().equals(QUERIES)) {
+                queries.merge(snapshot.labels(), (long) snapshot.value(), Long::sum);
+            }
+        }
+        return queries;
+    }
+
+    private SelectCounter() {
+    }
+
+    @Value
+    @Accessors(fluent = true)
+    public static class Result {
+
+        Map<String, Long> queries;
+
+        public long total() {
+
+            return queries.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * Asserts that no more than the given number of queries were executed.
+         * <p>The executed queries are part of the failure message to find the offending query.
+         *
+         * @param max the maximum number of queries
+         * @return this result
+         */
+        public Result assertAtMost(long max) {
+
+            assertThat(total())
+                    .as("executed queries: %s", queries)
+                    .isLessThanOrEqualTo(max);
+            return this;
+        }
+
+        /**
+         * Asserts that the same number of queries were executed as in the other result.
+         * <p>Use it to compare an operation on a small and a large data set, e.g. to find queries that run once per skill.
+         *
+         * @param other the result of the same operation on another data set
+         * @return this result
+         */
+        public Result assertSameAs(Result other) {
+
+            assertThat(total())
+                    .as("executed queries: %s, compared to: %s", queries, other.queries())
+                    .isEqualTo(other.total());
+            return this;
+        }
+    }
+}
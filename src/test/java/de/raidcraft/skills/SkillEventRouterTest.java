@@ -0,0 +1,158 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.entity.Zombie;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.event.weather.WeatherChangeEvent;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SkillEventRouterTest {
+
+    private ServerMock server;
+    private SkillEventRouter router;
+    private PlayerMock player;
+    private PlayerMock otherPlayer;
+
+    @BeforeEach
+    void setUp() {
+
+        this.server = MockBukkit.mock();
+        this.router = new SkillEventRouter(MockBukkit.createMockPlugin());
+        this.player = server.addPlayer();
+        this.otherPlayer = server.addPlayer();
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        router.unregisterAll();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should only call the skill of the player in the event")
+    void shouldOnlyCallSkillOfEventPlayer() {
+
+        ListenerSkill skill = new ListenerSkill();
+        ListenerSkill otherSkill = new ListenerSkill();
+        router.register(player.getUniqueId(), skill);
+        router.register(otherPlayer.getUniqueId(), otherSkill);
+
+        server.getPluginManager().callEvent(new PlayerToggleSneakEvent(player, true));
+
+        assertThat(skill.sneaks).isEqualTo(1);
+        assertThat(otherSkill.sneaks).isZero();
+    }
+
+    @Test
+    @DisplayName("should call the skills of all players that are part of the event")
+    void shouldCallSkillsOfAllInvolvedPlayers() {
+
+        ListenerSkill skill = new ListenerSkill();
+        ListenerSkill otherSkill = new ListenerSkill();
+        router.register(player.getUniqueId(), skill);
+        router.register(otherPlayer.getUniqueId(), otherSkill);
+
+        server.getPluginManager().callEvent(new EntityDamageByEntityEvent(player, otherPlayer, EntityDamageEvent.DamageCause.ENTITY_ATTACK, 1));
+
+        assertThat(skill.damages).isEqualTo(1);
+        assertThat(otherSkill.damages).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should call all skills if the event has no entity")
+    void shouldCallAllSkillsOfEventsWithoutEntity() {
+
+        ListenerSkill skill = new ListenerSkill();
+        ListenerSkill otherSkill = new ListenerSkill();
+        router.register(player.getUniqueId(), skill);
+        router.register(otherPlayer.getUniqueId(), otherSkill);
+
+        server.getPluginManager().callEvent(new WeatherChangeEvent(server.addSimpleWorld("world"), true));
+
+        assertThat(skill.weatherChanges).isEqualTo(1);
+        assertThat(otherSkill.weatherChanges).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should call all skills if the event has no player")
+    void shouldCallAllSkillsOfEventsWithoutPlayer() {
+
+        ListenerSkill skill = new ListenerSkill();
+        ListenerSkill otherSkill = new ListenerSkill();
+        router.register(player.getUniqueId(), skill);
+        router.register(otherPlayer.getUniqueId(), otherSkill);
+
+        server.getPluginManager().callEvent(new EntityDeathEvent(mock(Zombie.class), new ArrayList<>()));
+
+        assertThat(skill.deaths).isEqualTo(1);
+        assertThat(otherSkill.deaths).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should not call unregistered skills")
+    void shouldNotCallUnregisteredSkills() {
+
+        ListenerSkill skill = new ListenerSkill();
+        router.register(player.getUniqueId(), skill);
+        router.unregister(player.getUniqueId(), skill);
+
+        server.getPluginManager().callEvent(new PlayerToggleSneakEvent(player, true));
+
+        assertThat(skill.sneaks).isZero();
+    }
+
+    @Test
+    @DisplayName("should register only one handler per skill class")
+    void shouldRegisterOneHandlerPerSkillClass() {
+
+        router.register(player.getUniqueId(), new ListenerSkill());
+        router.register(otherPlayer.getUniqueId(), new ListenerSkill());
+
+        assertThat(PlayerToggleSneakEvent.getHandlerList().getRegisteredListeners()).hasSize(1);
+    }
+
+    public static class ListenerSkill implements Listener {
+
+        int sneaks;
+        int damages;
+        int weatherChanges;
+        int deaths;
+
+        @EventHandler
+        public void onSneak(PlayerToggleSneakEvent event) {
+
+            sneaks++;
+        }
+
+        @EventHandler
+        public void onDamage(EntityDamageByEntityEvent event) {
+
+            damages++;
+        }
+
+        @EventHandler
+        public void onWeatherChange(WeatherChangeEvent event) {
+
+            weatherChanges++;
+        }
+
+        @EventHandler
+        public void onDeath(EntityDeathEvent event) {
+
+            deaths++;
+        }
+    }
+}
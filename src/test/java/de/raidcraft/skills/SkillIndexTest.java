@@ -0,0 +1,44 @@
+package de.raidcraft.skills;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkillIndexTest {
+
+    @Test
+    @DisplayName("should parse factories, skills and requirements of the index")
+    void shouldParseIndex() throws IOException {
+
+        SkillIndex index = SkillIndex.read(new StringReader("# generated by the RCSkills annotation processor\n"
+                + "factory\ttest.MySkill$Factory\ttest.MySkill\tmy-skill\tWorldGuard,Vault\n"
+                + "skill\ttest.MySkill\tmy-skill\tWorldGuard,Vault\n"
+                + "skill\ttest.Other\tother\t\n"
+                + "requirement\ttest.MyRequirement\tmy-requirement\n"));
+
+        assertThat(index.factories())
+                .containsExactly(new SkillIndex.Entry("test.MySkill$Factory", "test.MySkill", "my-skill", List.of("WorldGuard", "Vault")));
+        assertThat(index.skills())
+                .extracting(SkillIndex.Entry::type)
+                .containsExactly("my-skill", "other");
+        assertThat(index.skills().get(1).depends()).isEmpty();
+        assertThat(index.requirements())
+                .extracting(SkillIndex.Entry::className)
+                .containsExactly("test.MyRequirement");
+    }
+
+    @Test
+    @DisplayName("should skip invalid entries")
+    void shouldSkipInvalidEntries() throws IOException {
+
+        SkillIndex index = SkillIndex.read(new StringReader("factory\tincomplete\nfoo\tbar\n\nrequirement\ttest.Requirement\treq"));
+
+        assertThat(index.factories()).isEmpty();
+        assertThat(index.requirements()).hasSize(1);
+    }
+}
@@ -16,9 +16,13 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
@@ -153,6 +157,105 @@ class SkillManagerTest {
                     .contains("test", "foobar", "nested.minimal");
         }
 
+        @Test
+        @DisplayName("should only write back files that changed while loading")
+        void shouldOnlyWriteChangedFiles() throws IOException {
+
+            File file = skillsPath.resolve("test.yml").toFile();
+            skillManager.loadSkills(skillsPath);
+
+            assertThat(file).content().contains("id:");
+            long modified = file.lastModified() - 10_000;
+            assertThat(file.setLastModified(modified)).isTrue();
+
+            skillManager.loadSkills(skillsPath);
+
+            assertThat(file.lastModified()).isEqualTo(modified);
+        }
+
+        @Test
+        @DisplayName("should return the same skills if the files did not change")
+        void shouldReturnUnchangedSkills() {
+
+            List<UUID> first = skillManager.loadSkills(skillsPath).stream()
+                    .map(BaseEntity::id)
+                    .collect(Collectors.toList());
+
+            assertThat(skillManager.loadSkills(skillsPath))
+                    .extracting(BaseEntity::id)
+                    .containsExactlyInAnyOrderElementsOf(first);
+        }
+
+        @Test
+        @DisplayName("should load changed files again")
+        void shouldLoadChangedFilesAgain() throws IOException {
+
+            File file = skillsPath.resolve("test.yml").toFile();
+            skillManager.loadSkills(skillsPath);
+
+            Files.writeString(file.toPath(), Files.readString(file.toPath()).replace("My Test Skill", "Changed Skill"));
+
+            assertThat(skillManager.loadSkills(skillsPath))
+                    .extracting(ConfiguredSkill::name)
+                    .contains("Changed Skill");
+        }
+
+        @Test
+        @DisplayName("should only reload the changed files")
+        void shouldOnlyReloadChangedFiles() throws IOException {
+
+            File file = skillsPath.resolve("test.yml").toFile();
+            File other = skillsPath.resolve("example.yml").toFile();
+            skillManager.loadSkills(skillsPath);
+
+            Files.writeString(file.toPath(), Files.readString(file.toPath()).replace("My Test Skill", "Changed Skill"));
+
+            assertThat(skillManager.reload(List.of(file, other)))
+                    .hasSize(1)
+                    .extracting(ConfiguredSkill::name)
+                    .containsExactly("Changed Skill");
+        }
+
+        @Test
+        @Timeout(10)
+        @DisplayName("should parse the changed files in the background and load them on the main thread")
+        void shouldReloadChangedFilesAsync() throws Exception {
+
+            File file = skillsPath.resolve("test.yml").toFile();
+            skillManager.loadSkills(skillsPath);
+
+            Files.writeString(file.toPath(), Files.readString(file.toPath()).replace("My Test Skill", "Changed Skill"));
+
+            CompletableFuture<List<ConfiguredSkill>> reload = skillManager.reloadAsync(List.of(file));
+            assertThat(reload).isNotDone();
+
+            while (!reload.isDone()) {
+                server.getScheduler().performOneTick();
+            }
+
+            assertThat(reload.get())
+                    .extracting(ConfiguredSkill::name)
+                    .containsExactly("Changed Skill");
+        }
+
+        @Test
+        @DisplayName("should disable the skills of deleted files")
+        void shouldDisableSkillsOfDeletedFiles() throws IOException {
+
+            File file = skillsPath.resolve("test.yml").toFile();
+            ConfiguredSkill skill = skillManager.loadSkills(skillsPath).stream()
+                    .filter(s -> s.alias().equals("test"))
+                    .findFirst()
+                    .orElseThrow();
+
+            Files.delete(file.toPath());
+            skillManager.reload(List.of(file));
+
+            assertThat(ConfiguredSkill.find.byId(skill.id()))
+                    .extracting(ConfiguredSkill::enabled)
+                    .isEqualTo(false);
+        }
+
         @Test
         @DisplayName("should disable old skills")
         void shouldDisableOldSkills() {
@@ -0,0 +1,154 @@
+package de.raidcraft.skills;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.util.ReflectionUtil;
+import mockit.Invocation;
+import mockit.Mock;
+import mockit.MockUp;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.bukkit.entity.Entity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TargetManagerTest {
+
+    private ServerMock server;
+    private TargetManager targetManager;
+    private final AtomicInteger resolutions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+
+        server = MockBukkit.mock();
+        targetManager = MockBukkit.load(RCSkills.class).getTargetManager();
+        targetManager.register(Target.class, context -> {
+            resolutions.incrementAndGet();
+            return Optional.of(new Target());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should look up the resolver of a class only once")
+    void shouldCacheResolverLookup() {
+
+        AtomicInteger lookups = new AtomicInteger();
+        new MockUp<ReflectionUtil>() {
+            @Mock
+            <TTarget, TResult> Optional<TResult> getEntryForTarget(Invocation invocation, Class<TTarget> targetClass, Map<Class<?>, TResult> map) {
+                lookups.incrementAndGet();
+                return invocation.proceed();
+            }
+        };
+
+        Optional<TargetResolver<Target>> first = targetManager.resolver(Target.class);
+        Optional<TargetResolver<Target>> second = targetManager.resolver(Target.class);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(lookups).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should use the resolver of the nearest registered super class")
+    void shouldResolveSubclass() {
+
+        assertThat(targetManager.resolver(SubTarget.class))
+                .containsSame(targetManager.resolver(Target.class).orElseThrow());
+
+        TargetResolver<SubTarget> resolver = context -> Optional.of(new SubTarget());
+        targetManager.register(SubTarget.class, resolver);
+
+        assertThat(targetManager.resolver(SubTarget.class)).containsSame(resolver);
+        assertThat(targetManager.resolver(String.class)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should resolve a target only once per player, type and range in the same tick")
+    void shouldCacheResolvedTargetInTick() {
+
+        ExecutionContext context = context(UUID.randomUUID(), 30);
+
+        Optional<Target> first = targetManager.resolve(context, Target.class);
+        Optional<Target> second = targetManager.resolve(context, Target.class);
+
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        assertThat(resolutions).hasValue(1);
+
+        targetManager.resolve(context(UUID.randomUUID(), 30), Target.class);
+        targetManager.resolve(context(context.source().playerId(), 10), Target.class);
+        assertThat(resolutions).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("should resolve the target again in the next tick")
+    void shouldInvalidateResolvedTargetsNextTick() {
+
+        ExecutionContext context = context(UUID.randomUUID(), 30);
+
+        Optional<Target> first = targetManager.resolve(context, Target.class);
+        server.getScheduler().performOneTick();
+        Optional<Target> second = targetManager.resolve(context, Target.class);
+
+        assertThat(resolutions).hasValue(2);
+        assertThat(second).isPresent().doesNotContain(first.orElseThrow());
+    }
+
+    @Test
+    @DisplayName("should resolve the target again if the cached entity is no longer valid")
+    void shouldDropInvalidEntities() {
+
+        Entity entity = mock(Entity.class);
+        when(entity.isValid()).thenReturn(true);
+        targetManager.register(Entity.class, context -> {
+            resolutions.incrementAndGet();
+            return Optional.of(entity);
+        });
+        ExecutionContext context = context(UUID.randomUUID(), 30);
+
+        targetManager.resolve(context, Entity.class);
+        targetManager.resolve(context, Entity.class);
+        assertThat(resolutions).hasValue(1);
+
+        when(entity.isValid()).thenReturn(false);
+        targetManager.resolve(context, Entity.class);
+        assertThat(resolutions).hasValue(2);
+    }
+
+    private ExecutionContext context(UUID playerId, int range) {
+
+        SkillContext source = mock(SkillContext.class);
+        when(source.playerId()).thenReturn(playerId);
+        ExecutionContext context = mock(ExecutionContext.class);
+        when(context.source()).thenReturn(source);
+        when(context.config()).thenReturn(ExecutionConfig.builder()
+                .config(new MemoryConfiguration())
+                .range(range)
+                .build());
+        return context;
+    }
+
+    static class Target {
+    }
+
+    static class SubTarget extends Target {
+    }
+}
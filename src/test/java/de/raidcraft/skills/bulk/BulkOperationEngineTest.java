@@ -0,0 +1,276 @@
+package de.raidcraft.skills.bulk;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.RCSkills;
+import de.raidcraft.skills.SkillPluginConfig;
+import de.raidcraft.skills.entities.BulkCheckpoint;
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.LevelHistory;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import de.raidcraft.skills.metrics.MetricsRegistry;
+import io.ebean.DB;
+import io.ebean.ExpressionList;
+import org.bukkit.configuration.MemoryConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkOperationEngineTest {
+
+    private static final int PLAYERS = 5;
+
+    private RCSkills plugin;
+    private BulkOperationEngine engine;
+    private final List<SkilledPlayer> players = new ArrayList<>();
+    private final List<BulkOperationEngine.Progress> reports = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+
+        ServerMock server = MockBukkit.mock();
+        plugin = MockBukkit.load(RCSkills.class);
+
+        SkillPluginConfig.BulkConfig config = new SkillPluginConfig.BulkConfig();
+        config.setBatchSize(2);
+        config.setThrottle(0);
+        engine = new BulkOperationEngine(plugin, DB.getDefault(), plugin.getPersistenceExecutor(), config, new MetricsRegistry());
+
+        SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
+        for (int i = 0; i < PLAYERS; i++) {
+            players.add(SkilledPlayer.getOrCreate(server.addPlayer()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+
+        plugin.getPersistenceExecutor().flush().join();
+        SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
+        BulkCheckpoint.find.query().delete();
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should apply the operation to every player once")
+    void shouldApplyToAllPlayers() {
+
+        List<UUID> applied = new ArrayList<>();
+        engine.run(operation("all", applied::add), false, reports::add);
+
+        assertThat(applied).containsExactlyInAnyOrderElementsOf(ids());
+        assertThat(reports).last()
+                .extracting(BulkOperationEngine.Progress::applied, BulkOperationEngine.Progress::total, BulkOperationEngine.Progress::finished)
+                .containsExactly(PLAYERS, PLAYERS, true);
+        // one report per batch of two players and one when finished
+        assertThat(reports).hasSize(4);
+        assertThat(engine.hasCheckpoint(operation("all", id -> true))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should only apply the operation to the filtered players")
+    void shouldFilterPlayers() {
+
+        UUID target = players.get(2).id();
+        List<UUID> applied = new ArrayList<>();
+        BulkOperation operation = new BulkOperation() {
+            @Override
+            public String name() {
+                return "filtered";
+            }
+
+            @Override
+            public void filter(ExpressionList<SkilledPlayer> query) {
+                query.eq("id", target);
+            }
+
+            @Override
+            public boolean apply(UUID playerId) {
+                return applied.add(playerId);
+            }
+        };
+
+        engine.run(operation, false, reports::add);
+
+        assertThat(applied).containsExactly(target);
+        assertThat(reports).last().extracting(BulkOperationEngine.Progress::total).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should apply the other players of a batch if one player fails")
+    void shouldIsolateFailures() {
+
+        UUID failing = players.get(0).id();
+        List<UUID> applied = new ArrayList<>();
+        engine.run(operation("failing", id -> {
+            if (id.equals(failing)) throw new IllegalStateException("test");
+            return applied.add(id);
+        }), false, reports::add);
+
+        assertThat(applied).contains(ids().stream().filter(id -> !id.equals(failing)).toArray(UUID[]::new));
+        assertThat(reports).last()
+                .extracting(BulkOperationEngine.Progress::applied, BulkOperationEngine.Progress::failed)
+                .containsExactly(PLAYERS - 1, 1);
+    }
+
+    @Test
+    @DisplayName("should resume a cancelled operation after the last checkpoint")
+    void shouldResumeFromCheckpoint() {
+
+        List<UUID> applied = new ArrayList<>();
+        BulkOperation operation = operation("resume", id -> {
+            engine.cancel();
+            return applied.add(id);
+        });
+
+        engine.run(operation, false, reports::add);
+
+        assertThat(applied).hasSize(2);
+        assertThat(engine.progress()).get().extracting(BulkOperationEngine.Progress::cancelled).isEqualTo(true);
+        assertThat(engine.hasCheckpoint(operation)).isTrue();
+
+        engine.run(operation("resume", applied::add), true, reports::add);
+
+        assertThat(applied).containsExactlyInAnyOrderElementsOf(ids());
+        assertThat(engine.progress()).get()
+                .extracting(BulkOperationEngine.Progress::applied, BulkOperationEngine.Progress::total)
+                .containsExactly(PLAYERS, PLAYERS);
+        assertThat(engine.hasCheckpoint(operation)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should not resume an operation without checkpoint")
+    void shouldRequireCheckpointToResume() {
+
+        assertThatThrownBy(() -> engine.run(operation("missing", id -> true), true, reports::add))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("should grant exp to all players")
+    void shouldGrantExp() {
+
+        engine.run(BulkOperations.grantExp(100, "bulk:test"), false, reports::add);
+
+        assertThat(SkilledPlayer.find.all())
+                .hasSize(PLAYERS)
+                .allMatch(player -> player.level().getTotalExp() == 100);
+    }
+
+    @Test
+    @DisplayName("should not grant exp or history twice if another player of the batch fails")
+    void shouldNotDuplicateExpOnFailure() {
+
+        UUID failing = players.get(0).id();
+        BulkOperation grantExp = BulkOperations.grantExp(100, "bulk:failure");
+        engine.run(operation(grantExp.name(), id -> {
+            boolean applied = grantExp.apply(id);
+            if (id.equals(failing)) throw new IllegalStateException("test");
+            return applied;
+        }), false, reports::add);
+
+        for (SkilledPlayer player : SkilledPlayer.find.all()) {
+            long exp = player.id().equals(failing) ? 0 : 100;
+            assertThat(player.level().getTotalExp()).isEqualTo(exp);
+            assertThat(history(player.id())).isEqualTo(exp > 0 ? 1 : 0);
+        }
+    }
+
+    @Test
+    @DisplayName("should grant exp once if the operation is resumed after a crash inside a batch")
+    void shouldNotDuplicateExpOnResume() {
+
+        BulkOperation grantExp = BulkOperations.grantExp(100, "bulk:crash");
+        AtomicInteger count = new AtomicInteger();
+        BulkOperation crashing = operation(grantExp.name(), id -> {
+            boolean applied = grantExp.apply(id);
+            // the server stops in the middle of the second batch
+            if (count.incrementAndGet() == 3) throw new Crash();
+            return applied;
+        });
+
+        assertThatThrownBy(() -> engine.run(crashing, false, reports::add)).isInstanceOf(Crash.class);
+        assertThat(engine.hasCheckpoint(grantExp)).isTrue();
+
+        engine.run(grantExp, true, reports::add);
+
+        assertThat(SkilledPlayer.find.all())
+                .hasSize(PLAYERS)
+                .allMatch(player -> player.level().getTotalExp() == 100)
+                .allMatch(player -> history(player.id()) == 1);
+        assertThat(engine.progress()).get()
+                .extracting(BulkOperationEngine.Progress::applied)
+                .isEqualTo(PLAYERS);
+    }
+
+    @Test
+    @DisplayName("should remove the skill from all players that have it")
+    void shouldRemoveSkill() {
+
+        MemoryConfiguration config = new MemoryConfiguration();
+        config.set("type", "none");
+        config.set("name", "bulk-remove");
+        ConfiguredSkill skill = plugin.getSkillManager().loadSkill("bulk-remove", config).orElseThrow();
+        players.subList(0, 3).forEach(player -> player.addSkill(skill));
+
+        engine.run(BulkOperations.removeSkill(skill), false, reports::add);
+
+        assertThat(PlayerSkill.find.query().where().eq("configuredSkill.id", skill.id()).findCount()).isZero();
+        assertThat(reports).last()
+                .extracting(BulkOperationEngine.Progress::applied, BulkOperationEngine.Progress::total)
+                .containsExactly(3, 3);
+    }
+
+    @Test
+    @DisplayName("should never purge online players")
+    void shouldNotPurgeOnlinePlayers() {
+
+        engine.run(BulkOperations.purge(Duration.ZERO), false, reports::add);
+
+        assertThat(SkilledPlayer.find.query().findCount()).isEqualTo(PLAYERS);
+        assertThat(reports).last()
+                .extracting(BulkOperationEngine.Progress::applied, BulkOperationEngine.Progress::skipped)
+                .containsExactly(0, PLAYERS);
+    }
+
+    private int history(UUID playerId) {
+
+        return LevelHistory.find.query().where().eq("playerId", playerId).findCount();
+    }
+
+    private List<UUID> ids() {
+
+        return players.stream().map(SkilledPlayer::id).collect(Collectors.toList());
+    }
+
+    private BulkOperation operation(String name, Predicate<UUID> apply) {
+
+        return new BulkOperation() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public boolean apply(UUID playerId) {
+                return apply.test(playerId);
+            }
+        };
+    }
+
+    private static final class Crash extends Error {
+    }
+}
@@ -3,6 +3,7 @@ package de.raidcraft.skills.entities;
 import be.seeseemelk.mockbukkit.MockBukkit;
 import be.seeseemelk.mockbukkit.ServerMock;
 import de.raidcraft.skills.ExecutionConfig;
+import de.raidcraft.skills.SelectCounter;
 import de.raidcraft.skills.RCSkills;
 import de.raidcraft.skills.TaskConfig;
 import de.raidcraft.skills.requirements.LevelRequirement;
@@ -19,6 +20,7 @@ import java.util.Optional;
 import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SuppressWarnings("ALL")
 class ConfiguredSkillTest {
@@ -90,6 +92,52 @@ class ConfiguredSkillTest {
                 .containsKey("with.permissions");
     }
 
+    @Test
+    @DisplayName("should reuse the config view until the config changes")
+    void shouldCacheConfigView() {
+
+        ConfiguredSkill skill = ConfiguredSkill.findByAliasOrName(TEST_SKILL).get();
+        ConfigurationSection config = skill.getReadOnlyConfig();
+
+        assertThat(skill.getReadOnlyConfig()).isSameAs(config);
+
+        MemoryConfiguration cfg = new MemoryConfiguration();
+        cfg.set("name", "Changed Skill");
+        skill.load(cfg);
+
+        assertThat(skill.getReadOnlyConfig())
+                .isNotSameAs(config)
+                .extracting(section -> section.getString("name"))
+                .isEqualTo("Changed Skill");
+    }
+
+    @Test
+    @DisplayName("should not allow modifications of the config view")
+    void shouldNotAllowModificationsOfConfigView() {
+
+        ConfiguredSkill skill = ConfiguredSkill.findByAliasOrName(TEST_SKILL).get();
+
+        assertThatThrownBy(() -> skill.getReadOnlyConfig().set("name", "foo"))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> skill.getReadOnlySkillConfig().createSection("foo.bar"))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    @DisplayName("should return a modifiable copy of the config")
+    void shouldReturnModifiableConfigCopy() {
+
+        ConfiguredSkill skill = ConfiguredSkill.findByAliasOrName(TEST_SKILL).get();
+
+        ConfigurationSection config = skill.getConfig();
+        config.set("name", "foo");
+        skill.getSkillConfig().set("foo", "bar");
+
+        assertThat(config.getString("name")).isEqualTo("foo");
+        assertThat(skill.getConfig().getString("name")).isEqualTo("Test Skill");
+        assertThat(skill.getReadOnlySkillConfig().isSet("foo")).isFalse();
+    }
+
     @Nested
     @DisplayName("Parent -> Child")
     class ParentChildSkills {
@@ -304,4 +352,63 @@ class ConfiguredSkillTest {
             ).contains(true, true);
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Cache")
+    class Cache {
+
+        private ConfiguredSkill skill;
+
+        @BeforeEach
+        void setUp() {
+
+            skill = ConfiguredSkill.findByAliasOrName(TEST_SKILL).orElseThrow();
+            ConfiguredSkill.find.byId(skill.id());
+            ConfiguredSkill.allEnabled();
+        }
+
+        @Test
+        @DisplayName("should get skills by id from the cache")
+        void shouldGetSkillByIdFromCache() {
+
+            SelectCounter.Result result = SelectCounter.count(() -> assertThat(ConfiguredSkill.find.byId(skill.id()))
+                    .extracting(ConfiguredSkill::alias)
+                    .isEqualTo(TEST_SKILL));
+
+            assertThat(result.total()).isZero();
+        }
+
+        @Test
+        @DisplayName("should get all enabled skills from the cache")
+        void shouldGetAllEnabledSkillsFromCache() {
+
+            SelectCounter.Result result = SelectCounter.count(() -> assertThat(ConfiguredSkill.allEnabled())
+                    .extracting(ConfiguredSkill::alias)
+                    .contains(TEST_SKILL));
+
+            assertThat(result.total()).isZero();
+        }
+
+        @Test
+        @DisplayName("should load skills again after the cache was cleared")
+        void shouldQueryAfterCacheWasCleared() {
+
+            ConfiguredSkill.clearCache();
+
+            SelectCounter.Result result = SelectCounter.count(() -> ConfiguredSkill.find.byId(skill.id()));
+
+            assertThat(result.total()).isPositive();
+        }
+
+        @Test
+        @DisplayName("should get changed skills after they were saved")
+        void shouldInvalidateCacheOnSave() {
+
+            skill.level(10).save();
+
+            assertThat(ConfiguredSkill.find.byId(skill.id()))
+                    .extracting(ConfiguredSkill::level)
+                    .isEqualTo(10);
+        }
+    }
+}
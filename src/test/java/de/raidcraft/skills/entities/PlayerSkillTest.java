@@ -62,6 +62,7 @@ public class PlayerSkillTest {
     @AfterEach
     void tearDown() {
 
+        plugin.getPersistenceExecutor().flush().join();
         SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
         ConfiguredSkill.find.all().stream()
                 .filter(skill1 -> !skill1.isChild())
@@ -0,0 +1,155 @@
+package de.raidcraft.skills.journal;
+
+import de.raidcraft.skills.entities.ConfiguredSkill;
+import de.raidcraft.skills.entities.DataStore;
+import de.raidcraft.skills.entities.ItemBinding;
+import de.raidcraft.skills.entities.Level;
+import de.raidcraft.skills.entities.LevelHistory;
+import de.raidcraft.skills.entities.LevelHistoryAggregate;
+import de.raidcraft.skills.entities.PlayerSkill;
+import de.raidcraft.skills.entities.SkillSlot;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.Database;
+import io.ebean.DatabaseFactory;
+import io.ebean.Transaction;
+import io.ebean.config.DatabaseConfig;
+import io.ebean.datasource.DataSourceConfig;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.persistence.PersistenceException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stops and restarts a real H2 server to test the journal during a database outage.
+ */
+class JournalOutageTest {
+
+    @TempDir
+    Path folder;
+    private Server server;
+    private int port;
+    private ProgressionJournal journal;
+    private Database database;
+    private UUID playerId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists", "-baseDir", folder.toString()).start();
+        port = server.getPort();
+        journal = ProgressionJournal.open(folder.resolve("journal.dat"), 0, false);
+        database = createDatabase();
+        playerId = insertPlayer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+
+        database.shutdown(true, false);
+        journal.close();
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("should replay a change that failed while the database was down after it is back")
+    void shouldReplayAfterOutage() throws SQLException {
+
+        SkilledPlayer player = database.find(SkilledPlayer.class, playerId);
+        player.skillPoints(10);
+
+        server.stop();
+        assertThatThrownBy(() -> journal.save(player, () -> database.save(player)))
+                .isInstanceOf(PersistenceException.class);
+        assertThat(journal.pending()).isEqualTo(1);
+        assertThat(journal.replay(database)).isZero();
+
+        server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists", "-baseDir", folder.toString()).start();
+        // the pool may still hand out a connection that broke while the server was down
+        for (int i = 0; i < 3 && journal.pending() > 0; i++) {
+            journal.replay(database);
+        }
+
+        assertThat(journal.pending()).isZero();
+        assertThat(database.find(SkilledPlayer.class).setUseCache(false).where().idEq(playerId).findOne())
+                .extracting(SkilledPlayer::skillPoints)
+                .isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("should drop the changes of a transaction that was rolled back while the database is up")
+    void shouldDropIntendedRollback() {
+
+        SkilledPlayer player = database.find(SkilledPlayer.class, playerId);
+        try (Transaction transaction = database.beginTransaction()) {
+            player.skillPoints(3);
+            database.save(player);
+            transaction.rollback();
+        }
+
+        assertThat(journal.pending()).isZero();
+    }
+
+    private Database createDatabase() {
+
+        DataSourceConfig dataSource = new DataSourceConfig();
+        dataSource.setUrl("jdbc:h2:tcp://localhost:" + port + "/outage");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setMinConnections(1);
+        dataSource.setMaxConnections(2);
+
+        DatabaseConfig config = new DatabaseConfig();
+        config.setName("journal-outage");
+        config.setDefaultServer(false);
+        config.setRegister(false);
+        config.setDataSourceConfig(dataSource);
+        config.setDdlGenerate(true);
+        config.setDdlRun(true);
+        config.setClasses(List.of(
+                ConfiguredSkill.class,
+                PlayerSkill.class,
+                SkilledPlayer.class,
+                Level.class,
+                LevelHistory.class,
+                LevelHistoryAggregate.class,
+                DataStore.class,
+                SkillSlot.class,
+                ItemBinding.class
+        ));
+        config.add(journal.persistController());
+        return DatabaseFactory.create(config);
+    }
+
+    private UUID insertPlayer() {
+
+        UUID levelId = UUID.randomUUID();
+        UUID playerId = UUID.randomUUID();
+        Timestamp now = Timestamp.from(Instant.now());
+        database.sqlUpdate("insert into rcs_levels (id, level, total_exp, version, when_created, when_modified) values (?, 1, 0, 1, ?, ?)")
+                .setParameter(1, levelId)
+                .setParameter(2, now)
+                .setParameter(3, now)
+                .execute();
+        database.sqlUpdate("insert into rcs_players (id, name, skill_points, reset_count, free_resets, level_id, version, when_created, when_modified)"
+                + " values (?, 'outage', 0, 0, 0, ?, 1, ?, ?)")
+                .setParameter(1, playerId)
+                .setParameter(2, levelId)
+                .setParameter(3, now)
+                .setParameter(4, now)
+                .execute();
+        return playerId;
+    }
+}
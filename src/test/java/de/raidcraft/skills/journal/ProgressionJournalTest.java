@@ -0,0 +1,280 @@
+package de.raidcraft.skills.journal;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import de.raidcraft.skills.RCSkills;
+import de.raidcraft.skills.entities.Level;
+import de.raidcraft.skills.entities.SkilledPlayer;
+import io.ebean.DB;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProgressionJournalTest {
+
+    private static final long SIZE = 64 * 1024;
+
+    @TempDir
+    Path folder;
+    private Path file;
+    private ProgressionJournal journal;
+    private SkilledPlayer player;
+
+    @BeforeEach
+    void setUp() throws IOException {
+
+        ServerMock server = MockBukkit.mock();
+        MockBukkit.load(RCSkills.class);
+
+        this.file = folder.resolve("journal.dat");
+        this.journal = ProgressionJournal.open(file, SIZE, false);
+        this.player = SkilledPlayer.getOrCreate(server.addPlayer());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+
+        journal.close();
+        SkilledPlayer.find.all().forEach(SkilledPlayer::delete);
+        MockBukkit.unmock();
+    }
+
+    @Test
+    @DisplayName("should keep the changes of transactions that failed because the database was not reachable")
+    void shouldKeepFailedChanges() {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.record(transaction, player);
+        journal.fail(transaction);
+
+        assertThat(journal.pending()).isEqualTo(2);
+        assertThat(replay()).extracting(JournalEntry::type)
+                .containsExactly(JournalEntry.Type.LEVEL, JournalEntry.Type.PLAYER);
+        assertThat(journal.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop the changes of transactions that were rolled back on purpose")
+    void shouldDropAbortedChanges() throws IOException {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.abort(transaction);
+        journal.close();
+
+        journal = ProgressionJournal.open(file, SIZE, false);
+
+        assertThat(journal.pending()).isZero();
+        assertThat(replay()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should journal a save that failed because the database was not reachable")
+    void shouldJournalFailedSave() {
+
+        assertThatThrownBy(() -> journal.save(player, () -> {
+            throw new PersistenceException(new SQLTransientConnectionException("connection refused"));
+        })).isInstanceOf(PersistenceException.class);
+
+        assertThat(journal.pending()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should not journal a save that failed for other reasons")
+    void shouldNotJournalOtherErrors() {
+
+        assertThatThrownBy(() -> journal.save(player, () -> {
+            throw new PersistenceException(new SQLException("constraint violated", "23000"));
+        })).isInstanceOf(PersistenceException.class);
+
+        assertThat(journal.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop the changes of committed transactions")
+    void shouldDropCommittedChanges() {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.commit(transaction);
+
+        assertThat(journal.pending()).isZero();
+        assertThat(replay()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should drop failed changes if a newer state was committed")
+    void shouldSupersedeFailedChanges() {
+
+        long failed = journal.begin();
+        journal.record(failed, player.level());
+        journal.record(failed, player);
+        journal.fail(failed);
+
+        long committed = journal.begin();
+        journal.record(committed, player.level());
+        journal.commit(committed);
+
+        assertThat(replay()).extracting(JournalEntry::type).containsExactly(JournalEntry.Type.PLAYER);
+    }
+
+    @Test
+    @DisplayName("should only replay the latest failed state of an entity")
+    void shouldReplayLatestState() {
+
+        for (int i = 0; i < 3; i++) {
+            long transaction = journal.begin();
+            journal.record(transaction, player);
+            journal.fail(transaction);
+        }
+
+        List<JournalEntry> entries = replay();
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).sequence()).isGreaterThan(4);
+    }
+
+    @Test
+    @DisplayName("should keep the changes if the database is still not reachable")
+    void shouldKeepChangesIfReplayFails() {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.record(transaction, player);
+        journal.fail(transaction);
+
+        assertThat(journal.replay(entry -> ProgressionJournal.Replay.RETRY)).isZero();
+        assertThat(journal.pending()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should quarantine changes that can not be replayed and replay the others")
+    void shouldQuarantinePoisonChanges() throws IOException {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.record(transaction, player);
+        journal.fail(transaction);
+
+        int replayed = journal.replay(entry -> entry.type() == JournalEntry.Type.LEVEL
+                ? ProgressionJournal.Replay.QUARANTINE
+                : ProgressionJournal.Replay.APPLIED);
+
+        assertThat(replayed).isEqualTo(1);
+        assertThat(journal.pending()).isZero();
+        assertThat(journal.quarantine()).exists();
+        assertThat(Files.readString(journal.quarantine())).contains("LEVEL", player.level().id().toString());
+    }
+
+    @Test
+    @DisplayName("should replay unfinished transactions after a restart")
+    void shouldRecoverUnfinishedTransactions() throws IOException {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.close();
+
+        journal = ProgressionJournal.open(file, SIZE, false);
+
+        assertThat(journal.pending()).isEqualTo(1);
+        assertThat(journal.begin()).isGreaterThan(transaction);
+    }
+
+    @Test
+    @DisplayName("should not replay changes twice after a restart")
+    void shouldRememberReplayedChanges() throws IOException {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player.level());
+        journal.fail(transaction);
+        replay();
+        journal.close();
+
+        journal = ProgressionJournal.open(file, SIZE, false);
+
+        assertThat(journal.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("should compact the file when it is full")
+    void shouldCompactIfFull() throws IOException {
+
+        List<SkilledPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            players.add(SkilledPlayer.getOrCreate(MockBukkit.getMock().addPlayer()));
+        }
+        for (int i = 0; i < 2000; i++) {
+            long transaction = journal.begin();
+            journal.record(transaction, players.get(i % players.size()));
+            journal.fail(transaction);
+        }
+        long transaction = journal.begin();
+        for (SkilledPlayer player : players) {
+            journal.record(transaction, player.level());
+        }
+        journal.fail(transaction);
+        journal.close();
+
+        journal = ProgressionJournal.open(file, SIZE, false);
+
+        assertThat(journal.pending()).isEqualTo(40);
+    }
+
+    @Test
+    @DisplayName("should write the failed state to the database")
+    void shouldReplayToDatabase() {
+
+        Level level = player.level();
+        long transaction = journal.begin();
+        journal.record(transaction, level);
+        journal.fail(transaction);
+        Level.find.update().set("level", 10).where().idEq(level.id()).update();
+
+        assertThat(journal.replay(DB.getDefault())).isEqualTo(1);
+
+        assertThat(Level.find.byId(level.id()))
+                .extracting(Level::getLevel)
+                .isEqualTo(level.getLevel());
+    }
+
+    @Test
+    @DisplayName("should not overwrite a newer state that was committed to the database")
+    void shouldNotOverwriteNewerState() {
+
+        long transaction = journal.begin();
+        journal.record(transaction, player);
+        journal.fail(transaction);
+        player.skillPoints(5).save();
+
+        journal.replay(DB.getDefault());
+
+        assertThat(SkilledPlayer.find.byId(player.id()))
+                .extracting(SkilledPlayer::skillPoints)
+                .isEqualTo(5);
+        assertThat(journal.pending()).isZero();
+    }
+
+    private List<JournalEntry> replay() {
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        journal.replay(entry -> {
+            replayed.add(entry);
+            return ProgressionJournal.Replay.APPLIED;
+        });
+        return replayed;
+    }
+}
@@ -0,0 +1,132 @@
+package de.raidcraft.skills.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricsRegistryTest {
+
+    private MetricsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+
+        this.registry = new MetricsRegistry();
+    }
+
+    @Test
+    @DisplayName("should return the same counter for the same name and labels")
+    void shouldReuseCounters() {
+
+        registry.counter("executions", "status", "success").increment();
+        registry.counter("executions", "status", "success").add(2);
+        registry.counter("executions", "status", "failure").increment();
+
+        assertThat(registry.counter("executions", "status", "success").get()).isEqualTo(3);
+        assertThat(registry.counter("executions", "status", "failure").get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should calculate the hit ratio of caches")
+    void shouldCalculateCacheHitRatio() {
+
+        MetricsRegistry.CacheStats stats = registry.cache("test");
+        stats.hit();
+        stats.hit();
+        stats.hit();
+        stats.miss();
+
+        assertThat(stats.hitRatio()).isEqualTo(0.75);
+        assertThat(registry.snapshot())
+                .filteredOn(snapshot -> snapshot.name().equals("rcskills_cache_hit_ratio"))
+                .extracting(MetricsRegistry.Snapshot::value)
+                .containsExactly(0.75);
+    }
+
+    @Test
+    @DisplayName("should call collectors before taking a snapshot")
+    void shouldCallCollectors() {
+
+        registry.addCollector(() -> registry.counter("collected").increment());
+
+        registry.snapshot();
+        registry.snapshot();
+
+        assertThat(registry.counter("collected").get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should write metrics in the prometheus text format")
+    void shouldWritePrometheusFormat() throws IOException {
+
+        registry.counter("rcskills_executions_total", "status", "success").add(5);
+        registry.gauge("rcskills_loaded_players", () -> 3);
+        registry.histogram("rcskills_execute_seconds").record(2000000000L);
+
+        StringWriter writer = new StringWriter();
+        registry.writePrometheus(writer);
+
+        assertThat(writer.toString())
+                .contains("# TYPE rcskills_executions_total counter\n")
+                .contains("rcskills_executions_total{status=\"success\"} 5\n")
+                .contains("# TYPE rcskills_loaded_players gauge\n")
+                .contains("rcskills_loaded_players 3\n")
+                .contains("# TYPE rcskills_execute_seconds summary\n")
+                .contains("rcskills_execute_seconds_sum 2\n")
+                .contains("rcskills_execute_seconds_count 1\n");
+    }
+
+    @Nested
+    @DisplayName("Histogram")
+    class HistogramTest {
+
+        @Test
+        @DisplayName("should record small values exactly")
+        void shouldRecordSmallValuesExactly() {
+
+            Histogram histogram = registry.histogram("test");
+            for (int i = 1; i <= 10; i++) {
+                histogram.record(i);
+            }
+
+            assertThat(histogram.count()).isEqualTo(10);
+            assertThat(histogram.sum()).isEqualTo(55);
+            assertThat(histogram.percentile(0.5)).isEqualTo(5);
+            assertThat(histogram.percentile(1)).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("should estimate percentiles within the bucket precision")
+        void shouldEstimatePercentiles() {
+
+            Histogram histogram = registry.histogram("test");
+            for (long i = 1; i <= 1000; i++) {
+                histogram.record(i * 1000);
+            }
+
+            assertThat((double) histogram.percentile(0.5)).isCloseTo(500000, within(500000 * 0.125));
+            assertThat((double) histogram.percentile(0.99)).isCloseTo(990000, within(990000 * 0.125));
+            assertThat(histogram.max()).isEqualTo(1000000);
+        }
+
+        @Test
+        @DisplayName("should map every value into a bucket containing it")
+        void shouldMapValuesIntoBuckets() {
+
+            for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+                int index = Histogram.index(value);
+                assertThat(Histogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+                if (index > 0) {
+                    assertThat(Histogram.upperBound(index - 1)).isLessThan(value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.raidcraft.skills.util;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AreaQueryTest {
+
+    private AreaQuery query;
+    private BlockPositions positions;
+
+    @BeforeEach
+    void setUp() {
+
+        query = new AreaQuery();
+        positions = new BlockPositions(1);
+    }
+
+    @Nested
+    @DisplayName("BlockPositions")
+    class blockPositions {
+
+        @Test
+        @DisplayName("should pack and unpack negative and positive coordinates")
+        void shouldPackAndUnpackCoordinates() {
+
+            long packed = BlockPositions.pack(-30_000_000, -64, 29_999_999);
+
+            assertThat(BlockPositions.unpackX(packed)).isEqualTo(-30_000_000);
+            assertThat(BlockPositions.unpackY(packed)).isEqualTo(-64);
+            assertThat(BlockPositions.unpackZ(packed)).isEqualTo(29_999_999);
+        }
+
+        @Test
+        @DisplayName("should grow and reuse its buffer")
+        void shouldGrowAndReuse() {
+
+            positions.accept(1, 2, 3);
+            positions.accept(4, 5, 6);
+
+            assertThat(positions.size()).isEqualTo(2);
+            assertThat(positions.x(1)).isEqualTo(4);
+
+            assertThat(positions.clear().isEmpty()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("blocksInSphere(...)")
+    class blocksInSphere {
+
+        @Test
+        @DisplayName("should only visit blocks inside the radius")
+        void shouldOnlyVisitBlocksInRadius() {
+
+            int count = query.blocksInSphere(0.5, 64.5, 0.5, 1, positions);
+
+            assertThat(count).isEqualTo(7).isEqualTo(positions.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("blocksInCylinder(...)")
+    class blocksInCylinder {
+
+        @Test
+        @DisplayName("should visit every layer of the cylinder")
+        void shouldVisitEveryLayer() {
+
+            int count = query.blocksInCylinder(0.5, 64, 0.5, 1, 3, positions);
+
+            assertThat(count).isEqualTo(15);
+        }
+    }
+
+    @Nested
+    @DisplayName("blocksInCone(...)")
+    class blocksInCone {
+
+        @Test
+        @DisplayName("should only visit blocks in front of the origin")
+        void shouldOnlyVisitBlocksInFront() {
+
+            query.blocksInCone(0.5, 64.5, 0.5, 0, 0, 1, 5, 30, positions);
+
+            assertThat(positions.isEmpty()).isFalse();
+            for (int i = 0; i < positions.size(); i++) {
+                assertThat(positions.z(i)).isGreaterThanOrEqualTo(0);
+            }
+        }
+
+        @Test
+        @DisplayName("should match the angle based check")
+        void shouldMatchAngleCheck() {
+
+            assertThat(AreaQuery.inCone(1, 0, 1, 0, 0, 1, 100, Math.cos(Math.toRadians(46)))).isTrue();
+            assertThat(AreaQuery.inCone(1, 0, 1, 0, 0, 1, 100, Math.cos(Math.toRadians(44)))).isFalse();
+            assertThat(AreaQuery.inCone(1, 0, -1, 0, 0, 1, 100, Math.cos(Math.toRadians(136)))).isTrue();
+            assertThat(AreaQuery.inCone(1, 0, -1, 0, 0, 1, 100, Math.cos(Math.toRadians(134)))).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("entitiesInCone(...)")
+    class entitiesInCone {
+
+        @Test
+        @DisplayName("should stream all players in the view cone except the source")
+        void shouldStreamPlayersInCone() {
+
+            TargetFixture fixture = new TargetFixture();
+            Player source = fixture.player(0.5, 64, 0.5);
+            Player front = fixture.player(2.5, 64, 8.5);
+            fixture.player(0.5, 64, -8.5);
+            fixture.player(0.5, 64, 30.5);
+
+            List<Player> players = new ArrayList<>();
+            int count = query.entitiesInCone(source, 10, 45, Player.class, players::add);
+
+            assertThat(count).isEqualTo(1);
+            assertThat(players).containsExactly(front);
+        }
+
+        @Test
+        @DisplayName("should stream all players inside the sphere")
+        void shouldStreamPlayersInSphere() {
+
+            TargetFixture fixture = new TargetFixture();
+            Player center = fixture.player(0.5, 64, 0.5);
+            Player near = fixture.player(20.5, 64, 0.5);
+            fixture.player(40.5, 64, 0.5);
+
+            List<Player> players = new ArrayList<>();
+            query.entitiesInSphere(new Location(fixture.world(), 0.5, 64, 0.5), 25, Player.class, players::add);
+
+            assertThat(players).containsExactlyInAnyOrder(center, near);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package de.raidcraft.skills.util;
+
+import de.raidcraft.skills.SkillContext;
+import de.raidcraft.skills.SkillFactory;
+import de.raidcraft.skills.skills.EmptySkill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JarScannerTest {
+
+    @TempDir
+    File temp;
+
+    private File cacheFile;
+    private JarScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+
+        cacheFile = new File(temp, "cache/factories.yml");
+        scanner = new JarScanner(cacheFile, SkillFactory.class, getClass().getClassLoader());
+    }
+
+    private File createJar(String name, Class<?>... classes) throws IOException {
+
+        File jar = new File(temp, name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> aClass : classes) {
+                String entry = ClassHeader.internalName(aClass) + ".class";
+                out.putNextEntry(new JarEntry(entry));
+                try (InputStream in = aClass.getClassLoader().getResourceAsStream(entry)) {
+                    assertThat(in).isNotNull();
+                    in.transferTo(out);
+                }
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    @Nested
+    @DisplayName("ClassHeader")
+    class classHeader {
+
+        @Test
+        @DisplayName("should read the super class and interfaces without loading the class")
+        void shouldReadHeader() throws IOException {
+
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(ClassHeader.internalName(IndirectFactory.class) + ".class")) {
+                ClassHeader header = ClassHeader.read(in);
+
+                assertThat(header.className()).isEqualTo(IndirectFactory.class.getName());
+                assertThat(header.superName()).isEqualTo(ClassHeader.internalName(AbstractFactory.class));
+                assertThat(header.interfaces()).containsExactly(ClassHeader.internalName(Runnable.class));
+                assertThat(header.concrete()).isTrue();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("scan(...)")
+    class scan {
+
+        @Test
+        @DisplayName("should find direct and indirect concrete implementations")
+        void shouldFindImplementations() throws IOException {
+
+            File jar = createJar("skills.jar", EmptySkill.class, EmptySkill.Factory.class,
+                    AbstractFactory.class, IndirectFactory.class, JarScannerTest.class);
+
+            Map<File, List<String>> result = scanner.scan(List.of(jar));
+
+            assertThat(result.get(jar)).containsExactlyInAnyOrder(
+                    EmptySkill.Factory.class.getName(),
+                    IndirectFactory.class.getName()
+            );
+        }
+
+        @Test
+        @DisplayName("should resolve super types outside of the jar with the parent class loader")
+        void shouldResolveSuperTypesFromParent() throws IOException {
+
+            File jar = createJar("indirect.jar", IndirectFactory.class);
+
+            assertThat(scanner.scan(List.of(jar)).get(jar))
+                    .containsExactly(IndirectFactory.class.getName());
+        }
+
+        @Test
+        @DisplayName("should reuse the cached results of unchanged jars")
+        void shouldCacheResults() throws IOException {
+
+            File jar = createJar("skills.jar", EmptySkill.Factory.class);
+            scanner.scan(List.of(jar));
+
+            assertThat(cacheFile).exists();
+            assertThat(cacheFile).content().contains(EmptySkill.Factory.class.getName());
+
+            // touching the jar without changing its content must not trigger a new scan
+            jar.setLastModified(jar.lastModified() + 10_000);
+            JarScanner cached = new JarScanner(cacheFile, SkillFactory.class, getClass().getClassLoader());
+
+            assertThat(cached.scan(List.of(jar)).get(jar))
+                    .containsExactly(EmptySkill.Factory.class.getName());
+        }
+
+        @Test
+        @DisplayName("should scan the jar again if its content changed")
+        void shouldRescanChangedJar() throws IOException {
+
+            File jar = createJar("skills.jar", EmptySkill.Factory.class);
+            scanner.scan(List.of(jar));
+
+            createJar("skills.jar", EmptySkill.class, IndirectFactory.class, AbstractFactory.class);
+            jar.setLastModified(jar.lastModified() + 10_000);
+
+            assertThat(scanner.scan(List.of(jar)).get(jar))
+                    .containsExactly(IndirectFactory.class.getName());
+        }
+    }
+
+    static abstract class AbstractFactory implements SkillFactory<EmptySkill> {
+
+        @Override
+        public Class<EmptySkill> getSkillClass() {
+
+            return EmptySkill.class;
+        }
+
+        @Override
+        public EmptySkill create(SkillContext context) {
+
+            return new EmptySkill(context);
+        }
+    }
+
+    static class IndirectFactory extends AbstractFactory implements Runnable {
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.raidcraft.skills.util;
+
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TargetEngineTest {
+
+    private TargetFixture fixture;
+    private TargetEngine engine;
+
+    @BeforeEach
+    void setUp() {
+
+        fixture = new TargetFixture();
+        engine = new TargetEngine();
+    }
+
+    @Nested
+    @DisplayName("nearest(...)")
+    class nearest {
+
+        @Test
+        @DisplayName("should return the player in front of the source")
+        void shouldReturnPlayerInFront() {
+
+            // yaw 0 looks along the positive z axis
+            Player source = fixture.player(0.5, 64, 0.5);
+            Player target = fixture.player(0.5, 64, 10.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isSameAs(target);
+        }
+
+        @Test
+        @DisplayName("should return the nearest of multiple hits")
+        void shouldReturnNearestHit() {
+
+            Player source = fixture.player(0.5, 64, 0.5);
+            fixture.player(0.5, 64, 25.5);
+            Player near = fixture.player(0.5, 64, 20.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isSameAs(near);
+        }
+
+        @Test
+        @DisplayName("should find targets in neighbouring chunks along the ray")
+        void shouldFindTargetsAcrossChunks() {
+
+            // yaw -90 looks along the positive x axis
+            Player source = fixture.player(14.5, 64, 0.5, -90, 0);
+            Player target = fixture.player(40.5, 64, 0.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isSameAs(target);
+        }
+
+        @Test
+        @DisplayName("should ignore players behind the source")
+        void shouldIgnorePlayersBehind() {
+
+            Player source = fixture.player(0.5, 64, 0.5);
+            fixture.player(0.5, 64, -5.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isNull();
+        }
+
+        @Test
+        @DisplayName("should ignore players next to the view ray")
+        void shouldIgnorePlayersNextToRay() {
+
+            Player source = fixture.player(0.5, 64, 0.5);
+            fixture.player(3.5, 64, 10.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isNull();
+        }
+
+        @Test
+        @DisplayName("should ignore players out of range")
+        void shouldIgnorePlayersOutOfRange() {
+
+            Player source = fixture.player(0.5, 64, 0.5);
+            fixture.player(0.5, 64, 40.5);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isNull();
+        }
+
+        @Test
+        @DisplayName("should skip unloaded chunks")
+        void shouldSkipUnloadedChunks() {
+
+            Player source = fixture.player(0.5, 64, 0.5);
+            fixture.player(0.5, 64, 20.5);
+            fixture.unload(0, 1);
+
+            assertThat(engine.nearest(source, Player.class, 30)).isNull();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.raidcraft.skills.util;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.*;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds a mocked world with players that are indexed by their chunk
+ * to test and benchmark the target lookups without a running server.
+ */
+class TargetFixture {
+
+    private final World world = mock(World.class);
+    private final Map<Long, List<Entity>> chunks = new HashMap<>();
+    private final Map<Long, Chunk> chunkMocks = new HashMap<>();
+    private final List<Player> players = new ArrayList<>();
+    private final Set<Long> unloadedChunks = new HashSet<>();
+
+    TargetFixture() {
+
+        when(world.getPlayers()).thenReturn(players);
+        when(world.isChunkLoaded(anyInt(), anyInt())).thenAnswer(invocation ->
+                !unloadedChunks.contains(key(invocation.getArgument(0), invocation.getArgument(1))));
+        when(world.getChunkAt(anyInt(), anyInt())).thenAnswer(invocation ->
+                chunk(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    World world() {
+
+        return world;
+    }
+
+    List<Player> players() {
+
+        return players;
+    }
+
+    Player player(double x, double y, double z) {
+
+        return player(x, y, z, 0, 0);
+    }
+
+    Player player(double x, double y, double z, float yaw, float pitch) {
+
+        Location location = new Location(world, x, y, z, yaw, pitch);
+        Player player = mock(Player.class);
+        when(player.getWorld()).thenReturn(world);
+        when(player.getLocation()).thenAnswer(invocation -> location.clone());
+        when(player.getLocation(any(Location.class))).thenAnswer(invocation -> {
+            Location target = invocation.getArgument(0);
+            target.setWorld(location.getWorld());
+            target.setX(location.getX());
+            target.setY(location.getY());
+            target.setZ(location.getZ());
+            target.setYaw(location.getYaw());
+            target.setPitch(location.getPitch());
+            return target;
+        });
+        when(player.getEyeHeight()).thenReturn(1.62);
+        when(player.getEyeLocation()).thenAnswer(invocation -> location.clone().add(0, 1.62, 0));
+        when(player.getWidth()).thenReturn(0.6);
+        when(player.getHeight()).thenReturn(1.8);
+
+        players.add(player);
+        chunks.computeIfAbsent(key(location.getBlockX() >> 4, location.getBlockZ() >> 4), k -> new ArrayList<>())
+                .add(player);
+
+        return player;
+    }
+
+    TargetFixture unload(int chunkX, int chunkZ) {
+
+        unloadedChunks.add(key(chunkX, chunkZ));
+        return this;
+    }
+
+    private Chunk chunk(int x, int z) {
+
+        return chunkMocks.computeIfAbsent(key(x, z), key -> {
+            Chunk chunk = mock(Chunk.class);
+            when(chunk.getX()).thenReturn(x);
+            when(chunk.getZ()).thenReturn(z);
+            when(chunk.getEntities()).thenAnswer(invocation ->
+                    chunks.getOrDefault(key, new ArrayList<>()).toArray(new Entity[0]));
+            return chunk;
+        });
+    }
+
+    private static long key(int x, int z) {
+
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+}